@@ -0,0 +1,203 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exadel.aem.toolkit.api.processing;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import com.exadel.aem.toolkit.api.annotations.main.Dialog;
+import com.exadel.aem.toolkit.api.annotations.meta.DialogAnnotation;
+import com.exadel.aem.toolkit.api.annotations.meta.DialogWidgetAnnotation;
+import com.exadel.aem.toolkit.api.handlers.DialogHandler;
+import com.exadel.aem.toolkit.api.handlers.DialogWidgetHandler;
+
+/**
+ * Annotation processor that records, at compile time, the classes AEM Authoring Toolkit plugin looks for, so that
+ * the plugin does not need to scan the compiled classes. {@link #COMPONENTS_INDEX} lists {@code @Dialog}-annotated
+ * classes with their component names. {@link #HANDLERS_INDEX} lists subtypes of {@code DialogWidgetHandler} and
+ * {@code DialogHandler}, and annotations marked with {@code @DialogWidgetAnnotation} or {@code @DialogAnnotation}, each
+ * with the name of the interface or meta-annotation. Abstract subtypes are listed as well, so that handlers extending
+ * them in other artifacts can be discovered. Every line contains a binary class name and a value separated by
+ * {@link #INDEX_SEPARATOR}.
+ * <p>The processor is registered as a service and runs whenever this artifact is on the compile classpath. Upon an
+ * incremental compilation, the entries of the existing index are retained for classes that still exist</p>
+ * <p>The index files are kept not older than the class files they describe with {@link IndexFileToucher}. No index
+ * is written for a module that contains neither components nor handlers</p>
+ */
+@SupportedAnnotationTypes("*")
+public class ComponentIndexProcessor extends AbstractProcessor {
+    public static final String COMPONENTS_INDEX = "META-INF/aem-authoring-toolkit/components.idx";
+    public static final String HANDLERS_INDEX = "META-INF/aem-authoring-toolkit/handlers.idx";
+    public static final String INDEX_SEPARATOR = "\t";
+
+    private static final List<Class<?>> HANDLER_TYPES = Arrays.asList(DialogWidgetHandler.class, DialogHandler.class);
+    private static final List<Class<?>> HANDLER_ANNOTATION_TYPES = Arrays.asList(DialogWidgetAnnotation.class, DialogAnnotation.class);
+
+    private final Map<String, String> components = new TreeMap<>();
+    private final Map<String, String> handlers = new TreeMap<>();
+    private final Set<String> processedTypes = new HashSet<>();
+    private IndexFileToucher indexFileToucher;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        indexFileToucher = IndexFileToucher.register(processingEnv);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex(COMPONENTS_INDEX, components);
+            writeIndex(HANDLERS_INDEX, handlers);
+            return false;
+        }
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement) {
+                collect((TypeElement) element);
+            }
+        }
+        // annotations are not claimed so that other processors can handle them
+        return false;
+    }
+
+    /**
+     * Records the facts about the specified type and its nested types
+     * @param type {@code TypeElement} instance
+     */
+    private void collect(TypeElement type) {
+        Elements elements = processingEnv.getElementUtils();
+        Types types = processingEnv.getTypeUtils();
+        String name = elements.getBinaryName(type).toString();
+        processedTypes.add(name);
+
+        Dialog dialog = type.getAnnotation(Dialog.class);
+        if (dialog != null) {
+            components.put(name, dialog.name());
+        }
+        if (type.getKind() == ElementKind.ANNOTATION_TYPE) {
+            for (Class<?> annotationType : HANDLER_ANNOTATION_TYPES) {
+                if (hasAnnotation(type, annotationType)) {
+                    handlers.put(name, annotationType.getName());
+                }
+            }
+        } else if (type.getKind() == ElementKind.CLASS || type.getKind() == ElementKind.INTERFACE) {
+            TypeMirror erasure = types.erasure(type.asType());
+            for (Class<?> handlerType : HANDLER_TYPES) {
+                TypeElement handlerElement = elements.getTypeElement(handlerType.getCanonicalName());
+                if (handlerElement != null && types.isAssignable(erasure, types.erasure(handlerElement.asType()))) {
+                    handlers.put(name, handlerType.getName());
+                }
+            }
+        }
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed instanceof TypeElement) {
+                collect((TypeElement) enclosed);
+            }
+        }
+    }
+
+    /**
+     * Gets whether the specified annotation type is marked with the specified meta-annotation
+     * @param type {@code TypeElement} representing an annotation type
+     * @param annotationType The meta-annotation
+     * @return True or false
+     */
+    private static boolean hasAnnotation(TypeElement type, Class<?> annotationType) {
+        return type.getAnnotationMirrors().stream()
+                .anyMatch(mirror -> ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType.getCanonicalName()));
+    }
+
+    /**
+     * Writes an index file to the class output. Entries of a previously written index that belong to classes not
+     * compiled in this run are retained as long as these classes are still available
+     * @param path Path to the index file
+     * @param entries Entries collected in this run
+     */
+    private void writeIndex(String path, Map<String, String> entries) {
+        Map<String, String> previousEntries = readIndex(path);
+        if (entries.isEmpty() && previousEntries.isEmpty()) {
+            // no index is written for a module that contains neither components nor handlers
+            return;
+        }
+        Filer filer = processingEnv.getFiler();
+        Map<String, String> result = new TreeMap<>(previousEntries);
+        result.keySet().removeIf(name -> processedTypes.contains(name)
+                || processingEnv.getElementUtils().getTypeElement(name.replace('$', '.')) == null);
+        result.putAll(entries);
+        try {
+            FileObject index = filer.createResource(StandardLocation.CLASS_OUTPUT, "", path);
+            try (Writer writer = index.openWriter()) {
+                for (Map.Entry<String, String> entry : result.entrySet()) {
+                    writer.write(entry.getKey() + INDEX_SEPARATOR + entry.getValue() + "\n");
+                }
+            }
+            indexFileToucher.track(index);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Cannot write " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the index file previously written to the class output, if any
+     * @param path Path to the index file
+     * @return Map of entries
+     */
+    private Map<String, String> readIndex(String path) {
+        Map<String, String> result = new TreeMap<>();
+        try {
+            FileObject index = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", path);
+            try (Reader reader = index.openReader(true); BufferedReader bufferedReader = new BufferedReader(reader)) {
+                String line;
+                while ((line = bufferedReader.readLine()) != null) {
+                    int separatorPosition = line.indexOf(INDEX_SEPARATOR);
+                    if (separatorPosition > 0) {
+                        result.put(line.substring(0, separatorPosition), line.substring(separatorPosition + 1));
+                    }
+                }
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // there is no previous index, which is the case for a clean build
+        }
+        return result;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exadel.aem.toolkit.api.processing;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.tools.FileObject;
+
+/**
+ * Keeps the index files written by an annotation processor not older than the class files they describe. Since javac
+ * writes class files after annotation processing is over, the modification time of the tracked index files is updated
+ * each time a class file is generated. This way a folder index is never older than the class files of the same
+ * compilation, and is found outdated if these were compiled afterwards without the processor
+ */
+public class IndexFileToucher {
+    private final List<Path> indexFiles = new CopyOnWriteArrayList<>();
+
+    private IndexFileToucher() {
+    }
+
+    /**
+     * Creates an instance subscribed to the class generation events of javac, if the processor runs within javac.
+     * The compiler API is accessed reflectively since it is not available at compile time with every JDK this artifact
+     * supports. If the subscription fails, the index files keep the time they were written at, and the plugin does not
+     * rely on them
+     * @param processingEnv {@code ProcessingEnvironment} of the current processor
+     * @return {@code IndexFileToucher} instance
+     */
+    public static IndexFileToucher register(ProcessingEnvironment processingEnv) {
+        IndexFileToucher result = new IndexFileToucher();
+        try {
+            ClassLoader classLoader = IndexFileToucher.class.getClassLoader();
+            Class<?> taskType = Class.forName("com.sun.source.util.JavacTask", false, classLoader);
+            Class<?> listenerType = Class.forName("com.sun.source.util.TaskListener", false, classLoader);
+            Class<?> eventType = Class.forName("com.sun.source.util.TaskEvent", false, classLoader);
+            Method getKind = eventType.getMethod("getKind");
+            Object task = taskType.getMethod("instance", ProcessingEnvironment.class).invoke(null, processingEnv);
+            Object listener = Proxy.newProxyInstance(listenerType.getClassLoader(), new Class<?>[] {listenerType}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "finished":
+                        if ("GENERATE".equals(String.valueOf(getKind.invoke(args[0])))) {
+                            result.touch();
+                        }
+                        return null;
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return IndexFileToucher.class.getName();
+                    default:
+                        return null;
+                }
+            });
+            taskType.getMethod("addTaskListener", listenerType).invoke(task, listener);
+        } catch (ReflectiveOperationException | LinkageError | IllegalArgumentException e) {
+            // the processor does not run within javac, or the compiler API is not accessible
+        }
+        return result;
+    }
+
+    /**
+     * Adds the specified index file to the files touched upon class generation. Files not stored in the default
+     * file system are skipped
+     * @param indexFile {@code FileObject} created by the processor
+     */
+    public void track(FileObject indexFile) {
+        if ("file".equals(indexFile.toUri().getScheme())) {
+            indexFiles.add(Paths.get(indexFile.toUri()));
+        }
+    }
+
+    /**
+     * Sets the modification time of the tracked index files to the current time
+     */
+    private void touch() {
+        FileTime now = FileTime.fromMillis(System.currentTimeMillis());
+        for (Path indexFile : indexFiles) {
+            try {
+                Files.setLastModifiedTime(indexFile, now);
+            } catch (IOException e) {
+                // the file is then treated as outdated, and the plugin does not rely on it
+            }
+        }
+    }
+}
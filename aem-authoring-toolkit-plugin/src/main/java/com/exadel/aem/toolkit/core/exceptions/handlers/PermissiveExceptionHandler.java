@@ -26,6 +26,9 @@ import org.slf4j.LoggerFactory;
 class PermissiveExceptionHandler extends AbstractExceptionHandler {
     private static final Logger LOG = LoggerFactory.getLogger("AEM Authoring Toolkit");
 
+    // counted per thread so that the issues reported while rendering a particular component can be told apart
+    private static final ThreadLocal<long[]> HANDLED_COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
     /**
      * Logs the handled exception. Checked exceptions are logged as error messages, and unchecked exceptions are logged
      * as warnings
@@ -34,6 +37,7 @@ class PermissiveExceptionHandler extends AbstractExceptionHandler {
      */
     @Override
     public void handle(String message, Exception cause) {
+        HANDLED_COUNT.get()[0]++;
         if (ClassUtils.isAssignable(cause.getClass(), RuntimeException.class)) {
             LOG.warn(message, cause);
         } else {
@@ -41,4 +45,12 @@ class PermissiveExceptionHandler extends AbstractExceptionHandler {
         }
     }
 
+    /**
+     * Gets the number of exceptions logged without terminating the workflow within the current thread
+     * @return Long value
+     */
+    static long getHandledCount() {
+        return HANDLED_COUNT.get()[0];
+    }
+
 }
@@ -48,4 +48,14 @@ public class PluginExceptionHandlers {
         return new SelectiveExceptionHandler(Arrays.stream(StringUtils.split(value, ','))
                 .map(String::trim).collect(Collectors.toList()));
     }
+
+    /**
+     * Gets the number of exceptions that have been handled within the current thread without terminating Maven workflow,
+     * i.e. only logged. Comparing the values retrieved before and after an operation tells whether any issue has been
+     * reported in the course of the operation
+     * @return Long value
+     */
+    public static long getHandledExceptionCount() {
+        return PermissiveExceptionHandler.getHandledCount();
+    }
 }
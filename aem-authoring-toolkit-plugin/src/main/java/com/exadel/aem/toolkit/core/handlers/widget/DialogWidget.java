@@ -20,13 +20,6 @@ import java.util.function.BiConsumer;
 
 import org.w3c.dom.Element;
 
-import com.exadel.aem.toolkit.core.handlers.assets.dependson.DependsOnHandler;
-import com.exadel.aem.toolkit.core.handlers.widget.common.AttributesHandler;
-import com.exadel.aem.toolkit.core.handlers.widget.common.CustomHandler;
-import com.exadel.aem.toolkit.core.handlers.widget.common.DialogFieldHandler;
-import com.exadel.aem.toolkit.core.handlers.widget.common.GenericPropertiesHandler;
-import com.exadel.aem.toolkit.core.handlers.widget.common.InheritanceHandler;
-import com.exadel.aem.toolkit.core.handlers.widget.common.PropertyMappingHandler;
 import com.exadel.aem.toolkit.core.maven.PluginRuntime;
 
 /**
@@ -65,21 +58,16 @@ public interface DialogWidget {
     default void append(Element parentNode, Field field, String name) {
         Element componentNode = PluginRuntime.context().getXmlUtility().createNodeElement(name);
         parentNode.appendChild(componentNode);
-        getHandlerChain().accept(componentNode, field);
+        getHandlerChain(field).accept(componentNode, field);
     }
 
     /**
-     * Generates the chain of handlers to store {@code cq:editConfig} XML markup
+     * Gets the chain of handlers to store Granite UI markup for the specified {@code Field}. The chain only contains
+     * the stages triggered by the annotations of the field, and is shared by the fields having the same set of stages
+     * @param field Current {@code Field}
      * @return {@code BiConsumer<Element, Field>} instance
      */
-    default BiConsumer<Element, Field> getHandlerChain() {
-        BiConsumer<Element, Field> mainChain = new GenericPropertiesHandler()
-                .andThen(new PropertyMappingHandler())
-                .andThen(new AttributesHandler())
-                .andThen(new DialogFieldHandler())
-                .andThen(getHandler())
-                .andThen(new DependsOnHandler())
-                .andThen(new CustomHandler());
-        return new InheritanceHandler(mainChain).andThen(mainChain);
+    default BiConsumer<Element, Field> getHandlerChain(Field field) {
+        return HandlerPipelines.forField(getHandler(), field);
     }
 }
@@ -15,12 +15,19 @@ package com.exadel.aem.toolkit.core.handlers.widget;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
-import java.util.Arrays;
-import java.util.Objects;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 
 import org.w3c.dom.Element;
 
+import com.google.common.base.Suppliers;
+
 import com.exadel.aem.toolkit.api.annotations.meta.DialogWidgetAnnotation;
 import com.exadel.aem.toolkit.api.annotations.widgets.Checkbox;
 import com.exadel.aem.toolkit.api.annotations.widgets.FieldSet;
@@ -41,10 +48,7 @@ import com.exadel.aem.toolkit.api.annotations.widgets.radio.RadioGroup;
 import com.exadel.aem.toolkit.api.annotations.widgets.rte.RichTextEditor;
 import com.exadel.aem.toolkit.api.annotations.widgets.select.Select;
 import com.exadel.aem.toolkit.api.annotations.widgets.textarea.TextArea;
-import com.exadel.aem.toolkit.core.exceptions.InvalidSettingException;
 import com.exadel.aem.toolkit.core.handlers.widget.rte.RichTextEditorHandler;
-import com.exadel.aem.toolkit.core.maven.PluginRuntime;
-import com.exadel.aem.toolkit.core.util.PluginReflectionUtility;
 
 /**
  * Enumerates built-in {@link DialogWidget} entities and exposes utility methods to detect whether a {@code DialogWidget}
@@ -52,38 +56,56 @@ import com.exadel.aem.toolkit.core.util.PluginReflectionUtility;
  */
 public enum DialogWidgets implements DialogWidget {
     TEXT_FIELD(TextField.class),
-    CHECKBOX(Checkbox.class, new CheckboxHandler()),
-    SELECT(Select.class, new SelectHandler()),
+    CHECKBOX(Checkbox.class, CheckboxHandler::new),
+    SELECT(Select.class, SelectHandler::new),
     PATH_FIELD(PathField.class),
-    FIELD_SET(FieldSet.class, new FieldSetHandler()),
+    FIELD_SET(FieldSet.class, FieldSetHandler::new),
     NUMBER_FIELD(NumberField.class),
-    RADIO_GROUP(RadioGroup.class, new RadioGroupHandler()),
-    MULTI_FIELD(MultiField.class, new MultiFieldHandler()),
-    COLOR_FIELD(ColorField.class, new ColorFieldHandler()),
+    RADIO_GROUP(RadioGroup.class, RadioGroupHandler::new),
+    MULTI_FIELD(MultiField.class, MultiFieldHandler::new),
+    COLOR_FIELD(ColorField.class, ColorFieldHandler::new),
     SWITCH(Switch.class),
-    DATE_PICKER(DatePicker.class, new DatePickerHandler()),
+    DATE_PICKER(DatePicker.class, DatePickerHandler::new),
     FILE_UPLOAD(FileUpload.class),
     IMAGE_UPLOAD(ImageUpload.class),
     TEXT_AREA(TextArea.class),
-    RICH_TEXT_EDITOR(RichTextEditor.class, new RichTextEditorHandler()),
+    RICH_TEXT_EDITOR(RichTextEditor.class, RichTextEditorHandler::new),
     HIDDEN(Hidden.class),
-    AUTOCOMPLETE(Autocomplete.class, new AutocompleteHandler()),
-    PASSWORD(Password.class, new PasswordHandler()),
+    AUTOCOMPLETE(Autocomplete.class, AutocompleteHandler::new),
+    PASSWORD(Password.class, PasswordHandler::new),
     ALERT(Alert.class);
 
-    private static final String NO_COMPONENT_EXCEPTION_MESSAGE_TEMPLATE = "No valid dialog component for field '%s' in class %s";
-    private static final BiConsumer<Element, Field> EMPTY_HANDLER = (componentNode, field) -> {};
+    static final BiConsumer<Element, Field> EMPTY_HANDLER = (componentNode, field) -> {};
+
+    private static final Map<Class<? extends Annotation>, DialogWidgets> WIDGETS_BY_ANNOTATION;
+    static {
+        Map<Class<? extends Annotation>, DialogWidgets> widgetsByAnnotation = new IdentityHashMap<>();
+        for (DialogWidgets widget : values()) {
+            widgetsByAnnotation.putIfAbsent(widget.getAnnotationClass(), widget);
+        }
+        WIDGETS_BY_ANNOTATION = Collections.unmodifiableMap(widgetsByAnnotation);
+    }
+
+    // resolved widgets are bound to the declaring classes so that they are released together with the classes
+    private static final ClassValue<ConcurrentMap<String, Optional<DialogWidget>>> RESOLVED_WIDGETS =
+            new ClassValue<ConcurrentMap<String, Optional<DialogWidget>>>() {
+                @Override
+                protected ConcurrentMap<String, Optional<DialogWidget>> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
 
     private Class<? extends Annotation> annotation;
-    private BiConsumer<Element, Field> handler;
+    private Supplier<BiConsumer<Element, Field>> handler;
 
     DialogWidgets(Class<? extends Annotation> annotation) {
         this.annotation = annotation;
     }
 
-    DialogWidgets(Class<? extends Annotation> annotation, BiConsumer<Element, Field> handler) {
+    DialogWidgets(Class<? extends Annotation> annotation, Supplier<BiConsumer<Element, Field>> handler) {
         this(annotation);
-        this.handler = handler;
+        // handlers are created upon the first use so that e.g. the RTE machinery is not set up for components without RTEs
+        this.handler = Suppliers.memoize(handler::get);
     }
 
     @Override
@@ -93,7 +115,7 @@ public enum DialogWidgets implements DialogWidget {
 
     @Override
     public BiConsumer<Element, Field> getHandler() {
-        return handler != null ? handler : EMPTY_HANDLER;
+        return handler != null ? handler.get() : EMPTY_HANDLER;
     }
 
     /**
@@ -102,7 +124,7 @@ public enum DialogWidgets implements DialogWidget {
      * @return True or false
      */
     public static boolean isPresent(Field field) {
-        return getWidgetAnnotationClass(field) != null;
+        return getResolvedWidget(field).isPresent();
     }
 
     /**
@@ -111,66 +133,42 @@ public enum DialogWidgets implements DialogWidget {
      * @return {@code DialogWidget} value, or null
      */
     public static DialogWidget fromField(Field field) {
-        Class<? extends Annotation> fieldAnnotationClass = getWidgetAnnotationClass(field);
-        if (fieldAnnotationClass == null) {
-            return null;
-        }
-        if (fieldAnnotationClass.isAnnotationPresent(DialogWidgetAnnotation.class)) {
-            return new CustomDialogWidget(fieldAnnotationClass);
-        }
-        DialogWidgets result = Arrays.stream(values())
-                .filter(dialogComponent -> fieldAnnotationClass.equals(dialogComponent.getAnnotationClass()))
-                .findFirst()
-                .orElse(null);
-        if (result == null) {
-            PluginRuntime.context().getExceptionHandler().handle(new InvalidSettingException(String.format(
-                    NO_COMPONENT_EXCEPTION_MESSAGE_TEMPLATE,
-                    field.getName(),
-                    field.getDeclaringClass())));
-        }
-        return result;
+        return getResolvedWidget(field).orElse(null);
     }
 
     /**
-     * Gets {@code Class} definition of a {@code DialogComponent}-defining annotation of the current {@code Field}
+     * Retrieves the widget resolved for the specified {@code Field}. Fields are resolved once, and the results are
+     * stored per declaring class
      * @param field {@code Field} of a component class
-     * @return {@code Class} object
+     * @return {@code Optional} containing the {@code DialogWidget}, or an empty {@code Optional}
      */
-    private static Class<? extends Annotation> getWidgetAnnotationClass(Field field) {
-        // get first in-built component annotation attached to this field
-        Class<? extends Annotation> annotationClass = Arrays.stream(values())
-                .filter(dialogComponent -> isAnnotated(field, dialogComponent))
-                .map(DialogWidgets::getAnnotationClass)
-                .findFirst()
-                .orElse(null);
-        if (annotationClass != null) {
-            return annotationClass;
-        }
-        // if no such annotation, retrieve first custom DialogComponentAnnotation attached to this field
-        return PluginReflectionUtility.getFieldAnnotations(field)
-                .filter(DialogWidgets::isCustomDialogWidgetAnnotation)
-                .findFirst()
-                .orElse(null);
+    private static Optional<DialogWidget> getResolvedWidget(Field field) {
+        return RESOLVED_WIDGETS.get(field.getDeclaringClass()).computeIfAbsent(field.getName(), name -> resolve(field));
     }
 
     /**
-     * Gets whether this {@code Field} has the particular {@code DialogComponent}-defining annotation
+     * Resolves the widget of the specified {@code Field}. The first built-in widget annotation (in the order of this
+     * enumeration) is preferred; otherwise the first custom annotation marked with {@link DialogWidgetAnnotation} is used
      * @param field {@code Field} of a component class
-     * @param widget {@code DialogComponent} instance
-     * @return True or false
+     * @return {@code Optional} containing the {@code DialogWidget}, or an empty {@code Optional}
      */
-    private static boolean isAnnotated(Field field, DialogWidgets widget) {
-        return Objects.nonNull(widget.getAnnotationClass())
-                && PluginReflectionUtility.getFieldAnnotations(field).anyMatch(fa -> fa.equals(widget.getAnnotationClass()));
-    }
-
-    /**
-     * Gets whether this {@code Annotation} is a custom dialog annotation
-     * @param value {@code Class} definition of the annotation
-     * @return True or false
-     */
-    private static boolean isCustomDialogWidgetAnnotation(Class<? extends Annotation> value) {
-        return value.isAnnotationPresent(DialogWidgetAnnotation.class);
+    private static Optional<DialogWidget> resolve(Field field) {
+        DialogWidgets builtInWidget = null;
+        Class<? extends Annotation> customAnnotationClass = null;
+        for (Annotation annotation : field.getDeclaredAnnotations()) {
+            DialogWidgets widget = WIDGETS_BY_ANNOTATION.get(annotation.annotationType());
+            if (widget != null && (builtInWidget == null || widget.ordinal() < builtInWidget.ordinal())) {
+                builtInWidget = widget;
+            } else if (widget == null && customAnnotationClass == null && annotation.annotationType().isAnnotationPresent(DialogWidgetAnnotation.class)) {
+                customAnnotationClass = annotation.annotationType();
+            }
+        }
+        if (builtInWidget != null) {
+            return Optional.of(builtInWidget);
+        }
+        return customAnnotationClass != null
+                ? Optional.of(new CustomDialogWidget(customAnnotationClass))
+                : Optional.empty();
     }
 
     /**
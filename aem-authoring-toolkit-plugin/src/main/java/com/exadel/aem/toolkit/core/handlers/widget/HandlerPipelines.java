@@ -0,0 +1,227 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.exadel.aem.toolkit.core.handlers.widget;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+
+import org.w3c.dom.Element;
+
+import com.exadel.aem.toolkit.api.annotations.assets.dependson.DependsOn;
+import com.exadel.aem.toolkit.api.annotations.assets.dependson.DependsOnConfig;
+import com.exadel.aem.toolkit.api.annotations.assets.dependson.DependsOnRef;
+import com.exadel.aem.toolkit.api.annotations.meta.PropertyMapping;
+import com.exadel.aem.toolkit.api.annotations.widgets.DialogField;
+import com.exadel.aem.toolkit.api.annotations.widgets.Extends;
+import com.exadel.aem.toolkit.api.annotations.widgets.attribute.Attribute;
+import com.exadel.aem.toolkit.core.handlers.assets.dependson.DependsOnHandler;
+import com.exadel.aem.toolkit.core.handlers.widget.common.AttributesHandler;
+import com.exadel.aem.toolkit.core.handlers.widget.common.CustomHandler;
+import com.exadel.aem.toolkit.core.handlers.widget.common.DialogFieldHandler;
+import com.exadel.aem.toolkit.core.handlers.widget.common.GenericPropertiesHandler;
+import com.exadel.aem.toolkit.core.handlers.widget.common.InheritanceHandler;
+import com.exadel.aem.toolkit.core.handlers.widget.common.PropertyMappingHandler;
+
+/**
+ * Provides the chains of handlers that render {@link DialogWidget}s. A chain is compiled once per widget handler
+ * and set of stages, and only contains the stages triggered by the annotations of a field. The stages are computed
+ * once per field. Since the chains do not refer to user classes, they are shared by all fields and components
+ */
+class HandlerPipelines {
+    private static final int PROPERTY_MAPPING_STAGE = 1;
+    private static final int ATTRIBUTES_STAGE = 1 << 1;
+    private static final int DIALOG_FIELD_STAGE = 1 << 2;
+    private static final int DEPENDS_ON_STAGE = 1 << 3;
+    private static final int INHERITANCE_STAGE = 1 << 4;
+
+    private static final BiConsumer<Element, Field> GENERIC_PROPERTIES_HANDLER = new GenericPropertiesHandler();
+    private static final BiConsumer<Element, Field> PROPERTY_MAPPING_HANDLER = new PropertyMappingHandler();
+    private static final BiConsumer<Element, Field> ATTRIBUTES_HANDLER = new AttributesHandler();
+    private static final BiConsumer<Element, Field> DIALOG_FIELD_HANDLER = new DialogFieldHandler();
+    private static final BiConsumer<Element, Field> DEPENDS_ON_HANDLER = new DependsOnHandler();
+    private static final BiConsumer<Element, Field> CUSTOM_HANDLER = new CustomHandler();
+
+    private static final ConcurrentMap<PipelineKey, BiConsumer<Element, Field>> PIPELINES = new ConcurrentHashMap<>();
+
+    // stages are bound to the declaring classes so that they are released together with the classes
+    private static final ClassValue<ConcurrentMap<String, Integer>> FIELD_STAGES =
+            new ClassValue<ConcurrentMap<String, Integer>>() {
+                @Override
+                protected ConcurrentMap<String, Integer> computeValue(Class<?> type) {
+                    return new ConcurrentHashMap<>();
+                }
+            };
+
+    private HandlerPipelines() {
+    }
+
+    /**
+     * Gets the chain of handlers that renders the specified {@code Field} with the specified widget handler.
+     * If the field extends other fields, their markup is rendered first
+     * @param widgetHandler The handler specific for the {@link DialogWidget}
+     * @param field Current {@code Field} instance
+     * @return {@code BiConsumer<Element, Field>} instance
+     */
+    static BiConsumer<Element, Field> forField(BiConsumer<Element, Field> widgetHandler, Field field) {
+        int stages = getStages(field);
+        if ((stages & INHERITANCE_STAGE) == 0) {
+            return getPipeline(widgetHandler, stages);
+        }
+        // the main chain is retrieved beforehand since the map cannot be modified from within computeIfAbsent()
+        BiConsumer<Element, Field> mainPipeline = getPipeline(widgetHandler, stages & ~INHERITANCE_STAGE);
+        return PIPELINES.computeIfAbsent(new PipelineKey(widgetHandler, stages), key -> new Pipeline(Arrays.asList(
+                new InheritanceHandler((element, ancestor) -> forAncestor(widgetHandler, ancestor).accept(element, ancestor)),
+                mainPipeline)));
+    }
+
+    /**
+     * Gets the chain of handlers that renders an ancestor of a field. Ancestors are rendered without their own
+     * ancestors, since the {@link InheritanceHandler} walks the whole inheritance tree
+     * @param widgetHandler The handler specific for the {@link DialogWidget}
+     * @param field Ancestral {@code Field} instance
+     * @return {@code BiConsumer<Element, Field>} instance
+     */
+    private static BiConsumer<Element, Field> forAncestor(BiConsumer<Element, Field> widgetHandler, Field field) {
+        return getPipeline(widgetHandler, getStages(field) & ~INHERITANCE_STAGE);
+    }
+
+    /**
+     * Retrieves the chain of handlers for the specified widget handler and set of stages, compiling it as necessary
+     * @param widgetHandler The handler specific for the {@link DialogWidget}
+     * @param stages Bit mask of the optional stages
+     * @return {@code BiConsumer<Element, Field>} instance
+     */
+    private static BiConsumer<Element, Field> getPipeline(BiConsumer<Element, Field> widgetHandler, int stages) {
+        return PIPELINES.computeIfAbsent(new PipelineKey(widgetHandler, stages), key -> {
+            List<BiConsumer<Element, Field>> handlers = new ArrayList<>();
+            handlers.add(GENERIC_PROPERTIES_HANDLER);
+            addIf(handlers, PROPERTY_MAPPING_HANDLER, stages, PROPERTY_MAPPING_STAGE);
+            addIf(handlers, ATTRIBUTES_HANDLER, stages, ATTRIBUTES_STAGE);
+            addIf(handlers, DIALOG_FIELD_HANDLER, stages, DIALOG_FIELD_STAGE);
+            if (widgetHandler != DialogWidgets.EMPTY_HANDLER) {
+                handlers.add(widgetHandler);
+            }
+            addIf(handlers, DEPENDS_ON_HANDLER, stages, DEPENDS_ON_STAGE);
+            // custom handlers are only known within the current plugin runtime, therefore this stage is always present
+            handlers.add(CUSTOM_HANDLER);
+            return new Pipeline(handlers);
+        });
+    }
+
+    /**
+     * Adds the handler to the list if the specified stage is present in the bit mask
+     * @param handlers List of handlers
+     * @param handler Handler to add
+     * @param stages Bit mask of the optional stages
+     * @param stage The stage the handler implements
+     */
+    private static void addIf(List<BiConsumer<Element, Field>> handlers, BiConsumer<Element, Field> handler, int stages, int stage) {
+        if ((stages & stage) != 0) {
+            handlers.add(handler);
+        }
+    }
+
+    /**
+     * Retrieves the optional stages triggered by the annotations of the specified {@code Field}
+     * @param field Current {@code Field} instance
+     * @return Bit mask of the optional stages
+     */
+    private static int getStages(Field field) {
+        return FIELD_STAGES.get(field.getDeclaringClass()).computeIfAbsent(field.getName(), name -> computeStages(field));
+    }
+
+    /**
+     * Computes the optional stages triggered by the annotations of the specified {@code Field}
+     * @param field Current {@code Field} instance
+     * @return Bit mask of the optional stages
+     */
+    private static int computeStages(Field field) {
+        int result = 0;
+        for (Annotation annotation : field.getDeclaredAnnotations()) {
+            Class<? extends Annotation> annotationType = annotation.annotationType();
+            if (annotationType.isAnnotationPresent(PropertyMapping.class)) {
+                result |= PROPERTY_MAPPING_STAGE;
+            }
+            if (annotationType.equals(Attribute.class)) {
+                result |= ATTRIBUTES_STAGE;
+            } else if (annotationType.equals(DialogField.class)) {
+                result |= DIALOG_FIELD_STAGE;
+            } else if (annotationType.equals(DependsOn.class)
+                    || annotationType.equals(DependsOnConfig.class)
+                    || annotationType.equals(DependsOnRef.class)) {
+                result |= DEPENDS_ON_STAGE;
+            } else if (annotationType.equals(Extends.class)) {
+                result |= INHERITANCE_STAGE;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Implements an immutable chain of handlers that are called in sequence
+     */
+    private static class Pipeline implements BiConsumer<Element, Field> {
+        private final BiConsumer<Element, Field>[] handlers;
+
+        @SuppressWarnings("unchecked")
+        Pipeline(List<BiConsumer<Element, Field>> handlers) {
+            this.handlers = handlers.toArray(new BiConsumer[0]);
+        }
+
+        @Override
+        public void accept(Element element, Field field) {
+            for (BiConsumer<Element, Field> handler : handlers) {
+                handler.accept(element, field);
+            }
+        }
+    }
+
+    /**
+     * Represents the key of a compiled chain of handlers
+     */
+    private static class PipelineKey {
+        private final BiConsumer<Element, Field> widgetHandler;
+        private final int stages;
+
+        PipelineKey(BiConsumer<Element, Field> widgetHandler, int stages) {
+            this.widgetHandler = widgetHandler;
+            this.stages = stages;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PipelineKey other = (PipelineKey) o;
+            return widgetHandler == other.widgetHandler && stages == other.stages;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(System.identityHashCode(widgetHandler), stages);
+        }
+    }
+}
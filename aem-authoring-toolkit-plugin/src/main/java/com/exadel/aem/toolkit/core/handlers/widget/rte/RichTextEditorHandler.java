@@ -66,7 +66,6 @@ public class RichTextEditorHandler implements Handler, BiConsumer<Element, Field
 
     private static final String MALFORMED_TOKEN_EXCEPTION_MESSAGE = "Malformed feature token in @RichTextEditor";
 
-    private RichTextEditor rteAnnotation;
     private boolean renderDialogFullScreenNode;
 
     public RichTextEditorHandler() {
@@ -92,7 +91,6 @@ public class RichTextEditorHandler implements Handler, BiConsumer<Element, Field
      * @param rteAnnotation Current {@link RichTextEditor} instance
      */
     public void accept(Element element, RichTextEditor rteAnnotation) {
-        this.rteAnnotation = rteAnnotation;
         // create the four basic builders: for ./uiSettings/cui/inline, ./uiSettings/cui/dialogFullScreen,
         // ./uiSettings/cui/tableEditOptions, and ./rtePlugins
         XmlNodeWithListBuilder inlineBuilder = new XmlNodeWithListBuilder(DialogConstants.NN_INLINE, DialogConstants.PN_TOOLBAR);
@@ -138,23 +136,23 @@ public class RichTextEditorHandler implements Handler, BiConsumer<Element, Field
         fullScreenBuilder.setName(DialogConstants.NN_DIALOG_FULL_SCREEN);
         if (renderDialogFullScreenNode) appendElement(cui, fullScreenBuilder.build());
         appendElement(cui, tableEditBuilder.build());
-        appendElement(cui, getIconsNode());
+        appendElement(cui, getIconsNode(rteAnnotation));
         // if ./cui node has been added any children, append it to ./uiSettings and then append ./uiSettings to root element
         appendElement(uiSettings, cui);
         appendElement(element, uiSettings, RichTextEditorHandler::mergeFeatureAttributes);
         // build rtePlugins node, merge it to existing element structure (to pick up child nodes that may have already been populated)
         // then populate rtePlugins node with the context rteAnnotation fields, then merge again
         Element rtePlugins = appendElement(element, pluginsBuilder.build());
-        appendElement(rtePlugins, DialogConstants.NN_PARAFORMAT, getFormatNode());
-        appendElement(rtePlugins, DialogConstants.NN_MISCTOOLS, getSpecialCharactersNode());
-        appendElement(rtePlugins, DialogConstants.NN_EDIT, this::populatePasteRulesNode);
-        appendElement(rtePlugins, DialogConstants.NN_STYLES, this::populateStylesNode);
+        appendElement(rtePlugins, DialogConstants.NN_PARAFORMAT, getFormatNode(rteAnnotation));
+        appendElement(rtePlugins, DialogConstants.NN_MISCTOOLS, getSpecialCharactersNode(rteAnnotation));
+        appendElement(rtePlugins, DialogConstants.NN_EDIT, e -> populatePasteRulesNode(e, rteAnnotation));
+        appendElement(rtePlugins, DialogConstants.NN_STYLES, e -> populateStylesNode(e, rteAnnotation));
         appendElement(rtePlugins, DialogConstants.NN_UNDO, e -> getXmlUtil().setAttribute(e, DialogConstants.PN_MAX_UNDO_STEPS, rteAnnotation));
         appendElement(rtePlugins, DialogConstants.NN_KEYS, e -> getXmlUtil().setAttribute(e, DialogConstants.PN_TAB_SIZE, rteAnnotation));
         appendElement(rtePlugins, DialogConstants.NN_LISTS, e -> getXmlUtil().setAttribute(e, DialogConstants.PN_INDENT_SIZE, rteAnnotation));
         appendElement(element, rtePlugins, PluginXmlUtility::mergeStringAttributes);
         // build htmlLinkRules node and append to root element, if needed
-        populateHtmlLinkRules(element);
+        populateHtmlLinkRules(element, rteAnnotation);
     }
 
     /**
@@ -259,9 +257,10 @@ public class RichTextEditorHandler implements Handler, BiConsumer<Element, Field
     /**
      * Called by {@link RichTextEditorHandler#accept(Element, Field)} to create if necessary and then retrieve
      * the {@code icons} node for the RichTextEditor XML markup
+     * @param rteAnnotation Current {@link RichTextEditor} instance
      * @return {@code Element} instance representing the required node
      */
-    private Element getIconsNode() {
+    private Element getIconsNode(RichTextEditor rteAnnotation) {
         return getXmlUtil().createNodeElement(DialogConstants.NN_ICONS,
                 iconMapping -> ((IconMapping)iconMapping).command(),
                 rteAnnotation.icons());
@@ -270,9 +269,10 @@ public class RichTextEditorHandler implements Handler, BiConsumer<Element, Field
     /**
      * Called by {@link RichTextEditorHandler#accept(Element, Field)} to create if necessary and then retrieve
      * the {@code formats} node for the RichTextEditor XML markup
+     * @param rteAnnotation Current {@link RichTextEditor} instance
      * @return {@code Element} instance representing the required node
      */
-    private Element getFormatNode() {
+    private Element getFormatNode(RichTextEditor rteAnnotation) {
         Element result = getXmlUtil().createNodeElement(DialogConstants.NN_FORMATS,
                 paragraphFormat -> ((ParagraphFormat)paragraphFormat).tag(),
                 rteAnnotation.formats());
@@ -283,9 +283,10 @@ public class RichTextEditorHandler implements Handler, BiConsumer<Element, Field
     /**
      * Called by {@link RichTextEditorHandler#accept(Element, Field)} to create if necessary and then retrieve
      * the {@code formats} node for the RichTextEditor XML markup
+     * @param rteAnnotation Current {@link RichTextEditor} instance
      * @return {@code Element} instance representing the required node
      */
-    private Element getSpecialCharactersNode() {
+    private Element getSpecialCharactersNode(RichTextEditor rteAnnotation) {
         Function<Annotation, String> childNodeNameProvider = c -> {
             Characters chars = (Characters)c;
             return chars.rangeStart() > 0 ? String.valueOf(chars.rangeStart()) : chars.entity();
@@ -302,11 +303,12 @@ public class RichTextEditorHandler implements Handler, BiConsumer<Element, Field
      * Called by {@link RichTextEditorHandler#appendElement(Element, String, Consumer)} to create as required and then
      * populate with attributes the {@code styles} node
      * @param elementSupplier The routine to generate {@code styles} node and append it to the overall RTE markup
+     * @param rteAnnotation Current {@link RichTextEditor} instance
      */
-    private void populateStylesNode(Supplier<Element> elementSupplier){
+    private void populateStylesNode(Supplier<Element> elementSupplier, RichTextEditor rteAnnotation){
         Element stylesElement = elementSupplier.get();
         getXmlUtil().setAttribute(stylesElement, DialogConstants.PN_EXTERNAL_STYLESHEETS, rteAnnotation, PluginXmlUtility::mergeStringAttributes);
-        if (!featureExists(RteFeatures.Popovers.STYLES::equals)) {
+        if (!featureExists(rteAnnotation, RteFeatures.Popovers.STYLES::equals)) {
             return;
         }
         Element nestedStylesNode = getXmlUtil().createNodeElement(DialogConstants.NN_STYLES, style -> ((Style)style).cssName(), rteAnnotation.styles());
@@ -319,9 +321,10 @@ public class RichTextEditorHandler implements Handler, BiConsumer<Element, Field
      * Called by {@link RichTextEditorHandler#appendElement(Element, String, Consumer)} to create as required and then
      * populate with attributes the {@code htmlPasteRules} node
      * @param elementSupplier The routine to generate {@code htmlPasteRules} node and append it to the overall RTE markup
+     * @param rteAnnotation Current {@link RichTextEditor} instance
      */
-    private void populatePasteRulesNode(Supplier<Element> elementSupplier){
-        HtmlPasteRules rules = this.rteAnnotation.htmlPasteRules();
+    private void populatePasteRulesNode(Supplier<Element> elementSupplier, RichTextEditor rteAnnotation){
+        HtmlPasteRules rules = rteAnnotation.htmlPasteRules();
         Element htmlPasteRulesNode = getXmlUtil().createNodeElement(DialogConstants.NN_HTML_PASTE_RULES);
         List<String> nonDefaultAllowPropsNames = PluginReflectionUtility.getAnnotationNonDefaultProperties(rules).stream()
                 .filter(field -> HTML_PASTE_RULES_ALLOW_PATTERN.matcher(field.getName()).matches())
@@ -350,7 +353,7 @@ public class RichTextEditorHandler implements Handler, BiConsumer<Element, Field
     }
 
     /**
-     * Called for {@link RichTextEditorHandler#populatePasteRulesNode(Supplier)} to create XML noe representing
+     * Called for {@link RichTextEditorHandler#populatePasteRulesNode(Supplier, RichTextEditor)} to create XML noe representing
      * a HTMl paste rule for one of the predefined entities
      * @param entity String representing table, list or like
      * @param allowRule The {@link AllowElement} instance
@@ -367,9 +370,10 @@ public class RichTextEditorHandler implements Handler, BiConsumer<Element, Field
      * Called by {@link RichTextEditorHandler#accept(Element, Field)} to create and append an XML node representing
      * {@code htmlRules} to the RichTextEditor XML markup
      * @param element {@code Element} instance representing the RichTextEditor node
+     * @param rteAnnotation Current {@link RichTextEditor} instance
      */
-    private void populateHtmlLinkRules(Element element) {
-        HtmlLinkRules rules = this.rteAnnotation.htmlLinkRules();
+    private void populateHtmlLinkRules(Element element, RichTextEditor rteAnnotation) {
+        HtmlLinkRules rules = rteAnnotation.htmlLinkRules();
         if (!PluginReflectionUtility.annotationIsNotDefault(rules)) {
             return;
         }
@@ -425,10 +429,11 @@ public class RichTextEditorHandler implements Handler, BiConsumer<Element, Field
 
     /**
      * Gets whether a certain feature exists in the feature set
+     * @param rteAnnotation Current {@link RichTextEditor} instance
      * @param matcher Feature token predicate
      * @return True or false
      */
-    private boolean featureExists(Predicate<String> matcher) {
+    private static boolean featureExists(RichTextEditor rteAnnotation, Predicate<String> matcher) {
         return Stream.concat(Arrays.stream(rteAnnotation.features()), Arrays.stream(rteAnnotation.fullscreenFeatures()))
                 .map(s -> Arrays.stream(s.split(PluginXmlUtility.ATTRIBUTE_LIST_SPLIT_PATTERN)))
                 .flatMap(stringStream -> stringStream)
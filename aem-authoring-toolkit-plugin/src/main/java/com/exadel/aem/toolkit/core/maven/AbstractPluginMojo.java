@@ -0,0 +1,283 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exadel.aem.toolkit.core.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.SessionData;
+
+import com.exadel.aem.toolkit.core.exceptions.PluginException;
+import com.exadel.aem.toolkit.core.util.ClasspathScanCache;
+import com.exadel.aem.toolkit.core.util.CompiledMarkup;
+import com.exadel.aem.toolkit.core.util.DependencyIndex;
+import com.exadel.aem.toolkit.core.util.GenerationCache;
+import com.exadel.aem.toolkit.core.util.PackageWriter;
+
+/**
+ * Contains the configuration and routines shared by the goals of AEM Authoring Toolkit Maven plugin
+ */
+@SuppressWarnings({"unused", "MismatchedQueryAndUpdateOfCollection"})
+abstract class AbstractPluginMojo extends AbstractMojo {
+    private static final String DEPENDENCY_RESOLUTION_EXCEPTION_MESSAGE = "AEM Authoring Toolkit could not resolve dependencies of project %s: %s";
+    private static final String PLUGIN_EXECUTION_EXCEPTION_MESSAGE = "AEM Authoring Toolkit terminated due to %s in project %s: %s";
+    private static final String DEPENDENCY_INDEX_EXCEPTION_MESSAGE = "AEM Authoring Toolkit could not store dependency index to %s";
+
+    private static final String PATTERN_SEPARATOR = ",";
+    private static final String COORDINATES_SEPARATOR = ":";
+    private static final String WILDCARD = "*";
+    private static final String GLOB_SYNTAX = "glob:";
+
+    @Parameter(readonly = true, defaultValue = "${project}")
+    MavenProject project;
+
+    @Parameter(readonly = true, defaultValue = "${session}")
+    MavenSession session;
+
+    @Parameter(readonly = true, defaultValue = "${plugin.artifacts}")
+    List<Artifact> pluginDependencies;
+
+    @Parameter(readonly = true)
+    String componentsPathBase;
+
+    @Parameter(readonly = true)
+    String componentsReferenceBase;
+
+    @Parameter(readonly = true, defaultValue = "java.io.IOException")
+    String terminateOn;
+
+    @Parameter(readonly = true, defaultValue = "1")
+    int threads;
+
+    @Parameter(readonly = true)
+    File cacheDirectory;
+
+    @Parameter(readonly = true)
+    File scanCacheDirectory;
+
+    @Parameter(readonly = true, defaultValue = "0")
+    int scanThreads;
+
+    @Parameter(readonly = true)
+    String scanIncludes;
+
+    @Parameter(readonly = true)
+    String scanExcludes;
+
+    @Parameter(readonly = true)
+    File outputDirectory;
+
+    @Parameter(property = "dependencyIndexFile", defaultValue = "${project.build.directory}/aem-authoring-toolkit-dependencies.idx")
+    File dependencyIndexFile;
+
+    @Parameter(readonly = true, defaultValue = "0")
+    int warmRuntimes;
+
+    @Parameter(readonly = true, defaultValue = "${plugin.version}")
+    String pluginVersion;
+
+    /**
+     * Retrieves the list of classpath elements to look for AEM components in. These are the compile classpath elements
+     * of the current project followed by the plugin's own API dependency
+     * @return List of classpath elements
+     * @throws MojoExecutionException in case the dependencies of the project are not resolved
+     */
+    List<String> getClasspathElements() throws MojoExecutionException {
+        List<String> classpathElements;
+        try {
+            classpathElements = project.getCompileClasspathElements();
+        } catch (DependencyResolutionRequiredException e) {
+            throw new MojoExecutionException(String.format(DEPENDENCY_RESOLUTION_EXCEPTION_MESSAGE,
+                    project.getBuild().getFinalName(),
+                    e.getMessage()), e);
+        }
+        pluginDependencies.stream().findFirst().ifPresent(d -> classpathElements.add(d.getFile().getPath()));
+        return classpathElements;
+    }
+
+    /**
+     * Initializes {@link PluginRuntime} for the specified classpath elements. If {@code warmRuntimes} is set to
+     * a positive number, reflection data is retained between executions in a long-lived JVM, such as a Maven daemon.
+     * Otherwise, the results of classpath scanning are shared within the current Maven session. The time taken is reported
+     * separately from the time of rendering
+     * @param classpathElements List of classpath elements
+     */
+    void initializeRuntime(List<String> classpathElements) {
+        long start = System.currentTimeMillis();
+        Set<String> scannedElements = getScannedElements(classpathElements);
+        getLog().debug(String.format("Scanning %d of %d classpath elements", scannedElements.size(), classpathElements.size()));
+        if (warmRuntimes > 0) {
+            PluginRuntime.initializeWarm(classpathElements, scannedElements, componentsReferenceBase, terminateOn, warmRuntimes);
+        } else {
+            PluginRuntime.initialize(classpathElements, scannedElements, componentsReferenceBase, terminateOn, getScanCache());
+        }
+        getLog().info(String.format("AEM Authoring Toolkit started in %d ms", System.currentTimeMillis() - start));
+    }
+
+    /**
+     * Selects the classpath elements to scan for AEM components and custom handlers. Folders that do not belong to
+     * a dependency, such as the output folder of the current project, are scanned unless matched by {@code scanExcludes}.
+     * Artifacts are scanned if matched by {@code scanIncludes}, or, if no includes are set, if they have the same
+     * groupId as the current project; and not matched by {@code scanExcludes}. Other classpath elements are still used
+     * to load classes
+     * @param classpathElements List of classpath elements
+     * @return Ordered set of classpath elements
+     */
+    private Set<String> getScannedElements(List<String> classpathElements) {
+        Map<String, String> coordinates = new HashMap<>();
+        Stream.concat(project.getArtifacts().stream(), pluginDependencies.stream())
+                .filter(artifact -> artifact.getFile() != null)
+                .forEach(artifact -> coordinates.putIfAbsent(artifact.getFile().getAbsolutePath(),
+                        artifact.getGroupId() + COORDINATES_SEPARATOR + artifact.getArtifactId()));
+        List<BiPredicate<String, String>> includes = getScanPatterns(scanIncludes);
+        List<BiPredicate<String, String>> excludes = getScanPatterns(scanExcludes);
+        String ownGroupPrefix = project.getGroupId() + COORDINATES_SEPARATOR;
+
+        Set<String> result = new LinkedHashSet<>();
+        for (String element : classpathElements) {
+            String path = new File(element).getAbsolutePath();
+            String artifact = coordinates.get(path);
+            boolean included = artifact == null
+                    || (includes.isEmpty() ? artifact.startsWith(ownGroupPrefix) : includes.stream().anyMatch(pattern -> pattern.test(path, artifact)));
+            if (included && excludes.stream().noneMatch(pattern -> pattern.test(path, artifact))) {
+                result.add(element);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the {@link GenerationCache} if {@code cacheDirectory} is set
+     * @return {@code GenerationCache} instance, or null
+     */
+    GenerationCache getGenerationCache() {
+        return cacheDirectory != null ? new GenerationCache(cacheDirectory.toPath(), pluginVersion) : null;
+    }
+
+    /**
+     * Creates the {@link PackageWriter} for the current project. If {@code outputDirectory} is set, the markup is written
+     * to that exploded folder. Otherwise, the package archive built for the project is updated
+     * @return {@code PackageWriter} instance
+     */
+    PackageWriter getPackageWriter() {
+        if (outputDirectory != null) {
+            return PackageWriter.forDirectory(project, outputDirectory.toPath(), componentsPathBase, getGenerationCache());
+        }
+        return PackageWriter.forMavenProject(project, componentsPathBase, getGenerationCache());
+    }
+
+    /**
+     * Parses the comma-separated list of patterns for selecting classpath elements. A pattern that contains a path
+     * separator is a glob matched against the path of an element. Any other pattern is matched against the
+     * {@code groupId:artifactId} of the artifact the element belongs to, with {@code *} standing for any sequence
+     * of characters; the artifactId part can be omitted
+     * @param value String representing the list of patterns
+     * @return List of predicates accepting the path and the coordinates (or null) of a classpath element
+     */
+    private static List<BiPredicate<String, String>> getScanPatterns(String value) {
+        List<BiPredicate<String, String>> result = new ArrayList<>();
+        for (String pattern : StringUtils.split(StringUtils.defaultString(value), PATTERN_SEPARATOR)) {
+            String trimmed = pattern.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (trimmed.contains("/") || trimmed.contains(File.separator)) {
+                PathMatcher matcher = FileSystems.getDefault().getPathMatcher(GLOB_SYNTAX + trimmed);
+                result.add((path, artifact) -> matcher.matches(Paths.get(path)));
+            } else {
+                String coordinates = trimmed.contains(COORDINATES_SEPARATOR) ? trimmed : trimmed + COORDINATES_SEPARATOR + WILDCARD;
+                Pattern regex = Pattern.compile(Arrays.stream(StringUtils.splitPreserveAllTokens(coordinates, WILDCARD))
+                        .map(Pattern::quote)
+                        .collect(Collectors.joining(".*")));
+                result.add((path, artifact) -> artifact != null && regex.matcher(artifact).matches());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stores the {@link DependencyIndex} of the specified AEM components to {@code dependencyIndexFile}, so that
+     * the components affected by a change can later be told by the {@code affected} goal. Must be called within
+     * an initialized {@link PluginRuntime}. A failure to store the index is logged and does not break the build
+     * @param componentClasses List of {@code @Dialog}-annotated classes
+     * @param compiledMarkup {@link CompiledMarkup} of the components rendered at compile time
+     * @see AffectedMojo
+     */
+    void writeDependencyIndex(List<Class<?>> componentClasses, CompiledMarkup compiledMarkup) {
+        try {
+            DependencyIndex.build(componentClasses, compiledMarkup, componentsPathBase).write(dependencyIndexFile.toPath());
+        } catch (IOException e) {
+            getLog().warn(String.format(DEPENDENCY_INDEX_EXCEPTION_MESSAGE, dependencyIndexFile), e);
+        }
+    }
+
+    /**
+     * Converts a {@link PluginException} to the {@link MojoExecutionException} reported to Maven
+     * @param e {@code PluginException} instance
+     * @return {@code MojoExecutionException} instance
+     */
+    MojoExecutionException toMojoException(PluginException e) {
+        return new MojoExecutionException(String.format(PLUGIN_EXECUTION_EXCEPTION_MESSAGE,
+                e.getCause() != null ? e.getCause().getClass().getSimpleName() : e.getClass().getSimpleName(),
+                project.getBuild().getFinalName(),
+                e.getMessage()), e);
+    }
+
+    /**
+     * Retrieves the {@link ClasspathScanCache} shared by all the executions of the plugin within the current Maven session,
+     * so that classpath elements common for several modules of the reactor are scanned once. If {@code scanCacheDirectory}
+     * is set, scan results are also persisted to that folder and reused by subsequent builds
+     * @return {@code ClasspathScanCache} instance
+     */
+    private ClasspathScanCache getScanCache() {
+        Path storageDirectory = scanCacheDirectory != null ? scanCacheDirectory.toPath().toAbsolutePath() : null;
+        if (session == null || session.getRepositorySession() == null) {
+            return new ClasspathScanCache(storageDirectory, scanThreads);
+        }
+        // the class itself is a part of the key so that different versions of the plugin in the same session do not clash
+        SessionData sessionData = session.getRepositorySession().getData();
+        Object key = Arrays.asList(ClasspathScanCache.class, storageDirectory, scanThreads);
+        ClasspathScanCache result = (ClasspathScanCache) sessionData.get(key);
+        while (result == null) {
+            ClasspathScanCache newCache = new ClasspathScanCache(storageDirectory, scanThreads);
+            result = sessionData.set(key, null, newCache)
+                    ? newCache
+                    : (ClasspathScanCache) sessionData.get(key);
+        }
+        return result;
+    }
+}
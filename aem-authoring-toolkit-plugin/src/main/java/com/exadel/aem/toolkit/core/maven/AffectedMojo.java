@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exadel.aem.toolkit.core.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import com.exadel.aem.toolkit.core.util.DependencyIndex;
+
+/**
+ * Represents the AEM Authoring Toolkit goal that reports the AEM components affected by a change of particular classes
+ * or source files, e.g. to narrow down the tests run on a CI node. The goal relies on the {@link DependencyIndex} stored
+ * by a previous {@code aem-authoring} or {@code generate} execution and does not load any project class
+ */
+@Mojo(name = "affected", threadSafe = true)
+public class AffectedMojo extends AbstractPluginMojo {
+    private static final String JAVA_EXTENSION = ".java";
+    private static final String PACKAGE_SEPARATOR = ".";
+    private static final String LIST_SEPARATOR = ",";
+    private static final String INDEX_MISSING_EXCEPTION_MESSAGE = "Dependency index %s not found; run the aem-authoring or generate goal first";
+
+    @Parameter(property = "changedClasses")
+    private String changedClasses;
+
+    @Parameter(property = "changedFiles")
+    private File changedFiles;
+
+    @Parameter(property = "affectedComponentsFile")
+    private File affectedComponentsFile;
+
+    /**
+     * Executes the goal. Names of the changed classes are taken from {@code changedClasses} (a comma-separated list)
+     * and from {@code changedFiles}, a file that lists changed paths one per line, such as the output of
+     * {@code git diff --name-only}; paths of Java sources are converted to class names with regard to the compile
+     * source roots of the project. The paths of affected components are logged and, if {@code affectedComponentsFile}
+     * is specified, written to that file one per line
+     * @throws MojoExecutionException in case the dependency index is missing or a file cannot be read or written
+     */
+    public void execute() throws MojoExecutionException {
+        if (!dependencyIndexFile.isFile()) {
+            throw new MojoExecutionException(String.format(INDEX_MISSING_EXCEPTION_MESSAGE, dependencyIndexFile));
+        }
+        try {
+            DependencyIndex index = DependencyIndex.read(dependencyIndexFile.toPath());
+            Set<String> affectedComponents = index.getAffectedComponents(getChangedClasses());
+            getLog().info(String.format("%d component(s) affected by the change", affectedComponents.size()));
+            affectedComponents.forEach(componentPath -> getLog().info(componentPath));
+            if (affectedComponentsFile != null) {
+                Path output = affectedComponentsFile.toPath();
+                if (output.getParent() != null) {
+                    Files.createDirectories(output.getParent());
+                }
+                Files.write(output, affectedComponents, StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Collects the names of changed classes from the goal parameters
+     * @return List of class names
+     * @throws IOException in case {@code changedFiles} cannot be read
+     */
+    private List<String> getChangedClasses() throws IOException {
+        List<String> result = new ArrayList<>();
+        if (StringUtils.isNotBlank(changedClasses)) {
+            for (String className : StringUtils.split(changedClasses, LIST_SEPARATOR)) {
+                result.add(className.trim());
+            }
+        }
+        if (changedFiles != null) {
+            List<Path> sourceRoots = project.getCompileSourceRoots().stream()
+                    .map(root -> project.getBasedir().toPath().relativize(Paths.get(root)))
+                    .collect(Collectors.toList());
+            for (String line : Files.readAllLines(changedFiles.toPath(), StandardCharsets.UTF_8)) {
+                String className = getClassName(line.trim(), sourceRoots);
+                if (className != null) {
+                    result.add(className);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Converts the path of a Java source file to the name of the top-level class declared in it. The path may be
+     * relative to the project or to a parent folder, such as the root of a multi-module repository
+     * @param path Path to a changed file
+     * @param sourceRoots Compile source roots relative to the project base directory
+     * @return Class name, or null if the path does not belong to a Java source under any of the source roots
+     */
+    static String getClassName(String path, List<Path> sourceRoots) {
+        if (!path.endsWith(JAVA_EXTENSION)) {
+            return null;
+        }
+        String normalizedPath = path.replace(File.separatorChar, '/');
+        for (Path sourceRoot : sourceRoots) {
+            String marker = sourceRoot.toString().replace(File.separatorChar, '/') + '/';
+            int markerPosition = normalizedPath.startsWith(marker) ? 0 : normalizedPath.indexOf('/' + marker) + 1;
+            if (markerPosition > 0 || normalizedPath.startsWith(marker)) {
+                String relativePath = normalizedPath.substring(markerPosition + marker.length());
+                return StringUtils.removeEnd(relativePath, JAVA_EXTENSION).replace("/", PACKAGE_SEPARATOR);
+            }
+        }
+        return null;
+    }
+}
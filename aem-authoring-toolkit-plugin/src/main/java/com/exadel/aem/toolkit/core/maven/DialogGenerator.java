@@ -0,0 +1,173 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exadel.aem.toolkit.core.maven;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.exadel.aem.toolkit.api.annotations.main.Dialog;
+import com.exadel.aem.toolkit.api.annotations.widgets.common.XmlScope;
+import com.exadel.aem.toolkit.core.exceptions.PluginException;
+import com.exadel.aem.toolkit.core.exceptions.ValidationException;
+import com.exadel.aem.toolkit.core.util.ComponentRenderer;
+import com.exadel.aem.toolkit.core.util.GenerationCache;
+import com.exadel.aem.toolkit.core.util.PluginReflectionUtility;
+
+/**
+ * Generates the markup of AEM components in-process, without a Maven build, e.g. for unit tests or IDE tooling.
+ * A generator manages its own {@link PluginRuntime} context: it is bound to the calling thread only for the duration
+ * of a call, so that a single instance can be reused across calls and shared between threads. The generator holds
+ * the class loader for its classpath until closed, optimal for use in "try-with-resources" block
+ */
+public class DialogGenerator implements AutoCloseable {
+    private static final String DEFAULT_CRITICAL_EXCEPTIONS = "all";
+    private static final String GENERATOR_NAME = "DialogGenerator";
+    private static final String COMPONENT_NAME_MISSING_EXCEPTION_MESSAGE = "Component name missing in @Dialog annotation for class ";
+
+    private final PluginReflectionUtility reflectionUtility;
+    private final LoadedRuntimeContext context;
+    private final ComponentRenderer renderer;
+
+    private DialogGenerator(PluginReflectionUtility reflectionUtility, String criticalExceptions, GenerationCache cache) {
+        this.reflectionUtility = reflectionUtility;
+        this.context = new LoadedRuntimeContext(reflectionUtility, criticalExceptions, null);
+        this.renderer = new ComponentRenderer(GENERATOR_NAME, cache);
+    }
+
+    /**
+     * Creates a generator for the component classes that are already loaded by the caller. Custom handlers are not
+     * looked up. Any exception raised during generation is thrown to the caller
+     * @return {@code DialogGenerator} instance
+     */
+    public static DialogGenerator newInstance() {
+        return forClasspath(Collections.emptyList(), null);
+    }
+
+    /**
+     * Creates a generator for the AEM components and custom handlers found in the specified classpath. The classpath
+     * is scanned once upon creation. Any exception raised during generation is thrown to the caller
+     * @param classpathElements List of classpath elements
+     * @param packageBase String representing package prefix of processable AEM backend components, or null to look
+     *                    in all packages
+     * @return {@code DialogGenerator} instance
+     */
+    public static DialogGenerator forClasspath(List<String> classpathElements, String packageBase) {
+        return forClasspath(classpathElements, packageBase, DEFAULT_CRITICAL_EXCEPTIONS, null);
+    }
+
+    /**
+     * Creates a generator for the AEM components and custom handlers found in the specified classpath. The classpath
+     * is scanned once upon creation
+     * @param classpathElements List of classpath elements
+     * @param packageBase String representing package prefix of processable AEM backend components, or null to look
+     *                    in all packages
+     * @param criticalExceptions String representing the list of exceptions that are thrown to the caller, in the same
+     *                           format as the {@code terminateOn} setting of the plugin. Other exceptions are logged
+     * @param cache {@code GenerationCache} instance, or null if caching is not used
+     * @return {@code DialogGenerator} instance
+     */
+    public static DialogGenerator forClasspath(List<String> classpathElements, String packageBase, String criticalExceptions, GenerationCache cache) {
+        PluginReflectionUtility reflectionUtility = PluginReflectionUtility.fromCodeScope(classpathElements, packageBase);
+        return new DialogGenerator(reflectionUtility, criticalExceptions, cache);
+    }
+
+    @Override
+    public void close() {
+        reflectionUtility.close();
+    }
+
+    /**
+     * Retrieves the AEM component classes found in the classpath of this generator
+     * @return List of {@code Class} instances
+     */
+    public List<Class<?>> getComponentClasses() {
+        return call(reflectionUtility::getComponentClasses);
+    }
+
+    /**
+     * Renders the markup of package entries, vid. {@code .content.xml}, {@code _cq_dialog.xml}, and {@code _cq_editConfig.xml},
+     * for the specified AEM component
+     * @param componentClass The {@code Class} annotated with {@link Dialog}
+     * @return Ordered {@code Map} of UTF-8 encoded entries, keyed by their {@link XmlScope}s
+     */
+    public Map<XmlScope, byte[]> generate(Class<?> componentClass) {
+        return call(() -> renderer.render(componentClass));
+    }
+
+    /**
+     * Renders the markup of the package entry of the specified scope for the AEM component and writes it to the stream
+     * @param componentClass The {@code Class} annotated with {@link Dialog}
+     * @param scope {@link XmlScope} of the entry
+     * @param outputStream {@code OutputStream} to write the UTF-8 encoded markup to. The stream is not closed
+     * @return True if the entry has been written; false if the component does not produce an entry of this scope
+     * @throws IOException in case the markup cannot be written to the stream
+     */
+    public boolean generate(Class<?> componentClass, XmlScope scope, OutputStream outputStream) throws IOException {
+        byte[] content = generate(componentClass).get(scope);
+        if (content == null) {
+            return false;
+        }
+        outputStream.write(content);
+        return true;
+    }
+
+    /**
+     * Renders the markup of package entries for the AEM component and stores it to the component folder, named after
+     * {@link Dialog#name()}, within the specified folder. The component folder is created as necessary
+     * @param componentClass The {@code Class} annotated with {@link Dialog}
+     * @param directory {@code Path} to the folder that contains component folders
+     * @return {@code Path} to the component folder, or null if the component name is not specified and the exception
+     * is not critical
+     * @throws IOException in case the markup cannot be stored
+     */
+    public Path generate(Class<?> componentClass, Path directory) throws IOException {
+        Dialog dialog = componentClass.getDeclaredAnnotation(Dialog.class);
+        if (dialog == null || StringUtils.isBlank(dialog.name())) {
+            call(() -> {
+                PluginRuntime.context().getExceptionHandler().handle(new ValidationException(COMPONENT_NAME_MISSING_EXCEPTION_MESSAGE + componentClass.getSimpleName()));
+                return null;
+            });
+            return null;
+        }
+        Path componentPath = Files.createDirectories(directory.resolve(dialog.name()));
+        for (Map.Entry<XmlScope, byte[]> entry : generate(componentClass).entrySet()) {
+            Files.write(componentPath.resolve(entry.getKey().toString()), entry.getValue());
+        }
+        return componentPath;
+    }
+
+    /**
+     * Executes the provided routine within the {@link PluginRuntime} context of this generator
+     * @param task The routine to execute
+     * @param <T> Type of the routine's result
+     * @return The routine's result
+     */
+    private <T> T call(Callable<T> task) {
+        try {
+            return PluginRuntime.callWithin(context, task);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new PluginException(e);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exadel.aem.toolkit.core.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import com.exadel.aem.toolkit.core.exceptions.PluginException;
+import com.exadel.aem.toolkit.core.util.CompiledMarkup;
+import com.exadel.aem.toolkit.core.util.PackageShards;
+import com.exadel.aem.toolkit.core.util.PackageWriter;
+import com.exadel.aem.toolkit.core.util.PluginReflectionUtility;
+
+/**
+ * Represents the AEM Authoring Toolkit goal that generates the markup of AEM components into a staging folder
+ * ahead of packaging. The markup is later put into the package by the {@code inject} goal. If {@code shard} is set,
+ * only the specified part of AEM components is processed and the result is also stored to a partial archive that is
+ * later put into the package by the {@code merge} goal
+ * @see InjectMojo
+ * @see MergeMojo
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.PROCESS_CLASSES, requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
+public class GenerateMojo extends AbstractPluginMojo {
+    private static final String CANNOT_PACK_SHARD_EXCEPTION_MESSAGE = "AEM Authoring Toolkit could not store shard ";
+
+    @Parameter(readonly = true, defaultValue = "${project.build.directory}/aem-authoring-toolkit")
+    private File stagingDirectory;
+
+    @Parameter(property = "shard")
+    private String shard;
+
+    @Parameter(property = "shardsDirectory", defaultValue = "${project.build.directory}")
+    private File shardsDirectory;
+
+    /**
+     * Executes the goal. AEM component classes are processed with the same handlers as in the {@code aem-authoring} goal,
+     * and the result is stored to the {@code stagingDirectory}, one sub-folder per component. The markup rendered at compile
+     * time by the {@link com.exadel.aem.toolkit.core.processing.DialogMarkupProcessor} is copied without loading
+     * the component classes. If {@code shard} is set in the {@code i/n} format, component classes are partitioned
+     * into {@code n} shards by a stable hash of their names, and only the {@code i}-th shard is processed. The result is then packed into a partial archive within
+     * {@code shardsDirectory}
+     * @throws MojoExecutionException in case processing cannot proceed or in case an internal exception is thrown that
+     * corresponds to the {@code terminateOn} setting
+     */
+    public void execute() throws MojoExecutionException {
+        initializeRuntime(getClasspathElements());
+
+        try (PackageWriter packageWriter = PackageWriter.forStagingDirectory(project, stagingDirectory.toPath(), getGenerationCache())) {
+            PluginReflectionUtility reflectionUtility = PluginRuntime.context().getReflectionUtility();
+            CompiledMarkup compiledMarkup = reflectionUtility.getCompiledMarkup();
+            List<Class<?>> componentClasses = reflectionUtility.getComponentClasses(compiledMarkup.getClassNames());
+            if (StringUtils.isNotBlank(shard)) {
+                compiledMarkup = compiledMarkup.filter(className -> PackageShards.isInShard(className, shard));
+                componentClasses = PackageShards.filter(componentClasses, shard);
+                getLog().info(String.format("Generating shard %s: %d AEM component(s)", shard, compiledMarkup.getClassNames().size() + componentClasses.size()));
+            }
+            long start = System.currentTimeMillis();
+            packageWriter.write(compiledMarkup);
+            packageWriter.write(componentClasses, threads);
+            getLog().info(String.format("Copied %d AEM component(s) rendered at compile time; rendered %d AEM component(s) in %d ms",
+                    compiledMarkup.getClassNames().size(),
+                    componentClasses.size(),
+                    System.currentTimeMillis() - start));
+            writeDependencyIndex(componentClasses, compiledMarkup);
+        } catch (PluginException e) {
+            throw toMojoException(e);
+        } finally {
+            PluginRuntime.close();
+        }
+        if (StringUtils.isBlank(shard)) {
+            return;
+        }
+        try {
+            Files.createDirectories(shardsDirectory.toPath());
+            PackageShards.pack(stagingDirectory.toPath(), shardsDirectory.toPath().resolve(PackageShards.getArchiveName(shard)));
+        } catch (IOException | PluginException e) {
+            throw new MojoExecutionException(CANNOT_PACK_SHARD_EXCEPTION_MESSAGE + shard, e);
+        }
+    }
+}
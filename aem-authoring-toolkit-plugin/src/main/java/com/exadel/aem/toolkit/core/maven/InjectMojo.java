@@ -0,0 +1,56 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exadel.aem.toolkit.core.maven;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import com.exadel.aem.toolkit.core.exceptions.PluginException;
+import com.exadel.aem.toolkit.core.util.PackageWriter;
+
+/**
+ * Represents the AEM Authoring Toolkit goal that puts the markup previously created by the {@code generate} goal
+ * into the package. No classes are scanned or analyzed, so the goal consists of file input and output only
+ * @see GenerateMojo
+ */
+@Mojo(name = "inject", defaultPhase = LifecyclePhase.PACKAGE, threadSafe = true)
+public class InjectMojo extends AbstractPluginMojo {
+
+    @Parameter(readonly = true, defaultValue = "${project.build.directory}/aem-authoring-toolkit")
+    private File stagingDirectory;
+
+    /**
+     * Executes the goal. The markup stored in the {@code stagingDirectory} is copied to the package zip file, or
+     * to the exploded folder specified with {@code outputDirectory}
+     * @throws MojoExecutionException in case the package cannot be written to or in case an internal exception is thrown
+     * that corresponds to the {@code terminateOn} setting
+     */
+    public void execute() throws MojoExecutionException {
+        // the runtime is initialized with an empty code scope, only for exception handling
+        PluginRuntime.initialize(Collections.emptyList(), componentsReferenceBase, terminateOn);
+
+        try (PackageWriter packageWriter = getPackageWriter()) {
+            packageWriter.inject(stagingDirectory.toPath());
+        } catch (PluginException e) {
+            throw toMojoException(e);
+        } finally {
+            PluginRuntime.close();
+        }
+    }
+}
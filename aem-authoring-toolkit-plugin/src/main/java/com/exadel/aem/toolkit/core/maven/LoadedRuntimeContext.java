@@ -14,8 +14,6 @@
 
 package com.exadel.aem.toolkit.core.maven;
 
-import java.util.List;
-
 import com.exadel.aem.toolkit.api.runtime.ExceptionHandler;
 import com.exadel.aem.toolkit.core.exceptions.handlers.PluginExceptionHandlers;
 import com.exadel.aem.toolkit.core.util.PluginReflectionUtility;
@@ -29,11 +27,40 @@ class LoadedRuntimeContext implements PluginRuntimeContext {
     private final PluginReflectionUtility pluginReflections;
     private final ExceptionHandler exceptionHandler;
     private final PluginXmlUtility xmlUtility;
+    private final Runnable closingRoutine;
 
-    LoadedRuntimeContext(List<String> classPathElements, String packageBase, String criticalExceptions) {
-        this.pluginReflections = PluginReflectionUtility.fromCodeScope(classPathElements, packageBase);
+    /**
+     * Creates a new context based on the specified {@link PluginReflectionUtility}
+     * @param pluginReflections {@code PluginReflectionUtility} instance
+     * @param criticalExceptions String representing the list of exceptions that terminate the plugin execution
+     * @param closingRoutine Routine that releases the {@code PluginReflectionUtility} when the context is closed
+     */
+    LoadedRuntimeContext(PluginReflectionUtility pluginReflections, String criticalExceptions, Runnable closingRoutine) {
+        this.pluginReflections = pluginReflections;
         this.exceptionHandler = PluginExceptionHandlers.getHandler(criticalExceptions);
         this.xmlUtility = new PluginXmlUtility();
+        this.closingRoutine = closingRoutine;
+    }
+
+    /**
+     * Creates a copy of the specified context that shares reflection data and exception handling with the original
+     * but possesses its own {@link PluginXmlUtility}. Closing the copy does not affect the original
+     * @param source {@code LoadedRuntimeContext} to copy
+     */
+    LoadedRuntimeContext(LoadedRuntimeContext source) {
+        this.pluginReflections = source.pluginReflections;
+        this.exceptionHandler = source.exceptionHandler;
+        this.xmlUtility = new PluginXmlUtility();
+        this.closingRoutine = null;
+    }
+
+    /**
+     * Releases resources held by this context
+     */
+    void close() {
+        if (closingRoutine != null) {
+            closingRoutine.run();
+        }
     }
 
     @Override
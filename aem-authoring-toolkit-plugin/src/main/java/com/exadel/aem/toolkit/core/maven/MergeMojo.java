@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exadel.aem.toolkit.core.maven;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import com.exadel.aem.toolkit.core.exceptions.PluginException;
+import com.exadel.aem.toolkit.core.util.PackageShards;
+
+/**
+ * Represents the AEM Authoring Toolkit goal that puts the markup generated in several shards, e.g. on different CI nodes,
+ * into the package
+ * @see GenerateMojo
+ */
+@Mojo(name = "merge", defaultPhase = LifecyclePhase.PACKAGE, threadSafe = true)
+public class MergeMojo extends AbstractPluginMojo {
+    private static final String PACKAGE_EXTENSION = ".zip";
+    private static final String COMPONENT_PATH_MISSING_EXCEPTION_MESSAGE = "Component path missing in project ";
+
+    @Parameter(property = "shardsDirectory", defaultValue = "${project.build.directory}")
+    private File shardsDirectory;
+
+    /**
+     * Executes the goal. All the partial archives found in {@code shardsDirectory} are merged into the package zip file
+     * in a single streaming pass
+     * @throws MojoExecutionException in case some of the shards are missing, the package cannot be written to, or in case
+     * an internal exception is thrown that corresponds to the {@code terminateOn} setting
+     */
+    public void execute() throws MojoExecutionException {
+        // the runtime is initialized with an empty code scope, only for exception handling
+        PluginRuntime.initialize(Collections.emptyList(), componentsReferenceBase, terminateOn);
+
+        try {
+            if (StringUtils.isBlank(componentsPathBase)) {
+                throw new PluginException(COMPONENT_PATH_MISSING_EXCEPTION_MESSAGE + project.getBuild().getFinalName());
+            }
+            List<Path> shardArchives = PackageShards.getArchives(shardsDirectory.toPath());
+            Path packageFile = Paths.get(project.getBuild().getDirectory()).resolve(project.getBuild().getFinalName() + PACKAGE_EXTENSION);
+            PackageShards.merge(packageFile, componentsPathBase, shardArchives);
+            getLog().info(String.format("Merged %d shard(s) into %s", shardArchives.size(), packageFile.getFileName()));
+        } catch (PluginException e) {
+            throw toMojoException(e);
+        } finally {
+            PluginRuntime.close();
+        }
+    }
+}
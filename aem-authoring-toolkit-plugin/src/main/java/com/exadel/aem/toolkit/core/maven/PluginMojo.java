@@ -15,75 +15,58 @@ package com.exadel.aem.toolkit.core.maven;
 
 import java.util.List;
 
-import org.apache.maven.artifact.Artifact;
-import org.apache.maven.artifact.DependencyResolutionRequiredException;
-import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
-import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.plugins.annotations.ResolutionScope;
-import org.apache.maven.project.MavenProject;
 
 import com.exadel.aem.toolkit.core.exceptions.PluginException;
+import com.exadel.aem.toolkit.core.util.CompiledMarkup;
+import com.exadel.aem.toolkit.core.util.DependencyIndex;
+import com.exadel.aem.toolkit.core.util.GenerationCache;
 import com.exadel.aem.toolkit.core.util.PackageWriter;
+import com.exadel.aem.toolkit.core.util.PluginReflectionUtility;
 
 /**
  * Represents the entry-point of AEM Authoring Toolkit execution
  */
-@Mojo(name = "aem-authoring", defaultPhase = LifecyclePhase.PACKAGE, requiresDependencyCollection = ResolutionScope.COMPILE)
-@SuppressWarnings({"unused", "MismatchedQueryAndUpdateOfCollection"})
-public class PluginMojo extends AbstractMojo {
-    private static final String DEPENDENCY_RESOLUTION_EXCEPTION_MESSAGE = "AEM Authoring Toolkit could not resolve dependencies of project %s: %s";
-    private static final String PLUGIN_EXECUTION_EXCEPTION_MESSAGE = "AEM Authoring Toolkit terminated due to %s in project %s: %s";
-
-    @Parameter(readonly = true, defaultValue = "${project}")
-    private MavenProject project;
-
-    @Parameter(readonly = true, defaultValue = "${plugin.artifacts}")
-    private List<Artifact> pluginDependencies;
-
-    @Parameter(readonly = true)
-    private String componentsPathBase;
-
-    @Parameter(readonly = true)
-    private String componentsReferenceBase;
-
-    @Parameter(readonly = true, defaultValue = "java.io.IOException")
-    private String terminateOn;
+@Mojo(name = "aem-authoring", defaultPhase = LifecyclePhase.PACKAGE, requiresDependencyCollection = ResolutionScope.COMPILE, threadSafe = true)
+public class PluginMojo extends AbstractPluginMojo {
 
     /**
      * Executes AEM Authoring Toolkit Maven plugin. This is done by initializing {@link PluginRuntime} and then
      * enumerating classpath entries present in the Maven reactor. Relevant AEM component classes (POJOs or Sling models)
      * are extracted and processed with {@link PackageWriter} instance created for particular Maven project; the result
-     * is written down to the AEM package zip file. The method is run once for each package module that has AEM Authoring
-     * Toolkit plugin included in the POM file
+     * is written down to the AEM package zip file, or to the exploded folder specified with {@code outputDirectory}. The method is run once for each package module that has AEM Authoring
+     * Toolkit plugin included in the POM file. Components are rendered concurrently if more than one {@code threads}
+     * is specified. If {@code cacheDirectory} is set, markup of the components that did not change since a previous
+     * build is taken from the {@link GenerationCache}. If {@code warmRuntimes} is set to a positive number, reflection data
+     * is retained between executions in a long-lived JVM, such as a Maven daemon. The markup rendered at compile time
+     * by the {@link com.exadel.aem.toolkit.core.processing.DialogMarkupProcessor} is copied to the package without loading
+     * the component classes. The {@link DependencyIndex} of the processed components is stored for the {@code affected} goal
      * @throws MojoExecutionException in case package processing cannot proceed (due to e.g. file system failure
      * or improper initialization) or in case an internal exception is thrown that corresponds to the {@code terminateOn}
      * setting
      */
     public void execute() throws MojoExecutionException {
-        List<String> classpathElements;
-        try {
-            classpathElements = project.getCompileClasspathElements();
-        } catch (DependencyResolutionRequiredException e) {
-            throw new MojoExecutionException(String.format(DEPENDENCY_RESOLUTION_EXCEPTION_MESSAGE,
-                    project.getBuild().getFinalName(),
-                    e.getMessage()), e);
-        }
-        pluginDependencies.stream().findFirst().ifPresent(d -> classpathElements.add(d.getFile().getPath()));
+        initializeRuntime(getClasspathElements());
 
-        PluginRuntime.initialize(classpathElements, componentsReferenceBase, terminateOn);
-
-        try (PackageWriter packageWriter = PackageWriter.forMavenProject(project, componentsPathBase)) {
-            PluginRuntime.context().getReflectionUtility().getComponentClasses().forEach(packageWriter::write);
+        try (PackageWriter packageWriter = getPackageWriter()) {
+            PluginReflectionUtility reflectionUtility = PluginRuntime.context().getReflectionUtility();
+            CompiledMarkup compiledMarkup = reflectionUtility.getCompiledMarkup();
+            List<Class<?>> componentClasses = reflectionUtility.getComponentClasses(compiledMarkup.getClassNames());
+            long start = System.currentTimeMillis();
+            packageWriter.write(compiledMarkup);
+            packageWriter.write(componentClasses, threads);
+            getLog().info(String.format("Copied %d AEM component(s) rendered at compile time; rendered %d AEM component(s) in %d ms",
+                    compiledMarkup.getClassNames().size(),
+                    componentClasses.size(),
+                    System.currentTimeMillis() - start));
+            writeDependencyIndex(componentClasses, compiledMarkup);
         } catch (PluginException e) {
-            throw new MojoExecutionException(String.format(PLUGIN_EXECUTION_EXCEPTION_MESSAGE,
-                    e.getCause() != null ? e.getCause().getClass().getSimpleName() : e.getClass().getSimpleName(),
-                    project.getBuild().getFinalName(),
-                    e.getMessage()), e);
+            throw toMojoException(e);
+        } finally {
+            PluginRuntime.close();
         }
-
-        PluginRuntime.close();
     }
 }
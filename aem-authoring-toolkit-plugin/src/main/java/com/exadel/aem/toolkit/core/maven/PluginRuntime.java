@@ -14,7 +14,12 @@
 
 package com.exadel.aem.toolkit.core.maven;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.exadel.aem.toolkit.core.util.ClasspathScanCache;
+import com.exadel.aem.toolkit.core.util.PluginReflectionUtility;
 
 /**
  * The thread-local {@link PluginRuntimeContext} handler to be used within {@code PluginMojo} execution. Starts with
@@ -32,10 +37,87 @@ public class PluginRuntime {
     }
 
     static void initialize(List<String> classPathElements, String packageBase, String criticalExceptions) {
-        INSTANCE.set(new LoadedRuntimeContext(classPathElements, packageBase, criticalExceptions));
+        initialize(classPathElements, packageBase, criticalExceptions, new ClasspathScanCache());
+    }
+
+    static void initialize(List<String> classPathElements, String packageBase, String criticalExceptions, ClasspathScanCache scanCache) {
+        initialize(classPathElements, classPathElements, packageBase, criticalExceptions, scanCache);
+    }
+
+    /**
+     * Initializes the context scanning only the specified subset of classpath elements for AEM components and custom handlers
+     * @param classPathElements List of classpath elements
+     * @param scannedElements Collection of classpath elements to scan
+     * @param packageBase String representing package prefix of processable AEM backend components
+     * @param criticalExceptions String representing the list of exceptions that terminate the plugin execution
+     * @param scanCache {@code ClasspathScanCache} instance that stores scan results of particular classpath elements
+     */
+    static void initialize(List<String> classPathElements, Collection<String> scannedElements, String packageBase, String criticalExceptions, ClasspathScanCache scanCache) {
+        PluginReflectionUtility pluginReflections = PluginReflectionUtility.fromCodeScope(classPathElements, scannedElements, packageBase, scanCache);
+        INSTANCE.set(new LoadedRuntimeContext(pluginReflections, criticalExceptions, pluginReflections::close));
+    }
+
+    /**
+     * Initializes the context reusing the reflection data retained from a previous execution in the same JVM, if any
+     * @param classPathElements List of classpath elements
+     * @param scannedElements Collection of classpath elements to scan for AEM components and custom handlers
+     * @param packageBase String representing package prefix of processable AEM backend components
+     * @param criticalExceptions String representing the list of exceptions that terminate the plugin execution
+     * @param capacity Maximal number of reflection data instances retained in the JVM
+     * @see WarmRuntimes
+     */
+    static void initializeWarm(List<String> classPathElements, Collection<String> scannedElements, String packageBase, String criticalExceptions, int capacity) {
+        PluginReflectionUtility pluginReflections = WarmRuntimes.acquire(classPathElements, scannedElements, packageBase, capacity);
+        INSTANCE.set(new LoadedRuntimeContext(pluginReflections, criticalExceptions, () -> WarmRuntimes.release(pluginReflections)));
     }
 
     static void close() {
+        PluginRuntimeContext current = INSTANCE.get();
         INSTANCE.remove();
+        if (current instanceof LoadedRuntimeContext) {
+            ((LoadedRuntimeContext) current).close();
+        }
+    }
+
+    /**
+     * Gets a {@link PluginRuntimeContext} that resolves to the context of the thread it is called from. Suitable for
+     * storing in objects that are shared between threads, such as custom handlers
+     * @return {@code PluginRuntimeContext} instance
+     */
+    public static PluginRuntimeContext threadBoundContext() {
+        return ThreadBoundRuntimeContext.INSTANCE;
+    }
+
+    /**
+     * Wraps the provided routine so that it is executed within a copy of the current thread's {@code PluginRuntimeContext}
+     * whichever thread it is run on. The copy shares reflection data and the exception handler with the original context,
+     * but has its own {@link com.exadel.aem.toolkit.core.util.PluginXmlUtility}, so that several components can be
+     * processed concurrently
+     * @param task The routine to wrap
+     * @param <T> Type of the routine's result
+     * @return {@code Callable} instance
+     */
+    public static <T> Callable<T> forked(Callable<T> task) {
+        PluginRuntimeContext source = INSTANCE.get();
+        return () -> callWithin(source, task);
+    }
+
+    /**
+     * Executes the provided routine within a copy of the specified {@code PluginRuntimeContext}. The context previously
+     * bound to the current thread is restored afterwards
+     * @param source {@code PluginRuntimeContext} to copy
+     * @param task The routine to execute
+     * @param <T> Type of the routine's result
+     * @return The routine's result
+     * @throws Exception if thrown by the routine
+     */
+    static <T> T callWithin(PluginRuntimeContext source, Callable<T> task) throws Exception {
+        PluginRuntimeContext previous = INSTANCE.get();
+        INSTANCE.set(source instanceof LoadedRuntimeContext ? new LoadedRuntimeContext((LoadedRuntimeContext) source) : source);
+        try {
+            return task.call();
+        } finally {
+            INSTANCE.set(previous);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.exadel.aem.toolkit.core.maven;
+
+import com.exadel.aem.toolkit.api.runtime.ExceptionHandler;
+import com.exadel.aem.toolkit.core.util.PluginReflectionUtility;
+import com.exadel.aem.toolkit.core.util.PluginXmlUtility;
+
+/**
+ * The implementation of {@link PluginRuntimeContext} that delegates every call to the context active for the current
+ * thread. Injected into custom handlers, which are shared by threads processing components concurrently
+ * @see PluginRuntime#threadBoundContext()
+ */
+class ThreadBoundRuntimeContext implements PluginRuntimeContext {
+    static final PluginRuntimeContext INSTANCE = new ThreadBoundRuntimeContext();
+
+    private ThreadBoundRuntimeContext() {
+    }
+
+    @Override
+    public PluginReflectionUtility getReflectionUtility() {
+        return PluginRuntime.context().getReflectionUtility();
+    }
+
+    @Override
+    public ExceptionHandler getExceptionHandler() {
+        return PluginRuntime.context().getExceptionHandler();
+    }
+
+    @Override
+    public PluginXmlUtility getXmlUtility() {
+        return PluginRuntime.context().getXmlUtility();
+    }
+}
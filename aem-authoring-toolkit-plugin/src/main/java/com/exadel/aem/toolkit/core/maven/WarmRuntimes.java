@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.exadel.aem.toolkit.core.maven;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.exadel.aem.toolkit.core.util.ClasspathScanCache;
+import com.exadel.aem.toolkit.core.util.PluginReflectionUtility;
+
+/**
+ * Retains initialized {@link PluginReflectionUtility} instances, together with the class loaders and custom handlers
+ * they hold, between plugin executions in a long-lived JVM, such as a Maven daemon. Instances are keyed by the classpath
+ * and package base they were created for, and are reused for as long as the fingerprint of the classpath stays the same.
+ * If the classpath has changed, only the changed elements are scanned anew. The number of retained instances is bounded;
+ * the least recently used instances are evicted and their class loaders closed as soon as no execution uses them
+ */
+class WarmRuntimes {
+    private static final String KEY_SEPARATOR = "\n";
+
+    private static final ClasspathScanCache SCAN_CACHE = new ClasspathScanCache();
+    private static final Map<String, Entry> ENTRIES = new LinkedHashMap<>(16, 0.75f, true);
+    private static final List<Entry> RETIRED_ENTRIES = new ArrayList<>();
+
+    private WarmRuntimes() {
+    }
+
+    /**
+     * Retrieves a {@link PluginReflectionUtility} for the specified code scope, creating one if there's no retained
+     * instance matching the current state of the classpath. The instance must be released with {@link #release(PluginReflectionUtility)}
+     * after use
+     * @param classPathElements List of classpath elements
+     * @param packageBase String representing package prefix of processable AEM backend components
+     * @param capacity Maximal number of instances to retain
+     * @return {@code PluginReflectionUtility} instance
+     */
+    static PluginReflectionUtility acquire(List<String> classPathElements, String packageBase, int capacity) {
+        return acquire(classPathElements, classPathElements, packageBase, capacity);
+    }
+
+    /**
+     * Retrieves a {@link PluginReflectionUtility} for the specified code scope in which only the specified subset
+     * of classpath elements is scanned for AEM components and custom handlers
+     * @param classPathElements List of classpath elements
+     * @param scannedElements Collection of classpath elements to scan
+     * @param packageBase String representing package prefix of processable AEM backend components
+     * @param capacity Maximal number of instances to retain
+     * @return {@code PluginReflectionUtility} instance
+     * @see #acquire(List, String, int)
+     */
+    static PluginReflectionUtility acquire(List<String> classPathElements, Collection<String> scannedElements, String packageBase, int capacity) {
+        String key = packageBase
+                + KEY_SEPARATOR + String.join(KEY_SEPARATOR, classPathElements)
+                + KEY_SEPARATOR + KEY_SEPARATOR + scannedElements.stream().sorted().collect(Collectors.joining(KEY_SEPARATOR));
+        String fingerprint = ClasspathScanCache.getFingerprint(classPathElements);
+        synchronized (ENTRIES) {
+            Entry existing = ENTRIES.get(key);
+            if (existing != null && existing.fingerprint.equals(fingerprint)) {
+                existing.users++;
+                return existing.reflectionUtility;
+            }
+        }
+        // the code scope is built outside the lock so that modules having different classpaths are not blocked
+        PluginReflectionUtility created = PluginReflectionUtility.fromCodeScope(classPathElements, scannedElements, packageBase, SCAN_CACHE);
+        List<Entry> evicted = new ArrayList<>();
+        Entry result;
+        synchronized (ENTRIES) {
+            Entry existing = ENTRIES.get(key);
+            if (existing != null && existing.fingerprint.equals(fingerprint)) {
+                evicted.add(new Entry(classPathElements, fingerprint, created));
+                result = existing;
+            } else {
+                result = new Entry(classPathElements, fingerprint, created);
+                Entry replaced = ENTRIES.put(key, result);
+                if (replaced != null) {
+                    evicted.add(replaced);
+                }
+                Iterator<Entry> iterator = ENTRIES.values().iterator();
+                while (ENTRIES.size() > Math.max(capacity, 1) && iterator.hasNext()) {
+                    evicted.add(iterator.next());
+                    iterator.remove();
+                }
+                SCAN_CACHE.retain(ENTRIES.values().stream()
+                        .flatMap(entry -> entry.classPathElements.stream())
+                        .collect(Collectors.toList()));
+            }
+            result.users++;
+            evicted.forEach(WarmRuntimes::retire);
+        }
+        return result.reflectionUtility;
+    }
+
+    /**
+     * Signals that the specified {@link PluginReflectionUtility} is no longer used by the current execution. If the instance
+     * has been evicted meanwhile, its resources are released
+     * @param reflectionUtility {@code PluginReflectionUtility} instance
+     */
+    static void release(PluginReflectionUtility reflectionUtility) {
+        synchronized (ENTRIES) {
+            for (Entry entry : ENTRIES.values()) {
+                if (entry.reflectionUtility == reflectionUtility) {
+                    entry.users--;
+                    return;
+                }
+            }
+            Iterator<Entry> iterator = RETIRED_ENTRIES.iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.reflectionUtility == reflectionUtility && --entry.users == 0) {
+                    iterator.remove();
+                    reflectionUtility.close();
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases the resources of an evicted instance, or postpones it until the last execution using the instance
+     * is complete
+     * @param entry The evicted {@code Entry}
+     */
+    private static void retire(Entry entry) {
+        if (entry.users == 0) {
+            entry.reflectionUtility.close();
+        } else {
+            RETIRED_ENTRIES.add(entry);
+        }
+    }
+
+    /**
+     * Represents a retained {@link PluginReflectionUtility} with the fingerprint of its classpath and the number of
+     * executions that currently use it
+     */
+    private static class Entry {
+        private final List<String> classPathElements;
+        private final String fingerprint;
+        private final PluginReflectionUtility reflectionUtility;
+        private int users;
+
+        private Entry(List<String> classPathElements, String fingerprint, PluginReflectionUtility reflectionUtility) {
+            this.classPathElements = new ArrayList<>(classPathElements);
+            this.fingerprint = fingerprint;
+            this.reflectionUtility = reflectionUtility;
+        }
+    }
+}
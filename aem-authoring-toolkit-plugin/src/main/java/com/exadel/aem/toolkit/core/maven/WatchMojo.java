@@ -0,0 +1,245 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exadel.aem.toolkit.core.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+
+import com.exadel.aem.toolkit.core.exceptions.PluginException;
+import com.exadel.aem.toolkit.core.util.PackageWriter;
+import com.exadel.aem.toolkit.core.util.PluginReflectionUtility;
+
+/**
+ * Represents the long-running AEM Authoring Toolkit goal that watches folders with compiled classes and regenerates
+ * the markup of the AEM components affected by the changed classes
+ */
+@Mojo(name = "watch", requiresDependencyResolution = ResolutionScope.COMPILE)
+public class WatchMojo extends AbstractPluginMojo {
+    private static final String CLASS_FILE_EXTENSION = ".class";
+    private static final String INNER_CLASS_SEPARATOR = "$";
+    private static final String WATCH_EXCEPTION_MESSAGE = "AEM Authoring Toolkit could not watch folder ";
+    private static final String REGENERATION_EXCEPTION_MESSAGE = "AEM Authoring Toolkit could not regenerate components after changes in ";
+
+    @Parameter(property = "watchedDirectories")
+    private String watchedDirectories;
+
+    @Parameter(property = "watchDelay", defaultValue = "200")
+    private long watchDelay;
+
+    /**
+     * Executes the goal. The folders specified in {@code watchedDirectories} (comma-separated; the output folder of the
+     * current project by default) are put in front of the compile classpath and watched for changes. Once the changes
+     * settle for {@code watchDelay} milliseconds, {@link PluginRuntime} is re-initialized, so that the changed classes
+     * are reloaded and only the changed classpath elements are rescanned. The AEM components that refer to the changed
+     * classes are then regenerated. The goal runs until the Maven process is terminated
+     * @throws MojoExecutionException in case the folders cannot be watched
+     */
+    public void execute() throws MojoExecutionException {
+        List<Path> roots = getWatchedDirectories();
+        Set<String> classpathElements = new LinkedHashSet<>();
+        roots.forEach(root -> classpathElements.add(root.toString()));
+        classpathElements.addAll(getClasspathElements());
+
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            for (Path root : roots) {
+                register(watchService, root);
+            }
+            initializeRuntime(new ArrayList<>(classpathElements));
+            getLog().info(String.format("Watching %s for changes in %d AEM component(s)",
+                    roots,
+                    PluginRuntime.context().getReflectionUtility().getComponentClasses().size()));
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<String> changedClasses = new HashSet<>();
+                WatchKey key = watchService.take();
+                while (key != null) {
+                    collectChanges(watchService, key, roots, changedClasses);
+                    key.reset();
+                    key = watchService.poll(watchDelay, TimeUnit.MILLISECONDS);
+                }
+                if (!changedClasses.isEmpty()) {
+                    regenerate(new ArrayList<>(classpathElements), changedClasses);
+                }
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException(WATCH_EXCEPTION_MESSAGE + roots, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            PluginRuntime.close();
+        }
+    }
+
+    /**
+     * Reloads the classpath and regenerates the AEM components that refer to any of the changed classes
+     * @param classpathElements List of classpath elements
+     * @param changedClasses Names of the changed classes
+     */
+    private void regenerate(List<String> classpathElements, Set<String> changedClasses) {
+        long start = System.currentTimeMillis();
+        List<Class<?>> affectedComponents;
+        // the goal is kept running so that the issue can be fixed in the next compilation; linkage errors are expected
+        // while class files are still being written
+        try {
+            PluginRuntime.close();
+            initializeRuntime(classpathElements);
+            Set<String> changedTopLevelClasses = changedClasses.stream().map(WatchMojo::getTopLevelName).collect(Collectors.toSet());
+            affectedComponents = PluginRuntime.context().getReflectionUtility().getComponentClasses().stream()
+                    .filter(componentClass -> PluginReflectionUtility.getReferencedClasses(componentClass).stream()
+                            .anyMatch(referenced -> changedTopLevelClasses.contains(getTopLevelName(referenced.getName()))))
+                    .collect(Collectors.toList());
+            if (affectedComponents.isEmpty()) {
+                getLog().info(String.format("No AEM components affected by %d changed class(es)", changedClasses.size()));
+                return;
+            }
+            try (PackageWriter packageWriter = getPackageWriter()) {
+                packageWriter.write(affectedComponents, threads);
+            }
+        } catch (PluginException e) {
+            getLog().error(toMojoException(e).getMessage(), e);
+            return;
+        } catch (RuntimeException | LinkageError e) {
+            getLog().error(REGENERATION_EXCEPTION_MESSAGE + changedClasses, e);
+            return;
+        }
+        getLog().info(String.format("Regenerated %d AEM component(s) in %d ms: %s",
+                affectedComponents.size(),
+                System.currentTimeMillis() - start,
+                affectedComponents.stream().map(Class::getSimpleName).collect(Collectors.joining(", "))));
+    }
+
+    /**
+     * Retrieves the names of the classes changed according to the events stored in the specified {@code WatchKey}.
+     * Newly created folders are registered with the {@code WatchService}
+     * @param watchService {@code WatchService} instance
+     * @param key {@code WatchKey} instance
+     * @param roots List of watched root folders
+     * @param changedClasses Set to add the names of the changed classes to
+     * @throws IOException in case a newly created folder cannot be registered
+     */
+    private static void collectChanges(WatchService watchService, WatchKey key, List<Path> roots, Set<String> changedClasses) throws IOException {
+        Path folder = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (StandardWatchEventKinds.OVERFLOW.equals(event.kind())) {
+                collectClasses(folder, roots, changedClasses);
+                continue;
+            }
+            Path changed = folder.resolve((Path) event.context());
+            if (StandardWatchEventKinds.ENTRY_CREATE.equals(event.kind()) && Files.isDirectory(changed)) {
+                register(watchService, changed);
+                collectClasses(changed, roots, changedClasses);
+            } else {
+                addClassName(changed, roots, changedClasses);
+            }
+        }
+    }
+
+    /**
+     * Adds the names of all classes stored within the specified folder to the set of changed classes
+     * @param folder {@code Path} to the folder
+     * @param roots List of watched root folders
+     * @param changedClasses Set to add the names of the classes to
+     * @throws IOException in case the folder cannot be read
+     */
+    private static void collectClasses(Path folder, List<Path> roots, Set<String> changedClasses) throws IOException {
+        try (Stream<Path> files = Files.walk(folder)) {
+            files.forEach(file -> addClassName(file, roots, changedClasses));
+        }
+    }
+
+    /**
+     * Adds the name of the class stored in the specified file to the set of changed classes
+     * @param file {@code Path} to the class file
+     * @param roots List of watched root folders
+     * @param changedClasses Set to add the name of the class to
+     */
+    private static void addClassName(Path file, List<Path> roots, Set<String> changedClasses) {
+        if (!file.toString().endsWith(CLASS_FILE_EXTENSION)) {
+            return;
+        }
+        roots.stream()
+                .filter(file::startsWith)
+                .findFirst()
+                .map(root -> root.relativize(file).toString())
+                .map(relativePath -> StringUtils.removeEnd(relativePath, CLASS_FILE_EXTENSION).replace(File.separatorChar, '.'))
+                .ifPresent(changedClasses::add);
+    }
+
+    /**
+     * Registers the specified folder and all of its sub-folders with the {@code WatchService}
+     * @param watchService {@code WatchService} instance
+     * @param root {@code Path} to the folder
+     * @throws IOException in case the folders cannot be registered
+     */
+    private static void register(WatchService watchService, Path root) throws IOException {
+        List<Path> folders;
+        try (Stream<Path> files = Files.walk(root)) {
+            folders = files.filter(Files::isDirectory).collect(Collectors.toList());
+        }
+        for (Path folder : folders) {
+            folder.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+        }
+    }
+
+    /**
+     * Retrieves the list of folders to watch
+     * @return List of {@code Path} objects
+     * @throws MojoExecutionException in case one of the folders does not exist
+     */
+    private List<Path> getWatchedDirectories() throws MojoExecutionException {
+        String value = StringUtils.defaultIfBlank(watchedDirectories, project.getBuild().getOutputDirectory());
+        List<Path> result = new ArrayList<>();
+        for (String directory : StringUtils.split(value, ',')) {
+            Path path = project.getBasedir().toPath().resolve(directory.trim()).normalize().toAbsolutePath();
+            if (!Files.isDirectory(path)) {
+                throw new MojoExecutionException(WATCH_EXCEPTION_MESSAGE + path);
+            }
+            result.add(path);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the name of the top-level class for the specified class name, so that a change in an inner or anonymous class
+     * is attributed to the class it is declared in
+     * @param className Name of a class
+     * @return String value
+     */
+    private static String getTopLevelName(String className) {
+        return StringUtils.substringBefore(className, INNER_CLASS_SEPARATOR);
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exadel.aem.toolkit.core.processing;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.exadel.aem.toolkit.api.annotations.main.Dialog;
+import com.exadel.aem.toolkit.api.annotations.widgets.common.XmlScope;
+import com.exadel.aem.toolkit.api.processing.IndexFileToucher;
+import com.exadel.aem.toolkit.core.maven.DialogGenerator;
+import com.exadel.aem.toolkit.core.util.CompiledMarkup;
+import com.exadel.aem.toolkit.core.util.DialogConstants;
+
+/**
+ * Annotation processor that renders the markup of AEM components, vid. {@code .content.xml}, {@code _cq_dialog.xml},
+ * and {@code _cq_editConfig.xml}, at compile time and stores it to the class output under the folder specified with
+ * the {@link #COMPONENTS_PATH_BASE_OPTION} option, one sub-folder per component. The rendered components are listed
+ * in the {@link CompiledMarkup#INDEX} file, so that the plugin copies their markup to the package instead of loading
+ * and analyzing the classes.
+ * <p>The markup is rendered by the same handlers as in the plugin, applied to the classes defined by {@link ModelClassLoader}
+ * from the {@code javax.lang.model} elements of the compiler. The components compiled in the current run are rendered,
+ * and so are the previously compiled components that depend on the classes compiled in this run; so an incremental
+ * compilation renders only the touched components. Custom handlers are not available at compile time. Therefore,
+ * the components that use custom annotations are not rendered, and those using annotations that custom handlers
+ * declare via {@code @HandlesWidgets} are rendered anew by the plugin. So are the components that cannot be rendered
+ * without issues, so that the issues are reported by the plugin according to its {@code terminateOn} setting</p>
+ * <p>The index file is kept not older than the class files of the compilation with {@link IndexFileToucher}. This way,
+ * the markup of a component is not used by the plugin if the component, or any class its markup depends on, has been
+ * compiled anew without the processor</p>
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(DialogMarkupProcessor.COMPONENTS_PATH_BASE_OPTION)
+public class DialogMarkupProcessor extends AbstractProcessor {
+    public static final String COMPONENTS_PATH_BASE_OPTION = "aemAuthoringToolkit.componentsPathBase";
+
+    private static final String DEFAULT_COMPONENTS_PATH_BASE = "jcr_root";
+    private static final String INNER_CLASS_SEPARATOR = "$";
+    private static final String NOT_RENDERED_MESSAGE = "AEM Authoring Toolkit will render %s at package time: %s";
+    private static final String CUSTOM_ANNOTATIONS_MESSAGE = "custom annotations %s are used";
+    private static final String DUPLICATE_FOLDER_MESSAGE = "folder %s is already used by %s";
+    private static final String CANNOT_WRITE_MESSAGE = "Cannot write %s: %s";
+
+    private final Map<String, CompiledMarkup.Entry> entries = new TreeMap<>();
+    private final Set<String> processedTypes = new HashSet<>();
+    private CompiledMarkup previousMarkup;
+    private DialogGenerator generator;
+    private IndexFileToucher indexFileToucher;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        previousMarkup = readIndex();
+        indexFileToucher = IndexFileToucher.register(processingEnv);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            if (generator != null) {
+                generator.close();
+            }
+            return false;
+        }
+        Set<TypeElement> components = new LinkedHashSet<>();
+        Set<String> compiledTypes = new HashSet<>();
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            compiledTypes.add(getBinaryName(type));
+            collectComponents(type, components);
+        }
+        // components compiled earlier are rendered anew if the classes their markup depends on are compiled now
+        Elements elements = processingEnv.getElementUtils();
+        for (CompiledMarkup.Entry entry : previousMarkup.getEntries()) {
+            if (entry.getDependencies().stream().anyMatch(compiledTypes::contains)) {
+                TypeElement component = elements.getTypeElement(entry.getClassName().replace(INNER_CLASS_SEPARATOR, "."));
+                if (component != null && component.getAnnotation(Dialog.class) != null) {
+                    components.add(component);
+                }
+            }
+        }
+        for (TypeElement component : components) {
+            if (processedTypes.add(getBinaryName(component))) {
+                render(component);
+            }
+        }
+        // annotations are not claimed so that other processors can handle them
+        return false;
+    }
+
+    /**
+     * Collects the {@code @Dialog}-annotated types among the specified type and its nested types
+     * @param type {@code TypeElement} instance
+     * @param components Set to add the components to
+     */
+    private static void collectComponents(TypeElement type, Set<TypeElement> components) {
+        if (type.getAnnotation(Dialog.class) != null) {
+            components.add(type);
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            collectComponents(nested, components);
+        }
+    }
+
+    /**
+     * Renders the markup of the specified AEM component and stores it to the class output. If the markup cannot be
+     * rendered without issues, the component is left to the plugin
+     * @param component {@code TypeElement} representing a {@code @Dialog}-annotated class
+     */
+    private void render(TypeElement component) {
+        String className = getBinaryName(component);
+        Dialog dialog = component.getAnnotation(Dialog.class);
+        if (StringUtils.isBlank(dialog.name())) {
+            // the plugin reports the missing name
+            return;
+        }
+        ModelClassLoader classLoader = new ModelClassLoader(processingEnv.getElementUtils(), processingEnv.getTypeUtils(), getClass().getClassLoader());
+        Map<XmlScope, byte[]> markup;
+        try {
+            markup = getGenerator().generate(classLoader.loadClass(component));
+        } catch (ClassNotFoundException | RuntimeException | LinkageError e) {
+            printNote(className, e.getCause() != null ? e.getCause().toString() : e.toString());
+            return;
+        }
+        if (!classLoader.getUnsupportedAnnotationTypes().isEmpty()) {
+            printNote(className, String.format(CUSTOM_ANNOTATIONS_MESSAGE, classLoader.getUnsupportedAnnotationTypes()));
+            return;
+        }
+        String folder = StringUtils.stripEnd(processingEnv.getOptions().getOrDefault(COMPONENTS_PATH_BASE_OPTION, DEFAULT_COMPONENTS_PATH_BASE), DialogConstants.PATH_SEPARATOR)
+                + DialogConstants.PATH_SEPARATOR
+                + dialog.name();
+        Optional<String> folderOwner = entries.values().stream()
+                .filter(entry -> entry.getFolder().equals(folder))
+                .map(CompiledMarkup.Entry::getClassName)
+                .findFirst();
+        if (folderOwner.isPresent()) {
+            printNote(className, String.format(DUPLICATE_FOLDER_MESSAGE, folder, folderOwner.get()));
+            return;
+        }
+        try {
+            for (Map.Entry<XmlScope, byte[]> entry : markup.entrySet()) {
+                FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+                        folder + DialogConstants.PATH_SEPARATOR + entry.getKey(), component);
+                try (OutputStream output = file.openOutputStream()) {
+                    output.write(entry.getValue());
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, String.format(CANNOT_WRITE_MESSAGE, folder, e.getMessage()));
+            return;
+        }
+        Set<String> dependencies = classLoader.getStubs().stream()
+                .map(name -> StringUtils.substringBefore(name, INNER_CLASS_SEPARATOR))
+                .collect(Collectors.toSet());
+        entries.put(className, new CompiledMarkup.Entry(className, dialog.name(), folder, new ArrayList<>(markup.keySet()),
+                classLoader.getAnnotationTypes(), dependencies));
+    }
+
+    /**
+     * Gets the generator that renders markup with the built-in handlers. Any issue met while rendering is thrown
+     * @return {@code DialogGenerator} instance
+     */
+    private DialogGenerator getGenerator() {
+        if (generator == null) {
+            generator = DialogGenerator.newInstance();
+        }
+        return generator;
+    }
+
+    /**
+     * Reports that the markup of a component is left to the plugin
+     * @param className Name of the component class
+     * @param reason The reason
+     */
+    private void printNote(String className, String reason) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, String.format(NOT_RENDERED_MESSAGE, className, reason));
+    }
+
+    /**
+     * Writes the index to the class output. Entries of a previously written index are retained for the components
+     * that were not processed in this run, as long as these are still available
+     */
+    private void writeIndex() {
+        Elements elements = processingEnv.getElementUtils();
+        List<CompiledMarkup.Entry> result = previousMarkup.getEntries().stream()
+                .filter(entry -> !processedTypes.contains(entry.getClassName()))
+                .filter(entry -> entries.values().stream().noneMatch(current -> current.getFolder().equals(entry.getFolder())))
+                .filter(entry -> elements.getTypeElement(entry.getClassName().replace(INNER_CLASS_SEPARATOR, ".")) != null)
+                .collect(Collectors.toList());
+        result.addAll(entries.values());
+        Filer filer = processingEnv.getFiler();
+        try {
+            FileObject index = filer.createResource(StandardLocation.CLASS_OUTPUT, "", CompiledMarkup.INDEX);
+            try (Writer writer = index.openWriter()) {
+                new CompiledMarkup(result).write(writer);
+            }
+            indexFileToucher.track(index);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, String.format(CANNOT_WRITE_MESSAGE, CompiledMarkup.INDEX, e.getMessage()));
+        }
+    }
+
+    /**
+     * Reads the index previously written to the class output, if any
+     * @return {@code CompiledMarkup} instance
+     */
+    private CompiledMarkup readIndex() {
+        try {
+            FileObject index = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", CompiledMarkup.INDEX);
+            try (Reader reader = index.openReader(true)) {
+                return CompiledMarkup.read(reader);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // there is no previous index, which is the case for a clean build
+            return new CompiledMarkup(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Gets the binary name of the specified type
+     * @param type {@code TypeElement} instance
+     * @return String value
+     */
+    private String getBinaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+}
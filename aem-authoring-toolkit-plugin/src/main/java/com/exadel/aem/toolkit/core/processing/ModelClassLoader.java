@@ -0,0 +1,231 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exadel.aem.toolkit.core.processing;
+
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.exadel.aem.toolkit.api.annotations.meta.DialogAnnotation;
+
+/**
+ * Loads the classes of AEM components, and of the classes they refer to, from the stubs written by {@link StubClassWriter}
+ * after the {@code javax.lang.model} elements of the compiler, so that the markup of a component can be rendered
+ * by the plugin before the component is compiled. Classes of the platform and of AEM Authoring Toolkit are loaded
+ * by the parent class loader. Other classes are defined from stubs even if the parent class loader can provide them,
+ * since the latter may be outdated.
+ * <p>Annotations of AEM Authoring Toolkit API are reproduced by stubs. Other annotations do not affect the markup
+ * rendered with built-in handlers and are omitted, but their types are recorded: these can be processed by custom
+ * handlers, which are not available within the compiler. Custom annotations marked with an AEM Authoring Toolkit
+ * meta-annotation cannot be rendered without custom handlers; the stubs omit them, and the rendered markup is reported
+ * incomplete</p>
+ * <p>Stubs are defined lazily, as the classes are requested by the plugin. An instance is intended for rendering
+ * a single component within the thread of the compiler, so that the recorded facts relate to that component</p>
+ */
+class ModelClassLoader extends ClassLoader {
+    private static final String API_PACKAGE = "com.exadel.aem.toolkit.api.";
+    private static final String META_ANNOTATIONS_PACKAGE = DialogAnnotation.class.getPackage().getName();
+    private static final List<String> PARENT_FIRST_PACKAGES = Arrays.asList(
+            "java.",
+            "javax.",
+            "jdk.",
+            "sun.",
+            "com.sun.",
+            "org.w3c.",
+            "org.xml.",
+            API_PACKAGE,
+            "com.exadel.aem.toolkit.core.");
+
+    private final Elements elements;
+    private final Types types;
+    private final Map<String, TypeElement> typeElements = new HashMap<>();
+    private final Set<String> stubs = new TreeSet<>();
+    private final Set<String> annotationTypes = new TreeSet<>();
+    private final Set<String> unsupportedAnnotationTypes = new TreeSet<>();
+
+    /**
+     * Default constructor
+     * @param elements {@code Elements} utility of the current processing environment
+     * @param types {@code Types} utility of the current processing environment
+     * @param parent Class loader that provides the classes of the platform and of AEM Authoring Toolkit
+     */
+    ModelClassLoader(Elements elements, Types types, ClassLoader parent) {
+        super(parent);
+        this.elements = elements;
+        this.types = types;
+    }
+
+    /**
+     * Loads the class that corresponds to the specified {@code TypeElement}
+     * @param type {@code TypeElement} instance
+     * @return {@code Class} instance
+     * @throws ClassNotFoundException in case the class cannot be defined
+     */
+    Class<?> loadClass(TypeElement type) throws ClassNotFoundException {
+        return loadClass(getBinaryName(type));
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> result = findLoadedClass(name);
+            if (result == null && PARENT_FIRST_PACKAGES.stream().anyMatch(name::startsWith)) {
+                try {
+                    result = getParent().loadClass(name);
+                } catch (ClassNotFoundException e) {
+                    // the class is not shipped with the platform, e.g. it belongs to a "javax." library
+                }
+            }
+            if (result == null) {
+                result = getTypeElement(name) != null ? findClass(name) : getParent().loadClass(name);
+            }
+            if (resolve) {
+                resolveClass(result);
+            }
+            return result;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        TypeElement type = getTypeElement(name);
+        if (type == null) {
+            throw new ClassNotFoundException(name);
+        }
+        try {
+            byte[] bytes = new StubClassWriter(this, type).write();
+            stubs.add(name);
+            return defineClass(name, bytes, 0, bytes.length);
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+    }
+
+    /**
+     * Gets the {@code Types} utility of the current processing environment
+     * @return {@code Types} instance
+     */
+    Types getTypes() {
+        return types;
+    }
+
+    /**
+     * Gets the internal name of the specified type, as used in class files. The type is registered so that
+     * its stub can be later defined by this class loader
+     * @param type {@code TypeElement} instance
+     * @return String value
+     */
+    String getInternalName(TypeElement type) {
+        return getBinaryName(type).replace('.', '/');
+    }
+
+    /**
+     * Gets whether the specified annotation must be reproduced by the stub of the annotated element. The type of every
+     * annotation is recorded
+     * @param annotation {@code AnnotationMirror} instance
+     * @return True or false
+     */
+    boolean isRetained(AnnotationMirror annotation) {
+        TypeElement annotationType = (TypeElement) annotation.getAnnotationType().asElement();
+        String name = getBinaryName(annotationType);
+        annotationTypes.add(name);
+        if (!name.startsWith(API_PACKAGE)) {
+            if (isCustomAnnotation(annotationType)) {
+                unsupportedAnnotationTypes.add(name);
+            }
+            return false;
+        }
+        try {
+            Retention retention = getParent().loadClass(name).getAnnotation(Retention.class);
+            return retention != null && retention.value() == RetentionPolicy.RUNTIME;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gets the names of the classes defined from stubs by this class loader so far
+     * @return Sorted set of binary names
+     */
+    Set<String> getStubs() {
+        return new TreeSet<>(stubs);
+    }
+
+    /**
+     * Gets the names of annotation types met in the stubs defined by this class loader so far
+     * @return Sorted set of binary names
+     */
+    Set<String> getAnnotationTypes() {
+        return new TreeSet<>(annotationTypes);
+    }
+
+    /**
+     * Gets the names of custom annotation types, met in the stubs defined so far, that require custom handlers
+     * @return Sorted set of binary names
+     */
+    Set<String> getUnsupportedAnnotationTypes() {
+        return new TreeSet<>(unsupportedAnnotationTypes);
+    }
+
+    /**
+     * Gets whether the specified annotation type is marked with any of AEM Authoring Toolkit meta-annotations
+     * @param annotationType {@code TypeElement} instance
+     * @return True or false
+     */
+    private boolean isCustomAnnotation(TypeElement annotationType) {
+        return annotationType.getAnnotationMirrors().stream()
+                .map(metaAnnotation -> (TypeElement) metaAnnotation.getAnnotationType().asElement())
+                .map(elements::getPackageOf)
+                .map(PackageElement::getQualifiedName)
+                .anyMatch(packageName -> packageName.contentEquals(META_ANNOTATIONS_PACKAGE));
+    }
+
+    /**
+     * Retrieves the {@code TypeElement} with the specified binary name
+     * @param name Binary name of a class
+     * @return {@code TypeElement} instance, or null if the type is not known to the compiler
+     */
+    private TypeElement getTypeElement(String name) {
+        TypeElement result = typeElements.get(name);
+        if (result == null && !StringUtils.contains(name, '$')) {
+            result = elements.getTypeElement(name);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the binary name of the specified type and registers the type under this name
+     * @param type {@code TypeElement} instance
+     * @return String value
+     */
+    private String getBinaryName(TypeElement type) {
+        String result = elements.getBinaryName(type).toString();
+        typeElements.putIfAbsent(result, type);
+        return result;
+    }
+}
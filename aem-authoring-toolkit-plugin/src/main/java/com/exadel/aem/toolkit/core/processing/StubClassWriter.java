@@ -0,0 +1,498 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exadel.aem.toolkit.core.processing;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+
+/**
+ * Writes the class file of a stub that reproduces the structure of a type known to the compiler: its modifiers,
+ * superclass, interfaces, member classes, and fields, together with the runtime-visible annotations of the type
+ * and the fields. A stub has no methods, so it can be loaded and inspected via reflection, but not instantiated.
+ * The annotations to retain, and the types referenced by the stub, are negotiated with the {@link ModelClassLoader}
+ */
+class StubClassWriter {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int VERSION = 52;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_PROTECTED = 0x0004;
+    private static final int ACC_STATIC = 0x0008;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+    private static final int ACC_VOLATILE = 0x0040;
+    private static final int ACC_TRANSIENT = 0x0080;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+    private static final int ACC_ANNOTATION = 0x2000;
+    private static final int ACC_ENUM = 0x4000;
+
+    private static final int TAG_UTF8 = 1;
+    private static final int TAG_INTEGER = 3;
+    private static final int TAG_FLOAT = 4;
+    private static final int TAG_LONG = 5;
+    private static final int TAG_DOUBLE = 6;
+    private static final int TAG_CLASS = 7;
+
+    private static final String OBJECT_CLASS = "java/lang/Object";
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+    private static final String INNER_CLASSES = "InnerClasses";
+
+    private final ModelClassLoader classLoader;
+    private final TypeElement type;
+
+    private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+    private final Map<String, Integer> constantPoolIndices = new HashMap<>();
+    private int constantPoolSize = 1;
+
+    /**
+     * Default constructor
+     * @param classLoader {@code ModelClassLoader} that the stub is written for
+     * @param type {@code TypeElement} to write the stub of
+     */
+    StubClassWriter(ModelClassLoader classLoader, TypeElement type) {
+        this.classLoader = classLoader;
+        this.type = type;
+    }
+
+    /**
+     * Writes the class file of the stub
+     * @return Byte array
+     * @throws IOException in case the class file cannot be composed
+     */
+    byte[] write() throws IOException {
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream();
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+
+        body.writeShort(getClassFlags(type));
+        body.writeShort(classConstant(classLoader.getInternalName(type)));
+        TypeMirror superclass = type.getSuperclass();
+        boolean isInterface = type.getKind() == ElementKind.INTERFACE || type.getKind() == ElementKind.ANNOTATION_TYPE;
+        body.writeShort(superclass.getKind() == TypeKind.DECLARED && !isInterface
+                ? classConstant(getInternalName(superclass))
+                : classConstant(OBJECT_CLASS));
+        List<? extends TypeMirror> interfaces = type.getInterfaces();
+        body.writeShort(interfaces.size());
+        for (TypeMirror implemented : interfaces) {
+            body.writeShort(classConstant(getInternalName(implemented)));
+        }
+
+        List<VariableElement> fields = ElementFilter.fieldsIn(type.getEnclosedElements());
+        body.writeShort(fields.size());
+        for (VariableElement field : fields) {
+            body.writeShort(getFieldFlags(field));
+            body.writeShort(utf8Constant(field.getSimpleName().toString()));
+            body.writeShort(utf8Constant(getDescriptor(field.asType())));
+            writeAnnotationsAttribute(body, field, 0);
+        }
+        // methods are not needed to inspect the fields and annotations of a type
+        body.writeShort(0);
+
+        List<TypeElement> innerClasses = getInnerClasses();
+        writeAnnotationsAttribute(body, type, innerClasses.isEmpty() ? 0 : 1);
+        if (!innerClasses.isEmpty()) {
+            body.writeShort(utf8Constant(INNER_CLASSES));
+            body.writeInt(2 + 8 * innerClasses.size());
+            body.writeShort(innerClasses.size());
+            for (TypeElement innerClass : innerClasses) {
+                body.writeShort(classConstant(classLoader.getInternalName(innerClass)));
+                body.writeShort(classConstant(classLoader.getInternalName((TypeElement) innerClass.getEnclosingElement())));
+                body.writeShort(utf8Constant(innerClass.getSimpleName().toString()));
+                body.writeShort(getInnerClassFlags(innerClass));
+            }
+        }
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(result);
+        output.writeInt(MAGIC);
+        output.writeShort(0);
+        output.writeShort(VERSION);
+        output.writeShort(constantPoolSize);
+        constantPoolBytes.writeTo(output);
+        bodyBytes.writeTo(output);
+        return result.toByteArray();
+    }
+
+    /**
+     * Retrieves the member classes the {@code InnerClasses} attribute of the stub must refer to. These are the type
+     * itself, if it is a member class, and the member classes it declares. The latter are listed in the reverse order
+     * of declaration, the same way javac does it, so that {@link Class#getDeclaredClasses()} returns them in the same
+     * order as for the compiled class
+     * @return List of {@code TypeElement} objects
+     */
+    private List<TypeElement> getInnerClasses() {
+        List<TypeElement> result = new ArrayList<>();
+        if (type.getNestingKind() == NestingKind.MEMBER) {
+            result.add(type);
+        }
+        List<TypeElement> memberClasses = new ArrayList<>(ElementFilter.typesIn(type.getEnclosedElements()));
+        Collections.reverse(memberClasses);
+        result.addAll(memberClasses);
+        return result;
+    }
+
+    /**
+     * Writes the {@code RuntimeVisibleAnnotations} attribute of the specified element, if the element has annotations
+     * retained by the {@link ModelClassLoader}, preceded by the count of attributes
+     * @param output {@code DataOutputStream} to write to
+     * @param element The annotated element
+     * @param otherAttributes The number of attributes that follow
+     * @throws IOException in case the attribute cannot be written
+     */
+    private void writeAnnotationsAttribute(DataOutputStream output, Element element, int otherAttributes) throws IOException {
+        List<AnnotationMirror> annotations = new ArrayList<>();
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (classLoader.isRetained(annotation)) {
+                annotations.add(annotation);
+            }
+        }
+        if (annotations.isEmpty()) {
+            output.writeShort(otherAttributes);
+            return;
+        }
+        output.writeShort(otherAttributes + 1);
+        ByteArrayOutputStream attributeBytes = new ByteArrayOutputStream();
+        DataOutputStream attribute = new DataOutputStream(attributeBytes);
+        attribute.writeShort(annotations.size());
+        for (AnnotationMirror annotation : annotations) {
+            writeAnnotation(attribute, annotation);
+        }
+        output.writeShort(utf8Constant(RUNTIME_VISIBLE_ANNOTATIONS));
+        output.writeInt(attributeBytes.size());
+        attributeBytes.writeTo(output);
+    }
+
+    /**
+     * Writes the {@code annotation} structure for the specified annotation. Only the explicitly set values are written,
+     * since the default values are taken from the annotation type when the annotation is read via reflection
+     * @param output {@code DataOutputStream} to write to
+     * @param annotation {@code AnnotationMirror} instance
+     * @throws IOException in case the annotation cannot be written
+     */
+    private void writeAnnotation(DataOutputStream output, AnnotationMirror annotation) throws IOException {
+        output.writeShort(utf8Constant(getDescriptor(annotation.getAnnotationType())));
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values = annotation.getElementValues();
+        output.writeShort(values.size());
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            output.writeShort(utf8Constant(entry.getKey().getSimpleName().toString()));
+            writeElementValue(output, entry.getKey().getReturnType(), entry.getValue().getValue());
+        }
+    }
+
+    /**
+     * Writes the {@code element_value} structure for a value of an annotation property
+     * @param output {@code DataOutputStream} to write to
+     * @param valueType The declared type of the property
+     * @param value The value as exposed by {@link AnnotationValue#getValue()}
+     * @throws IOException in case the value cannot be written
+     */
+    private void writeElementValue(DataOutputStream output, TypeMirror valueType, Object value) throws IOException {
+        switch (valueType.getKind()) {
+            case BOOLEAN:
+                output.writeByte('Z');
+                output.writeShort(integerConstant(Boolean.TRUE.equals(value) ? 1 : 0));
+                return;
+            case CHAR:
+                output.writeByte('C');
+                output.writeShort(integerConstant((Character) value));
+                return;
+            case BYTE:
+            case SHORT:
+            case INT:
+                output.writeByte(valueType.getKind() == TypeKind.BYTE ? 'B' : valueType.getKind() == TypeKind.SHORT ? 'S' : 'I');
+                output.writeShort(integerConstant(((Number) value).intValue()));
+                return;
+            case LONG:
+                output.writeByte('J');
+                output.writeShort(wideConstant(TAG_LONG, ((Number) value).longValue()));
+                return;
+            case FLOAT:
+                output.writeByte('F');
+                output.writeShort(floatConstant(((Number) value).floatValue()));
+                return;
+            case DOUBLE:
+                output.writeByte('D');
+                output.writeShort(wideConstant(TAG_DOUBLE, Double.doubleToRawLongBits(((Number) value).doubleValue())));
+                return;
+            case ARRAY:
+                List<?> values = value instanceof List ? (List<?>) value : Collections.singletonList(value);
+                output.writeByte('[');
+                output.writeShort(values.size());
+                for (Object item : values) {
+                    writeElementValue(output, ((ArrayType) valueType).getComponentType(), ((AnnotationValue) item).getValue());
+                }
+                return;
+            default:
+                break;
+        }
+        if (value instanceof String) {
+            output.writeByte('s');
+            output.writeShort(utf8Constant((String) value));
+        } else if (value instanceof TypeMirror) {
+            output.writeByte('c');
+            output.writeShort(utf8Constant(getDescriptor((TypeMirror) value)));
+        } else if (value instanceof VariableElement) {
+            output.writeByte('e');
+            output.writeShort(utf8Constant(getDescriptor(((VariableElement) value).asType())));
+            output.writeShort(utf8Constant(((VariableElement) value).getSimpleName().toString()));
+        } else if (value instanceof AnnotationMirror) {
+            output.writeByte('@');
+            writeAnnotation(output, (AnnotationMirror) value);
+        } else {
+            // the value is not resolved, e.g. it refers to a class that is missing from the classpath
+            throw new IOException("Unresolved annotation value " + value + " in " + type);
+        }
+    }
+
+    /**
+     * Gets the type descriptor of the erasure of the specified type
+     * @param typeMirror {@code TypeMirror} instance
+     * @return String value
+     * @throws IOException in case the type is not resolved
+     */
+    private String getDescriptor(TypeMirror typeMirror) throws IOException {
+        TypeMirror erasure = classLoader.getTypes().erasure(typeMirror);
+        switch (erasure.getKind()) {
+            case BOOLEAN:
+                return "Z";
+            case BYTE:
+                return "B";
+            case CHAR:
+                return "C";
+            case SHORT:
+                return "S";
+            case INT:
+                return "I";
+            case LONG:
+                return "J";
+            case FLOAT:
+                return "F";
+            case DOUBLE:
+                return "D";
+            case VOID:
+                return "V";
+            case ARRAY:
+                return "[" + getDescriptor(((ArrayType) erasure).getComponentType());
+            case DECLARED:
+                return "L" + getInternalName(erasure) + ";";
+            default:
+                throw new IOException("Unresolved type " + typeMirror + " in " + type);
+        }
+    }
+
+    /**
+     * Gets the internal name of the class represented by the specified declared type
+     * @param typeMirror {@code TypeMirror} instance
+     * @return String value
+     * @throws IOException in case the type is not resolved
+     */
+    private String getInternalName(TypeMirror typeMirror) throws IOException {
+        if (typeMirror.getKind() != TypeKind.DECLARED) {
+            throw new IOException("Unresolved type " + typeMirror + " in " + type);
+        }
+        return classLoader.getInternalName((TypeElement) ((DeclaredType) typeMirror).asElement());
+    }
+
+    /**
+     * Gets the access flags of the stub class
+     * @param element {@code TypeElement} instance
+     * @return Integer value
+     */
+    private static int getClassFlags(TypeElement element) {
+        // member classes that are private or protected are public in the class file
+        int result = getInnerClassFlags(element) & ~(ACC_PRIVATE | ACC_PROTECTED | ACC_STATIC);
+        if (element.getModifiers().contains(Modifier.PROTECTED)) {
+            result |= ACC_PUBLIC;
+        }
+        return (result & ACC_INTERFACE) == 0 ? result | ACC_SUPER : result;
+    }
+
+    /**
+     * Gets the access flags of the specified type as stored in an {@code InnerClasses} attribute
+     * @param element {@code TypeElement} instance
+     * @return Integer value
+     */
+    private static int getInnerClassFlags(TypeElement element) {
+        Set<Modifier> modifiers = element.getModifiers();
+        int result = getAccessFlags(modifiers);
+        switch (element.getKind()) {
+            case ANNOTATION_TYPE:
+                return result | ACC_INTERFACE | ACC_ABSTRACT | ACC_ANNOTATION | ACC_STATIC;
+            case INTERFACE:
+                return result | ACC_INTERFACE | ACC_ABSTRACT | ACC_STATIC;
+            case ENUM:
+                return result | ACC_ENUM | ACC_STATIC | (modifiers.contains(Modifier.ABSTRACT) ? 0 : ACC_FINAL);
+            default:
+                return result
+                        | (modifiers.contains(Modifier.ABSTRACT) ? ACC_ABSTRACT : 0)
+                        | (modifiers.contains(Modifier.FINAL) ? ACC_FINAL : 0)
+                        | (modifiers.contains(Modifier.STATIC) ? ACC_STATIC : 0);
+        }
+    }
+
+    /**
+     * Gets the access flags of the specified field
+     * @param field {@code VariableElement} instance
+     * @return Integer value
+     */
+    private static int getFieldFlags(VariableElement field) {
+        Set<Modifier> modifiers = field.getModifiers();
+        int result = getAccessFlags(modifiers);
+        if (field.getKind() == ElementKind.ENUM_CONSTANT) {
+            return result | ACC_PUBLIC | ACC_STATIC | ACC_FINAL | ACC_ENUM;
+        }
+        return result
+                | (modifiers.contains(Modifier.STATIC) ? ACC_STATIC : 0)
+                | (modifiers.contains(Modifier.FINAL) ? ACC_FINAL : 0)
+                | (modifiers.contains(Modifier.VOLATILE) ? ACC_VOLATILE : 0)
+                | (modifiers.contains(Modifier.TRANSIENT) ? ACC_TRANSIENT : 0);
+    }
+
+    /**
+     * Gets the access flags that correspond to the visibility modifiers
+     * @param modifiers Set of {@code Modifier} values
+     * @return Integer value
+     */
+    private static int getAccessFlags(Set<Modifier> modifiers) {
+        if (modifiers.contains(Modifier.PUBLIC)) {
+            return ACC_PUBLIC;
+        }
+        if (modifiers.contains(Modifier.PROTECTED)) {
+            return ACC_PROTECTED;
+        }
+        return modifiers.contains(Modifier.PRIVATE) ? ACC_PRIVATE : 0;
+    }
+
+    /**
+     * Gets the index of a {@code CONSTANT_Utf8} entry, adding the entry to the constant pool as necessary
+     * @param value String value
+     * @return Index within the constant pool
+     * @throws IOException in case the entry cannot be written
+     */
+    private int utf8Constant(String value) throws IOException {
+        Integer index = constantPoolIndices.get(TAG_UTF8 + value);
+        if (index != null) {
+            return index;
+        }
+        constantPool.writeByte(TAG_UTF8);
+        constantPool.writeUTF(value);
+        return addConstant(TAG_UTF8 + value, 1);
+    }
+
+    /**
+     * Gets the index of a {@code CONSTANT_Class} entry, adding the entry to the constant pool as necessary
+     * @param internalName The internal name of the class
+     * @return Index within the constant pool
+     * @throws IOException in case the entry cannot be written
+     */
+    private int classConstant(String internalName) throws IOException {
+        Integer index = constantPoolIndices.get(TAG_CLASS + internalName);
+        if (index != null) {
+            return index;
+        }
+        int nameIndex = utf8Constant(internalName);
+        constantPool.writeByte(TAG_CLASS);
+        constantPool.writeShort(nameIndex);
+        return addConstant(TAG_CLASS + internalName, 1);
+    }
+
+    /**
+     * Gets the index of a {@code CONSTANT_Integer} entry, adding the entry to the constant pool as necessary
+     * @param value Integer value
+     * @return Index within the constant pool
+     * @throws IOException in case the entry cannot be written
+     */
+    private int integerConstant(int value) throws IOException {
+        Integer index = constantPoolIndices.get(TAG_INTEGER + ":" + value);
+        if (index != null) {
+            return index;
+        }
+        constantPool.writeByte(TAG_INTEGER);
+        constantPool.writeInt(value);
+        return addConstant(TAG_INTEGER + ":" + value, 1);
+    }
+
+    /**
+     * Gets the index of a {@code CONSTANT_Float} entry, adding the entry to the constant pool as necessary
+     * @param value Float value
+     * @return Index within the constant pool
+     * @throws IOException in case the entry cannot be written
+     */
+    private int floatConstant(float value) throws IOException {
+        int bits = Float.floatToRawIntBits(value);
+        Integer index = constantPoolIndices.get(TAG_FLOAT + ":" + bits);
+        if (index != null) {
+            return index;
+        }
+        constantPool.writeByte(TAG_FLOAT);
+        constantPool.writeInt(bits);
+        return addConstant(TAG_FLOAT + ":" + bits, 1);
+    }
+
+    /**
+     * Gets the index of a {@code CONSTANT_Long} or {@code CONSTANT_Double} entry, adding the entry to the constant pool
+     * as necessary
+     * @param tag The tag of the entry
+     * @param bits The value, or the bits of the value
+     * @return Index within the constant pool
+     * @throws IOException in case the entry cannot be written
+     */
+    private int wideConstant(int tag, long bits) throws IOException {
+        Integer index = constantPoolIndices.get(tag + ":" + bits);
+        if (index != null) {
+            return index;
+        }
+        constantPool.writeByte(tag);
+        constantPool.writeLong(bits);
+        // eight-byte constants take two entries of the constant pool
+        return addConstant(tag + ":" + bits, 2);
+    }
+
+    /**
+     * Registers the entry just written to the constant pool
+     * @param key The key of the entry
+     * @param size The number of slots the entry takes
+     * @return Index of the entry
+     */
+    private int addConstant(String key, int size) {
+        int index = constantPoolSize;
+        constantPoolIndices.put(key, index);
+        constantPoolSize += size;
+        return index;
+    }
+}
@@ -0,0 +1,398 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.exadel.aem.toolkit.core.util;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import com.exadel.aem.toolkit.api.annotations.meta.EnumValue;
+import com.exadel.aem.toolkit.api.annotations.meta.IgnorePropertyMapping;
+import com.exadel.aem.toolkit.api.annotations.meta.IgnoreValue;
+import com.exadel.aem.toolkit.api.annotations.meta.PropertyMapping;
+import com.exadel.aem.toolkit.api.annotations.meta.PropertyName;
+import com.exadel.aem.toolkit.api.annotations.meta.PropertyScope;
+import com.exadel.aem.toolkit.api.annotations.widgets.common.XmlScope;
+import com.exadel.aem.toolkit.core.util.validation.Validation;
+
+/**
+ * Stores the facts about an annotation type that are needed to render annotation instances to XML: the properties
+ * with their defaults, effective names, scopes, value transformations and validations, and the {@link PropertyMapping}
+ * settings of the type. A descriptor is created once per annotation type upon the first request and is bound to
+ * the type, so that rendering does not need to introspect the same annotation types over again
+ */
+final class AnnotationDescriptor {
+    private static final String ACCESSOR_METHOD_NAME = "apply";
+    private static final Function<Annotation, Object> REFLECTIVE_ACCESSOR = annotation -> null;
+
+    private static final ClassValue<AnnotationDescriptor> DESCRIPTORS = new ClassValue<AnnotationDescriptor>() {
+        @Override
+        protected AnnotationDescriptor computeValue(Class<?> type) {
+            return new AnnotationDescriptor(type);
+        }
+    };
+
+    private final Property[] properties;
+    private final Map<String, Property> propertiesByName;
+    private final boolean mapped;
+    private final String nodePrefix;
+    private final Validation validation;
+
+    /**
+     * Creates the descriptor of the specified annotation type
+     * @param type Annotation type
+     */
+    @SuppressWarnings("unchecked")
+    private AnnotationDescriptor(Class<?> type) {
+        PropertyMapping propertyMapping = type.getDeclaredAnnotation(PropertyMapping.class);
+        String prefix = propertyMapping != null ? propertyMapping.prefix() : StringUtils.EMPTY;
+        this.mapped = propertyMapping != null;
+        this.nodePrefix = prefix.contains(DialogConstants.PATH_SEPARATOR)
+                ? StringUtils.substringBeforeLast(prefix, DialogConstants.PATH_SEPARATOR)
+                : StringUtils.EMPTY;
+        this.validation = type.isAnnotation()
+                ? Validation.forType((Class<? extends Annotation>) type)
+                : Validation.defaultChecker();
+        this.properties = Arrays.stream(type.getDeclaredMethods())
+                .map(method -> new Property(method, propertyMapping, prefix))
+                .toArray(Property[]::new);
+        this.propertiesByName = new HashMap<>();
+        for (Property property : properties) {
+            propertiesByName.putIfAbsent(property.getName(), property);
+        }
+    }
+
+    /**
+     * Gets the descriptor of the specified annotation type
+     * @param type Annotation type
+     * @return {@code AnnotationDescriptor} instance
+     */
+    static AnnotationDescriptor of(Class<?> type) {
+        return DESCRIPTORS.get(type);
+    }
+
+    /**
+     * Gets the properties of the annotation type in the order of declaration
+     * @return Array of {@link Property} objects. The array must not be modified
+     */
+    Property[] getProperties() {
+        return properties;
+    }
+
+    /**
+     * Gets the property with the specified name
+     * @param name Name of the property
+     * @return {@link Property} object, or null
+     */
+    Property getProperty(String name) {
+        return propertiesByName.get(name);
+    }
+
+    /**
+     * Gets whether the annotation type is marked with {@link PropertyMapping}
+     * @return True or false
+     */
+    boolean isMapped() {
+        return mapped;
+    }
+
+    /**
+     * Gets the path of the child node the mapped properties are rendered to, as specified by the {@link PropertyMapping}
+     * prefix
+     * @return String value; empty if the properties are rendered to the current node
+     */
+    String getNodePrefix() {
+        return nodePrefix;
+    }
+
+    /**
+     * Gets the {@link Validation} for instances of the annotation type
+     * @return {@code Validation} instance
+     */
+    Validation getValidation() {
+        return validation;
+    }
+
+    /**
+     * Stores the facts about a single annotation property
+     */
+    static class Property {
+        private final Method method;
+        private final String name;
+        private final Object defaultValue;
+        private final boolean isArray;
+        private final boolean renderable;
+        private final boolean isEnum;
+        private final EnumValue enumModifier;
+        private final String ignoredValue;
+        private final String attributeName;
+        private final boolean mapped;
+        private final String mappedName;
+        private final XmlScope[] scopes;
+        private volatile Validation validation;
+        private volatile Function<Annotation, Object> accessor;
+
+        /**
+         * Creates the property descriptor
+         * @param method {@code Method} representing the annotation property
+         * @param propertyMapping {@code PropertyMapping} of the annotation type, or null
+         * @param prefix {@code PropertyMapping} prefix of the annotation type, or an empty string
+         */
+        private Property(Method method, PropertyMapping propertyMapping, String prefix) {
+            this.method = method;
+            this.name = method.getName();
+            this.defaultValue = method.getDefaultValue();
+            this.isArray = method.getReturnType().isArray();
+            Class<?> plainType = PluginReflectionUtility.getMethodPlainType(method);
+            Class<?> wrappedType = plainType.isEnum() ? String.class : ClassUtils.primitiveToWrapper(plainType);
+            this.renderable = wrappedType.equals(String.class)
+                    || wrappedType.equals(Long.class)
+                    || wrappedType.equals(Double.class)
+                    || wrappedType.equals(Boolean.class);
+            this.isEnum = plainType.isEnum();
+            this.enumModifier = method.getDeclaredAnnotation(EnumValue.class);
+            this.ignoredValue = method.isAnnotationPresent(IgnoreValue.class)
+                    ? method.getAnnotation(IgnoreValue.class).value()
+                    : null;
+
+            PropertyName propertyName = method.getAnnotation(PropertyName.class);
+            this.attributeName = propertyName != null && StringUtils.isNotBlank(propertyName.value())
+                    ? propertyName.value()
+                    : name;
+            String effectiveMappedName = propertyName != null ? propertyName.value() : name;
+            if ((propertyName == null || !propertyName.ignorePrefix()) && StringUtils.isNotBlank(prefix)) {
+                String namePrefix = prefix.contains(DialogConstants.PATH_SEPARATOR)
+                        ? StringUtils.substringAfterLast(prefix, DialogConstants.PATH_SEPARATOR)
+                        : prefix;
+                effectiveMappedName = namePrefix + effectiveMappedName;
+            }
+            this.mappedName = effectiveMappedName;
+            this.mapped = propertyMapping != null
+                    && (ArrayUtils.isEmpty(propertyMapping.mappings()) || ArrayUtils.contains(propertyMapping.mappings(), name))
+                    && !method.isAnnotationPresent(IgnorePropertyMapping.class);
+            this.scopes = method.isAnnotationPresent(PropertyScope.class)
+                    ? method.getAnnotation(PropertyScope.class).value()
+                    : null;
+        }
+
+        /**
+         * Gets the {@code Method} representing the property
+         * @return {@code Method} instance
+         */
+        Method getMethod() {
+            return method;
+        }
+
+        /**
+         * Gets the name of the property
+         * @return String value
+         */
+        String getName() {
+            return name;
+        }
+
+        /**
+         * Gets whether the property returns an array
+         * @return True or false
+         */
+        boolean isArray() {
+            return isArray;
+        }
+
+        /**
+         * Gets whether the values of the property can be rendered to an XML attribute
+         * @return True or false
+         */
+        boolean isRenderable() {
+            return renderable;
+        }
+
+        /**
+         * Gets whether the property returns an enum value or an array of enum values
+         * @return True or false
+         */
+        boolean isEnum() {
+            return isEnum;
+        }
+
+        /**
+         * Gets the {@link EnumValue} setting of the property
+         * @return {@code EnumValue} instance, or null
+         */
+        EnumValue getEnumModifier() {
+            return enumModifier;
+        }
+
+        /**
+         * Gets the value specified with {@link IgnoreValue} for the property
+         * @return String value, or null
+         */
+        String getIgnoredValue() {
+            return ignoredValue;
+        }
+
+        /**
+         * Gets the name of the XML attribute the property is rendered to, with regard to {@link PropertyName}
+         * @return String value
+         */
+        String getAttributeName() {
+            return attributeName;
+        }
+
+        /**
+         * Gets whether the property is rendered when the properties of the annotation are mapped with
+         * {@link PropertyMapping}
+         * @return True or false
+         */
+        boolean isMapped() {
+            return mapped;
+        }
+
+        /**
+         * Gets the name of the XML attribute the property is mapped to, with regard to {@link PropertyName}
+         * and the {@link PropertyMapping} prefix
+         * @return String value
+         */
+        String getMappedName() {
+            return mappedName;
+        }
+
+        /**
+         * Gets whether the property falls within the specified scope. True if no {@link PropertyScope} is specified
+         * for the property
+         * @param scope {@code XmlScope} value
+         * @return True or false
+         */
+        boolean fitsInScope(XmlScope scope) {
+            return scopes == null || ArrayUtils.contains(scopes, scope);
+        }
+
+        /**
+         * Gets the {@link Validation} for the values of the property. The validation is created upon the first request
+         * since most properties are rendered only if they have non-default values
+         * @return {@code Validation} instance
+         */
+        Validation getValidation() {
+            Validation result = validation;
+            if (result == null) {
+                result = Validation.forMethod(method);
+                validation = result;
+            }
+            return result;
+        }
+
+        /**
+         * Gets whether the property of the specified annotation has a value which is not default
+         * @param annotation Annotation instance
+         * @return True or false
+         */
+        boolean isNotDefault(Annotation annotation) {
+            if (defaultValue == null) {
+                return true;
+            }
+            try {
+                Object invocationResult = getValue(annotation);
+                if (isArray && ArrayUtils.isEmpty((Object[]) invocationResult)) {
+                    return false;
+                }
+                return !defaultValue.equals(invocationResult);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                return true;
+            }
+        }
+
+        /**
+         * Retrieves the value of the property from the specified annotation. For annotation types visible to the plugin,
+         * such as the built-in widget annotations, the value is retrieved with an accessor generated upon the first call,
+         * which avoids the overhead of {@code Method.invoke()}. For other annotation types, e.g. custom annotations
+         * loaded from the project classpath, reflection is used
+         * @param annotation Annotation instance
+         * @return Property value
+         * @throws IllegalAccessException in case the property cannot be accessed reflectively
+         * @throws InvocationTargetException in case the property method throws an exception
+         */
+        Object getValue(Annotation annotation) throws IllegalAccessException, InvocationTargetException {
+            Function<Annotation, Object> currentAccessor = getAccessor();
+            return currentAccessor != REFLECTIVE_ACCESSOR
+                    ? currentAccessor.apply(annotation)
+                    : method.invoke(annotation);
+        }
+
+        /**
+         * Gets whether the value of the property is retrieved with a generated accessor rather than via reflection
+         * @return True or false
+         */
+        boolean hasGeneratedAccessor() {
+            return getAccessor() != REFLECTIVE_ACCESSOR;
+        }
+
+        /**
+         * Retrieves the accessor of the property, generating it upon the first call
+         * @return {@code Function} instance, or {@link #REFLECTIVE_ACCESSOR} if reflection is used
+         */
+        private Function<Annotation, Object> getAccessor() {
+            Function<Annotation, Object> currentAccessor = accessor;
+            if (currentAccessor == null) {
+                currentAccessor = createAccessor(method);
+                accessor = currentAccessor;
+            }
+            return currentAccessor;
+        }
+
+        /**
+         * Generates a function that calls the specified annotation method directly, like a method reference would
+         * @param method {@code Method} representing the annotation property
+         * @return {@code Function} instance, or {@link #REFLECTIVE_ACCESSOR} if the function cannot be generated
+         */
+        @SuppressWarnings("unchecked")
+        private static Function<Annotation, Object> createAccessor(Method method) {
+            Class<?> type = method.getDeclaringClass();
+            try {
+                // the generated function is defined by the plugin class loader, therefore it must be able to see the type
+                if (Class.forName(type.getName(), false, AnnotationDescriptor.class.getClassLoader()) != type) {
+                    return REFLECTIVE_ACCESSOR;
+                }
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                MethodHandle getter = lookup.findVirtual(type, method.getName(), MethodType.methodType(method.getReturnType()));
+                CallSite callSite = LambdaMetafactory.metafactory(
+                        lookup,
+                        ACCESSOR_METHOD_NAME,
+                        MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class),
+                        getter,
+                        MethodType.methodType(ClassUtils.primitiveToWrapper(method.getReturnType()), type));
+                return (Function<Annotation, Object>) callSite.getTarget().invoke();
+            } catch (VirtualMachineError e) {
+                throw e;
+            } catch (Throwable e) {
+                // MethodHandle.invoke() declares Throwable; any other failure here only means the reflective path is used
+                return REFLECTIVE_ACCESSOR;
+            }
+        }
+    }
+}
@@ -0,0 +1,476 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.exadel.aem.toolkit.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import com.google.common.io.ByteStreams;
+
+import com.exadel.aem.toolkit.api.annotations.main.Dialog;
+import com.exadel.aem.toolkit.api.handlers.DialogHandler;
+import com.exadel.aem.toolkit.api.handlers.DialogWidgetHandler;
+import com.exadel.aem.toolkit.api.processing.ComponentIndexProcessor;
+
+/**
+ * Reads class files of a classpath element, either a folder or an archive, and collects the facts needed to discover
+ * AEM components and custom handlers into a {@link ClassIndex}. If an archive contains the indices written at compile
+ * time by {@link ComponentIndexProcessor}, these are read instead of any class file. So are the indices within a folder,
+ * provided that no class file in the folder is newer than them; otherwise, the folder may contain classes compiled
+ * without the processor, e.g. by another JVM language or with processing turned off. Otherwise, only the constant pool
+ * and the header of a class file are parsed, unless the constant pool refers to the {@code @Dialog} annotation; then
+ * the class-level {@code RuntimeVisibleAnnotations} attribute is read as well. No class is loaded
+ */
+class ClassFileScanner {
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final int ACC_INTERFACE = 0x0200;
+    private static final int ACC_ABSTRACT = 0x0400;
+
+    private static final int TAG_UTF8 = 1;
+    private static final int TAG_INTEGER = 3;
+    private static final int TAG_FLOAT = 4;
+    private static final int TAG_LONG = 5;
+    private static final int TAG_DOUBLE = 6;
+    private static final int TAG_CLASS = 7;
+    private static final int TAG_STRING = 8;
+    private static final int TAG_FIELD_REF = 9;
+    private static final int TAG_METHOD_REF = 10;
+    private static final int TAG_INTERFACE_METHOD_REF = 11;
+    private static final int TAG_NAME_AND_TYPE = 12;
+    private static final int TAG_METHOD_HANDLE = 15;
+    private static final int TAG_METHOD_TYPE = 16;
+    private static final int TAG_DYNAMIC = 17;
+    private static final int TAG_INVOKE_DYNAMIC = 18;
+    private static final int TAG_MODULE = 19;
+    private static final int TAG_PACKAGE = 20;
+
+    static final String CLASS_FILE_EXTENSION = ".class";
+    private static final String META_INF_FOLDER = "META-INF/";
+    private static final String MODULE_INFO = "module-info.class";
+    private static final String PACKAGE_INFO = "package-info.class";
+
+    private static final List<String> HANDLER_TYPES = Arrays.asList(DialogWidgetHandler.class.getName(), DialogHandler.class.getName());
+
+    private static final byte[] DIALOG_DESCRIPTOR = ("L" + Dialog.class.getName().replace('.', '/') + ";").getBytes(StandardCharsets.UTF_8);
+    private static final byte[] RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations".getBytes(StandardCharsets.UTF_8);
+
+    private ClassFileScanner() {
+    }
+
+    /**
+     * Scans the specified classpath element. Class files that cannot be parsed are skipped
+     * @param element {@code File} representing a folder or an archive
+     * @return {@code ClassIndex} instance
+     * @throws IOException in case the element cannot be read
+     */
+    static ClassIndex scan(File element) throws IOException {
+        return scan(element, null);
+    }
+
+    /**
+     * Scans the specified classpath element. Class files that cannot be parsed are skipped
+     * @param element {@code File} representing a folder or an archive
+     * @param classFilesModified The latest modification time of a class file within the folder, if already known
+     *                           to the caller; null to look it up
+     * @return {@code ClassIndex} instance
+     * @throws IOException in case the element cannot be read
+     */
+    static ClassIndex scan(File element, Long classFilesModified) throws IOException {
+        ClassIndex.Builder builder = new ClassIndex.Builder();
+        if (element.isDirectory()) {
+            Path componentsIndex = element.toPath().resolve(ComponentIndexProcessor.COMPONENTS_INDEX);
+            Path handlersIndex = element.toPath().resolve(ComponentIndexProcessor.HANDLERS_INDEX);
+            if (isIndexUpToDate(element.toPath(), componentsIndex, handlersIndex, classFilesModified)) {
+                readIndex(Files.readAllBytes(componentsIndex), Files.readAllBytes(handlersIndex), builder);
+            } else {
+                scanDirectory(element.toPath(), builder);
+            }
+        } else if (element.isFile()) {
+            scanArchive(element, builder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gets whether the compile-time indices within a folder can be used instead of the class files, i.e. whether both
+     * indices exist and no class file is newer than either of them
+     * @param directory {@code Path} to the folder
+     * @param componentsIndex {@code Path} to the components index
+     * @param handlersIndex {@code Path} to the handlers index
+     * @param classFilesModified The latest modification time of a class file within the folder, or null to look it up
+     * @return True or false
+     * @throws IOException in case the folder cannot be read
+     */
+    private static boolean isIndexUpToDate(Path directory, Path componentsIndex, Path handlersIndex, Long classFilesModified) throws IOException {
+        if (!Files.isRegularFile(componentsIndex) || !Files.isRegularFile(handlersIndex)) {
+            return false;
+        }
+        long indexModified = Math.min(
+                Files.getLastModifiedTime(componentsIndex).toMillis(),
+                Files.getLastModifiedTime(handlersIndex).toMillis());
+        if (classFilesModified != null) {
+            return classFilesModified <= indexModified;
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().endsWith(CLASS_FILE_EXTENSION))
+                    .noneMatch(file -> getLastModified(file) > indexModified);
+        }
+    }
+
+    /**
+     * Gets the modification time of the specified file in milliseconds
+     * @param file {@code Path} to the file
+     * @return Long value; {@code Long.MAX_VALUE} if the file cannot be read, so that it is considered newer than any other
+     */
+    private static long getLastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /**
+     * Scans the class files within a folder and its sub-folders
+     * @param directory {@code Path} to the folder
+     * @param builder {@link ClassIndex.Builder} to store the facts to
+     * @throws IOException in case the folder cannot be read
+     */
+    private static void scanDirectory(Path directory, ClassIndex.Builder builder) throws IOException {
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(directory)) {
+            classFiles = files
+                    .filter(file -> isScanned(file.getFileName().toString()))
+                    .filter(Files::isRegularFile)
+                    .collect(Collectors.toList());
+        }
+        for (Path classFile : classFiles) {
+            read(Files.readAllBytes(classFile), builder);
+        }
+    }
+
+    /**
+     * Scans the class files within an archive. Entries are read in place via the archive's central directory, with
+     * no extraction to disk
+     * @param archive {@code File} representing the archive
+     * @param builder {@link ClassIndex.Builder} to store the facts to
+     * @throws IOException in case the archive cannot be read
+     */
+    private static void scanArchive(File archive, ClassIndex.Builder builder) throws IOException {
+        try (ZipFile zipFile = new ZipFile(archive)) {
+            ZipEntry componentsIndex = zipFile.getEntry(ComponentIndexProcessor.COMPONENTS_INDEX);
+            ZipEntry handlersIndex = zipFile.getEntry(ComponentIndexProcessor.HANDLERS_INDEX);
+            if (componentsIndex != null && handlersIndex != null) {
+                try (InputStream components = zipFile.getInputStream(componentsIndex);
+                     InputStream handlers = zipFile.getInputStream(handlersIndex)) {
+                    readIndex(ByteStreams.toByteArray(components), ByteStreams.toByteArray(handlers), builder);
+                }
+                return;
+            }
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            byte[] buffer = new byte[0];
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory() || entry.getName().startsWith(META_INF_FOLDER) || !isScanned(entry.getName())) {
+                    continue;
+                }
+                int size = (int) entry.getSize();
+                if (size < 0) {
+                    try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                        read(ByteStreams.toByteArray(inputStream), builder);
+                    }
+                    continue;
+                }
+                if (buffer.length < size) {
+                    buffer = new byte[Math.max(size, buffer.length * 2)];
+                }
+                try (InputStream inputStream = zipFile.getInputStream(entry)) {
+                    ByteStreams.readFully(inputStream, buffer, 0, size);
+                }
+                read(ByteBuffer.wrap(buffer, 0, size).slice(), builder);
+            }
+        }
+    }
+
+    /**
+     * Stores the facts from the compile-time indices. A component is stored as an annotated type, and a handler
+     * as a direct subtype of the handler interface it implements. Since the index does not tell abstract handlers
+     * from concrete ones, these are told apart when handler classes are loaded. Entries for annotation types are
+     * not needed to discover handlers and are skipped
+     * @param componentsIndex Byte array containing the components index
+     * @param handlersIndex Byte array containing the handlers index
+     * @param builder {@link ClassIndex.Builder} to store the facts to
+     */
+    private static void readIndex(byte[] componentsIndex, byte[] handlersIndex, ClassIndex.Builder builder) {
+        for (String[] entry : parseIndex(componentsIndex)) {
+            builder.add(entry[0], false, null, new String[0], true);
+        }
+        for (String[] entry : parseIndex(handlersIndex)) {
+            if (HANDLER_TYPES.contains(entry[1])) {
+                builder.add(entry[0], false, null, new String[] {entry[1]}, false);
+            }
+        }
+    }
+
+    /**
+     * Splits the lines of a compile-time index into pairs of a class name and a value
+     * @param index Byte array containing the index
+     * @return List of string arrays
+     */
+    private static List<String[]> parseIndex(byte[] index) {
+        return Arrays.stream(new String(index, StandardCharsets.UTF_8).split("\\R"))
+                .map(line -> line.split(ComponentIndexProcessor.INDEX_SEPARATOR, 2))
+                .filter(entry -> entry.length == 2 && !entry[0].isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets whether the file or archive entry with the specified name is a class file to scan
+     * @param name Name of a file or an archive entry
+     * @return True or false
+     */
+    private static boolean isScanned(String name) {
+        return name.endsWith(CLASS_FILE_EXTENSION) && !name.endsWith(MODULE_INFO) && !name.endsWith(PACKAGE_INFO);
+    }
+
+    /**
+     * Parses a class file
+     * @param bytes Byte array containing the class file
+     * @param builder {@link ClassIndex.Builder} to store the facts to
+     */
+    private static void read(byte[] bytes, ClassIndex.Builder builder) {
+        read(ByteBuffer.wrap(bytes), builder);
+    }
+
+    /**
+     * Parses a class file. Malformed class files are skipped
+     * @param buffer {@code ByteBuffer} positioned at the start of the class file
+     * @param builder {@link ClassIndex.Builder} to store the facts to
+     */
+    private static void read(ByteBuffer buffer, ClassIndex.Builder builder) {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                return;
+            }
+            buffer.position(buffer.position() + 4); // minor and major versions
+            int constantPoolCount = readUnsignedShort(buffer);
+            int[] offsets = new int[constantPoolCount];
+            boolean annotationReferenced = false;
+            for (int i = 1; i < constantPoolCount; i++) {
+                int tag = buffer.get();
+                offsets[i] = buffer.position();
+                switch (tag) {
+                    case TAG_UTF8:
+                        int length = readUnsignedShort(buffer);
+                        annotationReferenced |= equals(buffer, buffer.position(), length, DIALOG_DESCRIPTOR);
+                        skip(buffer, length);
+                        break;
+                    case TAG_CLASS:
+                    case TAG_STRING:
+                    case TAG_METHOD_TYPE:
+                    case TAG_MODULE:
+                    case TAG_PACKAGE:
+                        skip(buffer, 2);
+                        break;
+                    case TAG_METHOD_HANDLE:
+                        skip(buffer, 3);
+                        break;
+                    case TAG_INTEGER:
+                    case TAG_FLOAT:
+                    case TAG_FIELD_REF:
+                    case TAG_METHOD_REF:
+                    case TAG_INTERFACE_METHOD_REF:
+                    case TAG_NAME_AND_TYPE:
+                    case TAG_DYNAMIC:
+                    case TAG_INVOKE_DYNAMIC:
+                        skip(buffer, 4);
+                        break;
+                    case TAG_LONG:
+                    case TAG_DOUBLE:
+                        skip(buffer, 8);
+                        i++; // eight-byte constants take up two entries
+                        break;
+                    default:
+                        return;
+                }
+            }
+            int accessFlags = readUnsignedShort(buffer);
+            String name = getClassName(buffer, offsets, readUnsignedShort(buffer));
+            int superIndex = readUnsignedShort(buffer);
+            String superName = superIndex != 0 ? getClassName(buffer, offsets, superIndex) : null;
+            String[] interfaces = new String[readUnsignedShort(buffer)];
+            for (int i = 0; i < interfaces.length; i++) {
+                interfaces[i] = getClassName(buffer, offsets, readUnsignedShort(buffer));
+            }
+            boolean annotated = annotationReferenced && isAnnotated(buffer, offsets);
+            builder.add(name, (accessFlags & (ACC_INTERFACE | ACC_ABSTRACT)) != 0, superName, interfaces, annotated);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            // the file is not a valid class file, so it is skipped the same way a class loader would refuse it
+        }
+    }
+
+    /**
+     * Tests whether the class, which fields and methods follow the current position of the buffer, is annotated with
+     * {@code @Dialog}
+     * @param buffer {@code ByteBuffer} positioned at the fields count of the class file
+     * @param offsets Offsets of constant pool entries
+     * @return True or false
+     */
+    private static boolean isAnnotated(ByteBuffer buffer, int[] offsets) {
+        skipMembers(buffer); // fields
+        skipMembers(buffer); // methods
+        int attributesCount = readUnsignedShort(buffer);
+        for (int i = 0; i < attributesCount; i++) {
+            int nameIndex = readUnsignedShort(buffer);
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+            if (isUtf8(buffer, offsets[nameIndex], RUNTIME_VISIBLE_ANNOTATIONS)) {
+                int annotationsCount = readUnsignedShort(buffer);
+                for (int j = 0; j < annotationsCount; j++) {
+                    if (isUtf8(buffer, offsets[readUnsignedShort(buffer)], DIALOG_DESCRIPTOR)) {
+                        return true;
+                    }
+                    skipElementValuePairs(buffer);
+                }
+            }
+            buffer.position(end);
+        }
+        return false;
+    }
+
+    /**
+     * Skips the fields or methods of a class file
+     * @param buffer {@code ByteBuffer} positioned at the count of members
+     */
+    private static void skipMembers(ByteBuffer buffer) {
+        int count = readUnsignedShort(buffer);
+        for (int i = 0; i < count; i++) {
+            skip(buffer, 6); // access flags, name and descriptor
+            int attributesCount = readUnsignedShort(buffer);
+            for (int j = 0; j < attributesCount; j++) {
+                skip(buffer, 2);
+                skip(buffer, buffer.getInt());
+            }
+        }
+    }
+
+    /**
+     * Skips the element-value pairs of an annotation
+     * @param buffer {@code ByteBuffer} positioned at the count of pairs
+     */
+    private static void skipElementValuePairs(ByteBuffer buffer) {
+        int count = readUnsignedShort(buffer);
+        for (int i = 0; i < count; i++) {
+            skip(buffer, 2); // element name
+            skipElementValue(buffer);
+        }
+    }
+
+    /**
+     * Skips an element value of an annotation
+     * @param buffer {@code ByteBuffer} positioned at the tag of the value
+     */
+    private static void skipElementValue(ByteBuffer buffer) {
+        char tag = (char) buffer.get();
+        switch (tag) {
+            case 'e':
+                skip(buffer, 4);
+                break;
+            case '@':
+                skip(buffer, 2);
+                skipElementValuePairs(buffer);
+                break;
+            case '[':
+                int count = readUnsignedShort(buffer);
+                for (int i = 0; i < count; i++) {
+                    skipElementValue(buffer);
+                }
+                break;
+            default:
+                skip(buffer, 2);
+        }
+    }
+
+    /**
+     * Gets the binary name of a class referenced by a {@code CONSTANT_Class} entry
+     * @param buffer {@code ByteBuffer} containing the class file
+     * @param offsets Offsets of constant pool entries
+     * @param classIndex Index of the {@code CONSTANT_Class} entry
+     * @return String value
+     */
+    private static String getClassName(ByteBuffer buffer, int[] offsets, int classIndex) {
+        int utf8Offset = offsets[Short.toUnsignedInt(buffer.getShort(offsets[classIndex]))];
+        int length = Short.toUnsignedInt(buffer.getShort(utf8Offset));
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            byte value = buffer.get(utf8Offset + 2 + i);
+            bytes[i] = value == '/' ? (byte) '.' : value;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Tests whether a {@code CONSTANT_Utf8} entry equals the specified bytes
+     * @param buffer {@code ByteBuffer} containing the class file
+     * @param offset Offset of the entry
+     * @param expected Expected bytes
+     * @return True or false
+     */
+    private static boolean isUtf8(ByteBuffer buffer, int offset, byte[] expected) {
+        return equals(buffer, offset + 2, Short.toUnsignedInt(buffer.getShort(offset)), expected);
+    }
+
+    /**
+     * Tests whether the specified region of the buffer equals the specified bytes
+     * @param buffer {@code ByteBuffer} containing the class file
+     * @param offset Start of the region
+     * @param length Length of the region
+     * @param expected Expected bytes
+     * @return True or false
+     */
+    private static boolean equals(ByteBuffer buffer, int offset, int length, byte[] expected) {
+        if (length != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int readUnsignedShort(ByteBuffer buffer) {
+        return Short.toUnsignedInt(buffer.getShort());
+    }
+
+    private static void skip(ByteBuffer buffer, int length) {
+        buffer.position(buffer.position() + length);
+    }
+}
@@ -0,0 +1,300 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.exadel.aem.toolkit.core.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Stores the facts about classes of one or several classpath elements that the plugin needs to discover AEM components
+ * and custom handlers without loading any class, vid. the names of {@code @Dialog}-annotated classes and the direct
+ * supertypes of classes. Classes that extend {@code Object} and implement no interfaces are not stored since they
+ * cannot be handlers. Instances are immutable and can be stored in binary form, so that the results of scanning
+ * are reused between builds
+ * @see ClassFileScanner
+ */
+class ClassIndex {
+    static final ClassIndex EMPTY = new ClassIndex(Collections.emptySet(), Collections.emptyMap(), Collections.emptySet());
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String UNSUPPORTED_FORMAT_EXCEPTION_MESSAGE = "Unsupported class index format: ";
+
+    private final Set<String> annotatedTypes;
+    private final Map<String, String[]> supertypes;
+    private final Set<String> abstractTypes;
+
+    private ClassIndex(Set<String> annotatedTypes, Map<String, String[]> supertypes, Set<String> abstractTypes) {
+        this.annotatedTypes = annotatedTypes;
+        this.supertypes = supertypes;
+        this.abstractTypes = abstractTypes;
+    }
+
+    /**
+     * Gets the names of {@code @Dialog}-annotated classes
+     * @return Unmodifiable set of class names
+     */
+    Set<String> getAnnotatedTypes() {
+        return Collections.unmodifiableSet(annotatedTypes);
+    }
+
+    /**
+     * Gets the names of non-abstract classes that extend or implement the specified type, directly or via any number
+     * of intermediate supertypes stored in this index
+     * @param typeName Name of the class or interface
+     * @return Sorted list of class names
+     */
+    List<String> getSubTypesOf(String typeName) {
+        Map<String, Boolean> resolved = new HashMap<>();
+        return supertypes.keySet().stream()
+                .filter(type -> !abstractTypes.contains(type))
+                .filter(type -> isSubTypeOf(type, typeName, resolved))
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the number of classes stored in this index
+     * @return Integer value
+     */
+    int size() {
+        Set<String> types = new HashSet<>(supertypes.keySet());
+        types.addAll(annotatedTypes);
+        return types.size();
+    }
+
+    /**
+     * Tests whether the specified type has the target type among its supertypes. Results are memoized so that shared
+     * supertypes are traversed once
+     * @param type Name of the type to test
+     * @param targetType Name of the supertype
+     * @param resolved Map storing the results for the types already tested
+     * @return True or false
+     */
+    private boolean isSubTypeOf(String type, String targetType, Map<String, Boolean> resolved) {
+        Boolean known = resolved.get(type);
+        if (known != null) {
+            return known;
+        }
+        // the type is marked as not matching beforehand to guard against cyclic references in malformed class files
+        resolved.put(type, false);
+        boolean result = false;
+        String[] parents = supertypes.get(type);
+        if (parents != null) {
+            for (String parent : parents) {
+                if (parent.equals(targetType) || isSubTypeOf(parent, targetType, resolved)) {
+                    result = true;
+                    break;
+                }
+            }
+        }
+        resolved.put(type, result);
+        return result;
+    }
+
+    /**
+     * Combines the indices of several classpath elements. If a class is present in more than one element, the facts
+     * from the element that comes first are used, as a class loader would do
+     * @param indices List of {@code ClassIndex} instances in classpath order
+     * @return New {@code ClassIndex} instance
+     */
+    static ClassIndex merge(List<ClassIndex> indices) {
+        if (indices.size() == 1) {
+            return indices.get(0);
+        }
+        Set<String> annotatedTypes = new HashSet<>();
+        Map<String, String[]> supertypes = new HashMap<>();
+        Set<String> abstractTypes = new HashSet<>();
+        for (ClassIndex index : indices) {
+            annotatedTypes.addAll(index.annotatedTypes);
+            index.supertypes.forEach(supertypes::putIfAbsent);
+            abstractTypes.addAll(index.abstractTypes);
+        }
+        return new ClassIndex(annotatedTypes, supertypes, abstractTypes);
+    }
+
+    /**
+     * Writes this index in binary form. Every name is written once to the table of names, and then referred to by its
+     * position in the table
+     * @param output {@code DataOutput} to write to
+     * @throws IOException in case the index cannot be written
+     */
+    void writeTo(DataOutput output) throws IOException {
+        Map<String, Integer> positions = new HashMap<>();
+        List<String> names = new ArrayList<>();
+        annotatedTypes.forEach(name -> positions.computeIfAbsent(name, key -> register(names, key)));
+        supertypes.forEach((name, parents) -> {
+            positions.computeIfAbsent(name, key -> register(names, key));
+            for (String parent : parents) {
+                positions.computeIfAbsent(parent, key -> register(names, key));
+            }
+        });
+
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(names.size());
+        for (String name : names) {
+            output.writeUTF(name);
+        }
+        writePositions(output, annotatedTypes, positions);
+        output.writeInt(supertypes.size());
+        for (Map.Entry<String, String[]> entry : supertypes.entrySet()) {
+            output.writeInt(positions.get(entry.getKey()));
+            output.writeInt(entry.getValue().length);
+            for (String parent : entry.getValue()) {
+                output.writeInt(positions.get(parent));
+            }
+        }
+        writePositions(output, abstractTypes, positions);
+    }
+
+    /**
+     * Reads an index previously written with {@link ClassIndex#writeTo(DataOutput)}
+     * @param input {@code DataInput} to read from
+     * @return New {@code ClassIndex} instance
+     * @throws IOException in case the index cannot be read or has been written in an unsupported format
+     */
+    static ClassIndex readFrom(DataInput input) throws IOException {
+        int version = input.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException(UNSUPPORTED_FORMAT_EXCEPTION_MESSAGE + version);
+        }
+        String[] names = new String[input.readInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = input.readUTF();
+        }
+        Set<String> annotatedTypes = readNames(input, names);
+        int supertypesCount = input.readInt();
+        Map<String, String[]> supertypes = new HashMap<>(supertypesCount * 4 / 3 + 1);
+        for (int i = 0; i < supertypesCount; i++) {
+            String name = names[input.readInt()];
+            String[] parents = new String[input.readInt()];
+            for (int j = 0; j < parents.length; j++) {
+                parents[j] = names[input.readInt()];
+            }
+            supertypes.put(name, parents);
+        }
+        Set<String> abstractTypes = readNames(input, names);
+        return new ClassIndex(annotatedTypes, supertypes, abstractTypes);
+    }
+
+    /**
+     * Appends a name to the table of names
+     * @param names Table of names
+     * @param name Name to append
+     * @return Position of the name in the table
+     */
+    private static int register(List<String> names, String name) {
+        names.add(name);
+        return names.size() - 1;
+    }
+
+    /**
+     * Writes the positions of the specified names in the table of names
+     * @param output {@code DataOutput} to write to
+     * @param values Collection of names
+     * @param positions Map of positions of names in the table
+     * @throws IOException in case the data cannot be written
+     */
+    private static void writePositions(DataOutput output, Collection<String> values, Map<String, Integer> positions) throws IOException {
+        output.writeInt(values.size());
+        for (String value : values) {
+            output.writeInt(positions.get(value));
+        }
+    }
+
+    /**
+     * Reads a set of names stored as positions in the table of names
+     * @param input {@code DataInput} to read from
+     * @param names Table of names
+     * @return Set of names
+     * @throws IOException in case the data cannot be read
+     */
+    private static Set<String> readNames(DataInput input, String[] names) throws IOException {
+        int count = input.readInt();
+        Set<String> result = new HashSet<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            result.add(names[input.readInt()]);
+        }
+        return result;
+    }
+
+    /**
+     * Accumulates the facts about classes while a classpath element is being scanned
+     */
+    static class Builder {
+        private static final String OBJECT_CLASS_NAME = Object.class.getName();
+
+        private final Set<String> annotatedTypes = new HashSet<>();
+        private final Map<String, String[]> supertypes = new HashMap<>();
+        private final Set<String> abstractTypes = new HashSet<>();
+        private final Map<String, String> names = new HashMap<>();
+
+        /**
+         * Stores the facts about a class
+         * @param name Name of the class
+         * @param isAbstract True if the class is abstract or is an interface
+         * @param superName Name of the superclass, or null
+         * @param interfaces Names of the implemented interfaces
+         * @param annotated True if the class is annotated with {@code @Dialog}
+         */
+        void add(String name, boolean isAbstract, String superName, String[] interfaces, boolean annotated) {
+            if (annotated) {
+                annotatedTypes.add(name);
+            }
+            boolean hasSuperclass = superName != null && !OBJECT_CLASS_NAME.equals(superName);
+            if (!hasSuperclass && interfaces.length == 0) {
+                return;
+            }
+            String[] parents = new String[interfaces.length + (hasSuperclass ? 1 : 0)];
+            for (int i = 0; i < interfaces.length; i++) {
+                parents[i] = intern(interfaces[i]);
+            }
+            if (hasSuperclass) {
+                parents[interfaces.length] = intern(superName);
+            }
+            supertypes.put(name, parents);
+            if (isAbstract) {
+                abstractTypes.add(name);
+            }
+        }
+
+        /**
+         * Gets the single instance of the specified name within this builder, since the same supertypes are referenced
+         * by many classes
+         * @param name Name of a type
+         * @return String value
+         */
+        private String intern(String name) {
+            return names.computeIfAbsent(name, key -> key);
+        }
+
+        /**
+         * Creates the {@link ClassIndex} from the facts stored
+         * @return {@code ClassIndex} instance
+         */
+        ClassIndex build() {
+            return new ClassIndex(annotatedTypes, supertypes, abstractTypes);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.exadel.aem.toolkit.core.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.MoreFiles;
+
+import com.exadel.aem.toolkit.core.exceptions.PluginException;
+import com.exadel.aem.toolkit.core.maven.PluginRuntime;
+
+/**
+ * Stores the results of scanning particular classpath elements so that they can be shared between several
+ * {@link PluginReflectionUtility} instances, e.g. between executions of the plugin in different modules of a Maven
+ * reactor, or between builds run in a long-lived JVM. Results are stored together with the fingerprint of a classpath
+ * element, so that an element that has been changed (such as the output folder of a module rebuilt within the same
+ * session) is scanned anew.
+ * <p>If a storage folder is specified, the results are also persisted to disk and reused by subsequent builds. An
+ * archive is keyed by the checksum and the size of its content, so that the same library is scanned once regardless
+ * of where it is located. A folder is keyed by its path and the paths, sizes and modification times of every file
+ * within it</p>
+ */
+public class ClasspathScanCache {
+    private static final Logger LOG = LoggerFactory.getLogger("AEM Authoring Toolkit");
+
+    private static final String FINGERPRINT_SEPARATOR = "|";
+    private static final String MISSING_ELEMENT_MARKER = "missing";
+    private static final String ENTRY_EXTENSION = ".idx";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final String CANNOT_STORE_ENTRY_MESSAGE = "Could not store scan cache entry for {}";
+    private static final String SCAN_FAILED_EXCEPTION_MESSAGE = "Classpath scanning failed";
+    private static final String SCAN_INTERRUPTED_EXCEPTION_MESSAGE = "Classpath scanning interrupted";
+
+    private final ConcurrentMap<String, ScanResult> scanResults = new ConcurrentHashMap<>();
+    private final Path directory;
+    private final int threads;
+
+    /**
+     * Default constructor. Creates a cache that keeps scan results in memory only and scans classpath elements
+     * on all the available processors
+     */
+    public ClasspathScanCache() {
+        this(null, 0);
+    }
+
+    /**
+     * Creates a cache that persists scan results to the specified folder and scans classpath elements on all the available
+     * processors
+     * @param directory {@code Path} to the folder in which scan results are stored, or null to keep them in memory only
+     */
+    public ClasspathScanCache(Path directory) {
+        this(directory, 0);
+    }
+
+    /**
+     * Creates a cache that persists scan results to the specified folder
+     * @param directory {@code Path} to the folder in which scan results are stored, or null to keep them in memory only
+     * @param threads Number of threads to scan classpath elements with; a value less than {@code 1} stands for
+     *                the number of available processors
+     */
+    public ClasspathScanCache(Path directory, int threads) {
+        this.directory = directory;
+        this.threads = threads;
+    }
+
+    /**
+     * Retrieves the results of scanning the specified classpath elements in the order of the elements. Elements that
+     * have not been scanned yet are scanned concurrently on a fork-join pool if more than one thread is allowed
+     * @param elements List of paths to the classpath elements
+     * @return List of {@link ClassIndex} instances
+     */
+    List<ClassIndex> get(List<String> elements) {
+        int effectiveThreads = Math.min(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), elements.size());
+        if (effectiveThreads <= 1) {
+            return elements.stream().map(this::get).collect(Collectors.toList());
+        }
+        List<ForkJoinTask<ClassIndex>> tasks = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(effectiveThreads);
+        try {
+            for (String element : elements) {
+                tasks.add(pool.submit(PluginRuntime.forked(() -> get(element))));
+            }
+            List<ClassIndex> result = new ArrayList<>();
+            for (ForkJoinTask<ClassIndex> task : tasks) {
+                result.add(task.get());
+            }
+            return result;
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new PluginException(SCAN_FAILED_EXCEPTION_MESSAGE, e);
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new PluginException(SCAN_INTERRUPTED_EXCEPTION_MESSAGE, e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Retrieves the results of scanning the specified classpath element, performing the scan as necessary. If several
+     * threads request the same element simultaneously, the scan is performed once
+     * @param element Path to the classpath element
+     * @return {@link ClassIndex} instance holding the scan results
+     */
+    ClassIndex get(String element) {
+        File file = new File(element);
+        ElementState state = ElementState.of(file);
+        return scanResults
+                .compute(file.getAbsolutePath(), (path, existing) -> existing != null && existing.fingerprint.equals(state.fingerprint)
+                        ? existing
+                        : new ScanResult(state.fingerprint, Suppliers.memoize(() -> load(file, state))))
+                .index
+                .get();
+    }
+
+    /**
+     * Gets the number of classpath elements which scan results are currently stored
+     * @return Integer value
+     */
+    public int size() {
+        return scanResults.size();
+    }
+
+    /**
+     * Discards the scan results of all the classpath elements except for the specified ones
+     * @param elements Collection of paths to the classpath elements to retain
+     */
+    public void retain(Collection<String> elements) {
+        Set<String> retainedPaths = elements.stream()
+                .map(element -> new File(element).getAbsolutePath())
+                .collect(Collectors.toSet());
+        scanResults.keySet().retainAll(retainedPaths);
+    }
+
+    /**
+     * Computes the fingerprint of a set of classpath elements, so that it changes whenever any of the elements changes
+     * @param elements List of paths to classpath elements
+     * @return String value
+     */
+    public static String getFingerprint(List<String> elements) {
+        return elements.stream()
+                .map(File::new)
+                .map(element -> ElementState.of(element).fingerprint)
+                .collect(Collectors.joining(File.pathSeparator));
+    }
+
+    /**
+     * Retrieves the scan results for the specified classpath element from the storage folder, or else scans the element
+     * and stores the results. Results of a scan that failed are not stored
+     * @param element {@code File} representing the classpath element
+     * @param state {@link ElementState} of the classpath element computed before the lookup
+     * @return {@link ClassIndex} instance
+     */
+    private ClassIndex load(File element, ElementState state) {
+        String key = directory != null ? getStorageKey(element, state) : null;
+        Path entryPath = key != null ? directory.resolve(key + ENTRY_EXTENSION) : null;
+        if (entryPath != null && Files.isRegularFile(entryPath)) {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(entryPath)))) {
+                ClassIndex result = ClassIndex.readFrom(input);
+                LOG.debug("Restored scan results for {} from cache", element);
+                return result;
+            } catch (IOException | IndexOutOfBoundsException e) {
+                LOG.debug("Could not read scan cache entry {}", entryPath, e);
+            }
+        }
+        ClassIndex result;
+        try {
+            result = ClassFileScanner.scan(element, state.classFilesModified);
+        } catch (IOException e) {
+            PluginRuntime.context().getExceptionHandler().handle(e);
+            return ClassIndex.EMPTY;
+        }
+        if (entryPath != null) {
+            store(entryPath, result, element);
+        }
+        return result;
+    }
+
+    /**
+     * Writes the scan results to the storage folder. The entry is first written to a temporary file and then moved
+     * to its place, so that a concurrently running build never sees an incomplete entry
+     * @param entryPath {@code Path} to the entry file
+     * @param index {@link ClassIndex} instance to store
+     * @param element {@code File} representing the classpath element
+     */
+    private static void store(Path entryPath, ClassIndex index, File element) {
+        Path tempPath = null;
+        try {
+            Files.createDirectories(entryPath.getParent());
+            tempPath = Files.createTempFile(entryPath.getParent(), entryPath.getFileName().toString(), TEMP_FILE_SUFFIX);
+            try (OutputStream outputStream = Files.newOutputStream(tempPath);
+                 DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream))) {
+                index.writeTo(output);
+            }
+            Files.move(tempPath, entryPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            tempPath = null;
+        } catch (AtomicMoveNotSupportedException e) {
+            LOG.debug(CANNOT_STORE_ENTRY_MESSAGE, element, e);
+        } catch (IOException e) {
+            LOG.warn(CANNOT_STORE_ENTRY_MESSAGE, element, e);
+        } finally {
+            if (tempPath != null) {
+                try {
+                    Files.deleteIfExists(tempPath);
+                } catch (IOException e) {
+                    LOG.debug("Could not delete {}", tempPath, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the key under which the scan results for a classpath element are persisted. For a folder, the hash
+     * computed along with the fingerprint is reused, so that the folder is not walked once again
+     * @param element {@code File} representing the classpath element
+     * @param state {@link ElementState} of the classpath element
+     * @return String value, or null if the element cannot be read
+     */
+    private static String getStorageKey(File element, ElementState state) {
+        Hasher hasher = Hashing.sha256().newHasher();
+        try {
+            if (element.isDirectory()) {
+                if (state.folderHash == null) {
+                    return null;
+                }
+                hasher.putString(element.getAbsolutePath(), StandardCharsets.UTF_8)
+                        .putBytes(state.folderHash.asBytes());
+            } else if (element.isFile()) {
+                hasher.putLong(element.length())
+                        .putBytes(MoreFiles.asByteSource(element.toPath()).hash(Hashing.murmur3_128()).asBytes());
+            } else {
+                return null;
+            }
+        } catch (IOException e) {
+            LOG.debug("Could not compute scan cache key for {}", element, e);
+            return null;
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Adds the relative path, size, and modification time of every file within the specified folder to the hash
+     * @param hasher {@code Hasher} instance
+     * @param root {@code Path} to the folder
+     * @return The latest modification time of a class file within the folder, in milliseconds
+     * @throws IOException in case the folder cannot be read
+     */
+    private static long putFolder(Hasher hasher, Path root) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.sorted().collect(Collectors.toList());
+        }
+        long classFilesModified = 0L;
+        for (Path file : files) {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            long modified = attributes.lastModifiedTime().toMillis();
+            hasher.putString(root.relativize(file).toString(), StandardCharsets.UTF_8)
+                    .putLong(attributes.size())
+                    .putLong(modified);
+            if (file.getFileName().toString().endsWith(ClassFileScanner.CLASS_FILE_EXTENSION)) {
+                classFilesModified = Math.max(classFilesModified, modified);
+            }
+        }
+        return classFilesModified;
+    }
+
+    /**
+     * Represents the state of a classpath element computed once per lookup. For a folder, the same walk over its files
+     * yields the in-memory fingerprint, the hash the storage key is derived from, and the latest modification time
+     * of a class file that tells whether the compile-time indices in the folder are up to date
+     */
+    private static class ElementState {
+        private final String fingerprint;
+        private final HashCode folderHash;
+        private final Long classFilesModified;
+
+        private ElementState(String fingerprint, HashCode folderHash, Long classFilesModified) {
+            this.fingerprint = fingerprint;
+            this.folderHash = folderHash;
+            this.classFilesModified = classFilesModified;
+        }
+
+        /**
+         * Computes the state of a classpath element. The fingerprint of an archive consists of its path, size, and
+         * modification time. The fingerprint of a folder consists of its path and the hash of the relative path, size,
+         * and modification time of every file within it, so that a file replaced with one having an older timestamp,
+         * or a file added in place of a deleted one, also changes the fingerprint
+         * @param element {@code File} representing the classpath element
+         * @return {@code ElementState} instance
+         */
+        private static ElementState of(File element) {
+            String path = element.getAbsolutePath();
+            if (!element.exists()) {
+                return new ElementState(path + FINGERPRINT_SEPARATOR + MISSING_ELEMENT_MARKER, null, null);
+            }
+            if (!element.isDirectory()) {
+                return new ElementState(path + FINGERPRINT_SEPARATOR + element.length() + FINGERPRINT_SEPARATOR + element.lastModified(), null, null);
+            }
+            Hasher hasher = Hashing.sha256().newHasher();
+            try {
+                long classFilesModified = putFolder(hasher, element.toPath());
+                HashCode folderHash = hasher.hash();
+                return new ElementState(path + FINGERPRINT_SEPARATOR + folderHash, folderHash, classFilesModified);
+            } catch (IOException e) {
+                // the folder cannot be fingerprinted reliably, so a unique key is returned to force scanning
+                return new ElementState(path + FINGERPRINT_SEPARATOR + System.nanoTime(), null, null);
+            }
+        }
+    }
+
+    /**
+     * Represents the results of scanning a classpath element in the particular state
+     */
+    private static class ScanResult {
+        private final String fingerprint;
+        private final Supplier<ClassIndex> index;
+
+        private ScanResult(String fingerprint, Supplier<ClassIndex> index) {
+            this.fingerprint = fingerprint;
+            this.index = index;
+        }
+    }
+}
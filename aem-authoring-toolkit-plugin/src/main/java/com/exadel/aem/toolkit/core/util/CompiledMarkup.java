@@ -0,0 +1,330 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.exadel.aem.toolkit.core.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import com.google.common.io.ByteStreams;
+
+import com.exadel.aem.toolkit.api.annotations.widgets.common.XmlScope;
+
+/**
+ * Represents the markup of AEM components rendered at compile time by the
+ * {@link com.exadel.aem.toolkit.core.processing.DialogMarkupProcessor}. The markup is stored to the class output
+ * under a {@code jcr_root} folder and is listed in the {@link #INDEX} file. Every line of the index describes a component:
+ * its class name, component name, folder, the rendered {@link XmlScope}s, the annotation types used in the component,
+ * and the top-level classes the markup depends on. Since the markup is rendered with built-in handlers only, it is used
+ * for a component unless some of its annotations are processed by custom handlers
+ */
+public class CompiledMarkup {
+    public static final String INDEX = "META-INF/aem-authoring-toolkit/markup.idx";
+
+    private static final String INDEX_SEPARATOR = "\t";
+    private static final String VALUE_SEPARATOR = ",";
+    private static final String CLASS_FILE_EXTENSION = ".class";
+    private static final String FILE_PROTOCOL = "file";
+    private static final int COLUMN_COUNT = 6;
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * Creates a new instance from the specified entries
+     * @param entries Collection of {@link Entry} objects
+     */
+    public CompiledMarkup(Collection<Entry> entries) {
+        this.entries = new TreeMap<>();
+        entries.forEach(entry -> this.entries.put(entry.getClassName(), entry));
+    }
+
+    /**
+     * Reads the index stored with {@link CompiledMarkup#write(Writer)}
+     * @param reader {@code Reader} to read the index from
+     * @return {@code CompiledMarkup} instance
+     * @throws IOException in case the index cannot be read
+     */
+    public static CompiledMarkup read(Reader reader) throws IOException {
+        return read(reader, null);
+    }
+
+    /**
+     * Reads the indices available within the specified code scope, together with the markup they list
+     * @param classLoader {@code ClassLoader} of the code scope
+     * @param componentClassNames Names of the component classes to retrieve the markup of
+     * @param handledAnnotationTypes Names of the annotation types processed by custom handlers; the components that use
+     *                               any of these are skipped
+     * @return {@code CompiledMarkup} instance
+     * @throws IOException in case an index or the markup cannot be read
+     */
+    static CompiledMarkup read(ClassLoader classLoader, Collection<String> componentClassNames, Set<String> handledAnnotationTypes) throws IOException {
+        Map<String, Entry> result = new TreeMap<>();
+        Enumeration<URL> indices = classLoader.getResources(INDEX);
+        while (indices.hasMoreElements()) {
+            URL index = indices.nextElement();
+            String root = StringUtils.removeEnd(index.toString(), INDEX);
+            long indexModified = getLastModified(index);
+            try (Reader reader = new InputStreamReader(openStream(index), StandardCharsets.UTF_8)) {
+                for (Entry entry : read(reader, root).entries.values()) {
+                    if (componentClassNames.contains(entry.getClassName())
+                            && Collections.disjoint(entry.getAnnotationTypes(), handledAnnotationTypes)
+                            && isUpToDate(entry, classLoader, root, indexModified)) {
+                        entry.loadContent();
+                        result.putIfAbsent(entry.getClassName(), entry);
+                    }
+                }
+            }
+        }
+        return new CompiledMarkup(result.values());
+    }
+
+    /**
+     * Reads an index
+     * @param reader {@code Reader} to read the index from
+     * @param root The URL of the classpath element the index belongs to, or null
+     * @return {@code CompiledMarkup} instance
+     * @throws IOException in case the index cannot be read
+     */
+    private static CompiledMarkup read(Reader reader, String root) throws IOException {
+        Map<String, Entry> result = new TreeMap<>();
+        BufferedReader bufferedReader = new BufferedReader(reader);
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            String[] columns = StringUtils.splitPreserveAllTokens(line, INDEX_SEPARATOR);
+            if (columns.length != COLUMN_COUNT) {
+                continue;
+            }
+            List<XmlScope> scopes = splitValues(columns[3]).stream().map(XmlScope::valueOf).collect(Collectors.toList());
+            Entry entry = new Entry(columns[0], columns[1], columns[2], scopes, splitValues(columns[4]), splitValues(columns[5]));
+            entry.root = root;
+            result.put(entry.getClassName(), entry);
+        }
+        return new CompiledMarkup(result.values());
+    }
+
+    /**
+     * Stores the index, one component per line
+     * @param writer {@code Writer} to write the index to
+     * @throws IOException in case the index cannot be written
+     */
+    public void write(Writer writer) throws IOException {
+        for (Entry entry : entries.values()) {
+            writer.write(String.join(INDEX_SEPARATOR,
+                    entry.getClassName(),
+                    entry.getComponentName(),
+                    entry.getFolder(),
+                    entry.getScopes().stream().map(XmlScope::name).collect(Collectors.joining(VALUE_SEPARATOR)),
+                    String.join(VALUE_SEPARATOR, entry.getAnnotationTypes()),
+                    String.join(VALUE_SEPARATOR, entry.getDependencies())));
+            writer.write('\n');
+        }
+    }
+
+    /**
+     * Gets the entries of this index
+     * @return Collection of {@link Entry} objects, ordered by class name
+     */
+    public Collection<Entry> getEntries() {
+        return Collections.unmodifiableCollection(entries.values());
+    }
+
+    /**
+     * Gets the names of the component classes listed in this index
+     * @return Sorted set of class names
+     */
+    public Set<String> getClassNames() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    /**
+     * Creates an index that contains the entries of the component classes matching the predicate
+     * @param classNamePredicate Predicate for the names of component classes
+     * @return {@code CompiledMarkup} instance
+     */
+    public CompiledMarkup filter(Predicate<String> classNamePredicate) {
+        return new CompiledMarkup(entries.values().stream()
+                .filter(entry -> classNamePredicate.test(entry.getClassName()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Gets whether the markup of a component is up to date. This is true if the class of the component and the classes
+     * the markup depends on are all loaded from the classpath element the index belongs to, and, for a folder, if none
+     * of their class files is newer than the index, i.e. none has been compiled anew without the processor. A class
+     * that is loaded from another classpath element could have changed independently, so the markup is then rendered
+     * anew. Markup stored within an archive is considered up to date as long as the classes come from the same archive
+     * @param entry {@code Entry} instance
+     * @param classLoader {@code ClassLoader} of the code scope
+     * @param root The URL of the classpath element the index belongs to
+     * @param indexModified The modification time of the index file
+     * @return True or false
+     * @throws IOException in case the modification time of a class file cannot be retrieved
+     */
+    private static boolean isUpToDate(Entry entry, ClassLoader classLoader, String root, long indexModified) throws IOException {
+        Set<String> classNames = new TreeSet<>(entry.getDependencies());
+        classNames.add(entry.getClassName());
+        for (String className : classNames) {
+            URL classFile = classLoader.getResource(className.replace('.', '/') + CLASS_FILE_EXTENSION);
+            if (classFile == null
+                    || !classFile.toString().startsWith(root)
+                    || (FILE_PROTOCOL.equals(classFile.getProtocol()) && getLastModified(classFile) > indexModified)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the modification time of the file represented by the specified URL
+     * @param url {@code URL} value
+     * @return Long value; 0 if the URL does not stand for a file, and {@code Long.MAX_VALUE} if the file does not exist
+     * @throws IOException in case the modification time cannot be retrieved
+     */
+    private static long getLastModified(URL url) throws IOException {
+        if (!FILE_PROTOCOL.equals(url.getProtocol())) {
+            return 0;
+        }
+        try {
+            Path path = Paths.get(url.toURI());
+            return Files.exists(path) ? Files.getLastModifiedTime(path).toMillis() : Long.MAX_VALUE;
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Opens the resource represented by the specified URL. Caching is turned off so that an archive is not kept open
+     * after the resource is read
+     * @param url {@code URL} value
+     * @return {@code InputStream} object
+     * @throws IOException in case the resource cannot be opened
+     */
+    private static InputStream openStream(URL url) throws IOException {
+        URLConnection connection = url.openConnection();
+        connection.setUseCaches(false);
+        return connection.getInputStream();
+    }
+
+    /**
+     * Splits the comma-separated value of an index column
+     * @param value String value
+     * @return List of strings
+     */
+    private static List<String> splitValues(String value) {
+        return Arrays.asList(StringUtils.split(value, VALUE_SEPARATOR));
+    }
+
+    /**
+     * Represents the markup of an AEM component rendered at compile time
+     */
+    public static class Entry {
+        private final String className;
+        private final String componentName;
+        private final String folder;
+        private final List<XmlScope> scopes;
+        private final Set<String> annotationTypes;
+        private final Set<String> dependencies;
+        private String root;
+        private Map<XmlScope, byte[]> content;
+
+        /**
+         * Default constructor
+         * @param className Name of the component class
+         * @param componentName Name of the component as specified in the {@code @Dialog} annotation
+         * @param folder Path to the folder that contains the markup, relative to the class output
+         * @param scopes List of the {@link XmlScope}s the markup is rendered for
+         * @param annotationTypes Names of the annotation types used in the component
+         * @param dependencies Names of the top-level classes the markup depends on
+         */
+        public Entry(String className, String componentName, String folder, List<XmlScope> scopes,
+                     Collection<String> annotationTypes, Collection<String> dependencies) {
+            this.className = className;
+            this.componentName = componentName;
+            this.folder = folder;
+            this.scopes = scopes;
+            this.annotationTypes = new TreeSet<>(annotationTypes);
+            this.dependencies = new TreeSet<>(dependencies);
+        }
+
+        public String getClassName() {
+            return className;
+        }
+
+        public String getComponentName() {
+            return componentName;
+        }
+
+        public String getFolder() {
+            return folder;
+        }
+
+        public List<XmlScope> getScopes() {
+            return scopes;
+        }
+
+        public Set<String> getAnnotationTypes() {
+            return annotationTypes;
+        }
+
+        public Set<String> getDependencies() {
+            return dependencies;
+        }
+
+        /**
+         * Gets the markup of the component, if the entry has been read together with the markup
+         * @return Ordered {@code Map} of entries, keyed by their {@link XmlScope}s, or null
+         */
+        public Map<XmlScope, byte[]> getContent() {
+            return content;
+        }
+
+        /**
+         * Reads the markup of the component from the classpath element the entry belongs to
+         * @throws IOException in case the markup cannot be read
+         */
+        private void loadContent() throws IOException {
+            Map<XmlScope, byte[]> result = new LinkedHashMap<>();
+            for (XmlScope scope : scopes) {
+                URL url = new URL(root + folder + DialogConstants.PATH_SEPARATOR + scope);
+                try (InputStream input = openStream(url)) {
+                    result.put(scope, ByteStreams.toByteArray(input));
+                }
+            }
+            content = result;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.exadel.aem.toolkit.core.util;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+
+import com.exadel.aem.toolkit.api.annotations.widgets.common.XmlScope;
+import com.exadel.aem.toolkit.core.exceptions.PluginException;
+import com.exadel.aem.toolkit.core.exceptions.handlers.PluginExceptionHandlers;
+
+/**
+ * Renders the markup of package entries, vid. {@code .content.xml}, {@code _cq_dialog.xml}, and {@code _cq_editConfig.xml},
+ * for AEM components without touching any package. Rendering can be performed concurrently: every thread gets its own
+ * set of {@link PackageEntryWriter}s
+ */
+public class ComponentRenderer {
+    private static final String CANNOT_RENDER_EXCEPTION_MESSAGE = "Cannot render components for ";
+
+    private final GenerationCache cache;
+    private final ThreadLocal<List<PackageEntryWriter>> writers;
+
+    /**
+     * Creates a new renderer. The XML configuration is verified at once, so that the issues are reported before
+     * any component is processed
+     * @param projectName Name of the project the components belong to; used for exception messages
+     * @param cache {@code GenerationCache} instance, or null if caching is not used
+     */
+    public ComponentRenderer(String projectName, GenerationCache cache) {
+        this.cache = cache;
+        // DocumentBuilder and Transformer instances are not thread-safe, so every thread gets its own set of writers
+        this.writers = ThreadLocal.withInitial(() -> createWriters(projectName));
+        this.writers.get();
+    }
+
+    /**
+     * Retrieves markup of the package entries for the specified AEM component. If the {@link GenerationCache} is set
+     * and contains the entries for the unchanged component, these are used. Otherwise, the markup is rendered
+     * and stored to the cache, unless an issue has been reported while rendering; such markup is rendered anew
+     * by every build so that the issue is reported again and the {@code terminateOn} setting is honored. Must be called
+     * within an initialized {@link com.exadel.aem.toolkit.core.maven.PluginRuntime} context
+     * @param componentClass Current {@code Class} instance
+     * @return Ordered {@code Map} of rendered entries, keyed by their {@link XmlScope}s
+     */
+    public Map<XmlScope, byte[]> render(Class<?> componentClass) {
+        String cacheKey = cache != null ? cache.getKey(componentClass) : null;
+        if (cacheKey == null) {
+            return renderEntries(componentClass);
+        }
+        Map<XmlScope, byte[]> result = cache.get(cacheKey);
+        if (result == null) {
+            long handledExceptions = PluginExceptionHandlers.getHandledExceptionCount();
+            result = renderEntries(componentClass);
+            if (PluginExceptionHandlers.getHandledExceptionCount() == handledExceptions) {
+                cache.put(cacheKey, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Renders markup of the package entries for the specified AEM component with the writers bound to the current thread
+     * @param componentClass Current {@code Class} instance
+     * @return Ordered {@code Map} of rendered entries, keyed by their {@link XmlScope}s
+     */
+    private Map<XmlScope, byte[]> renderEntries(Class<?> componentClass) {
+        Map<XmlScope, byte[]> result = new LinkedHashMap<>();
+        for (PackageEntryWriter writer : writers.get()) {
+            byte[] content = writer.render(componentClass);
+            if (content != null) {
+                result.put(writer.getXmlScope(), content);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates the list of {@link PackageEntryWriter}s sharing a {@code DocumentBuilder} and a {@code Transformer}
+     * @param projectName Name of the project the writers are created for
+     * @return {@code List<PackageEntryWriter>} object
+     */
+    private static List<PackageEntryWriter> createWriters(String projectName) {
+        try {
+            DocumentBuilder documentBuilder = PackageWriter.createDocumentBuilder();
+            Transformer transformer = PackageWriter.createTransformer();
+            return Arrays.asList(
+                    new ContentXmlWriter(documentBuilder, transformer),
+                    new CqEditConfigWriter(documentBuilder, transformer),
+                    new CqDialogWriter(documentBuilder, transformer)
+            );
+        } catch (ParserConfigurationException | TransformerConfigurationException e) {
+            // exceptions caught here are due to possible XXE security vulnerabilities, so no further handling
+            throw new PluginException(CANNOT_RENDER_EXCEPTION_MESSAGE + projectName, e);
+        }
+    }
+}
@@ -23,7 +23,6 @@ import java.util.stream.Collectors;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.apache.commons.lang3.ArrayUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.jcr.resource.api.JcrResourceConstants;
 
 import com.exadel.aem.toolkit.api.annotations.main.Dialog;
@@ -31,7 +30,6 @@ import com.exadel.aem.toolkit.api.annotations.main.DialogLayout;
 import com.exadel.aem.toolkit.api.annotations.widgets.common.XmlScope;
 import com.exadel.aem.toolkit.api.annotations.meta.DialogAnnotation;
 import com.exadel.aem.toolkit.api.annotations.meta.ResourceTypes;
-import com.exadel.aem.toolkit.api.handlers.DialogHandler;
 import com.exadel.aem.toolkit.core.handlers.assets.dependson.DependsOnTabHandler;
 import com.exadel.aem.toolkit.core.maven.PluginRuntime;
 import com.exadel.aem.toolkit.core.handlers.container.DialogContainer;
@@ -74,10 +72,11 @@ class CqDialogWriter extends ContentXmlWriter {
         if (!classHasCustomDialogAnnotation(componentClass)) {
             return;
         }
-        List<DialogAnnotation> customAnnotations = getCustomDialogAnnotations(componentClass);
-        PluginRuntime.context().getReflectionUtility().getCustomDialogHandlers().stream()
-                .filter(handler -> customAnnotations.stream()
-                        .anyMatch(annotation -> customAnnotationMatchesHandler(annotation, handler)))
+        getCustomDialogAnnotations(componentClass).stream()
+                .map(DialogAnnotation::source)
+                .distinct()
+                .flatMap(source -> PluginRuntime.context().getReflectionUtility().getCustomDialogHandlers(source).stream())
+                .distinct()
                 .forEach(handler -> handler.accept(root, componentClass));
     }
 
@@ -102,15 +101,4 @@ class CqDialogWriter extends ContentXmlWriter {
         return Arrays.stream(componentClass.getDeclaredAnnotations())
                 .anyMatch(a -> a.annotationType().getDeclaredAnnotation(DialogAnnotation.class) != null);
     }
-
-    /**
-     * Used while enumerating available {@code CustomDialogHandler}s to set matching between a handler and a {@code CustomDialogAnnotation},
-     * since one handler may serve for several annotations, and, optionally, vice versa
-     * @param annotation {@link DialogAnnotation} instance
-     * @param handler {@link DialogHandler} instance
-     * @return True if the two arguments are "matching" via their properties, otherwise, false
-     */
-    private static boolean customAnnotationMatchesHandler(DialogAnnotation annotation, DialogHandler handler) {
-        return StringUtils.equals(annotation.source(), handler.getName());
-    }
 }
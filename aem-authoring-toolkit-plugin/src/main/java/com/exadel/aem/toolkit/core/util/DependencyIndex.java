@@ -0,0 +1,235 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.exadel.aem.toolkit.core.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.exadel.aem.toolkit.api.annotations.main.Dialog;
+import com.exadel.aem.toolkit.api.annotations.meta.DialogAnnotation;
+import com.exadel.aem.toolkit.api.annotations.meta.DialogWidgetAnnotation;
+import com.exadel.aem.toolkit.core.maven.PluginRuntime;
+
+/**
+ * Maps classes to the AEM components whose markup depends on them, so that the components affected by a change
+ * of particular classes can be told without loading any class. The dependencies of a component are the classes
+ * reported by {@link PluginReflectionUtility#getReferencedClasses(Class)}, the custom annotations of the component
+ * class, and the custom handlers (with their superclasses) that process these annotations. Classes are stored
+ * by their top-level names, since a change of a source file affects all the classes declared in it
+ */
+public class DependencyIndex {
+    private static final String INNER_CLASS_SEPARATOR = "$";
+    private static final String INDEX_SEPARATOR = "\t";
+
+    private final Map<String, Set<String>> components;
+
+    private DependencyIndex(Map<String, Set<String>> components) {
+        this.components = components;
+    }
+
+    /**
+     * Creates the index for the specified AEM components. Must be called within an initialized {@link PluginRuntime}
+     * @param componentClasses List of {@code @Dialog}-annotated classes
+     * @param componentsPathBase Path to the folder under which component folders are stored in the package, or null
+     * @return {@code DependencyIndex} instance
+     */
+    public static DependencyIndex build(List<Class<?>> componentClasses, String componentsPathBase) {
+        return build(componentClasses, componentsPathBase, PluginRuntime.context().getReflectionUtility());
+    }
+
+    /**
+     * Creates the index for the specified AEM components
+     * @param componentClasses List of {@code @Dialog}-annotated classes
+     * @param componentsPathBase Path to the folder under which component folders are stored in the package, or null
+     * @param reflectionUtility {@link PluginReflectionUtility} providing the custom handlers
+     * @return {@code DependencyIndex} instance
+     */
+    static DependencyIndex build(List<Class<?>> componentClasses, String componentsPathBase, PluginReflectionUtility reflectionUtility) {
+        Map<String, Set<String>> components = new TreeMap<>();
+        for (Class<?> componentClass : componentClasses) {
+            Dialog dialog = componentClass.getDeclaredAnnotation(Dialog.class);
+            if (dialog == null || StringUtils.isBlank(dialog.name())) {
+                continue;
+            }
+            String componentPath = getComponentPath(dialog.name(), componentsPathBase);
+            for (Class<?> dependency : getDependencies(componentClass, reflectionUtility)) {
+                components.computeIfAbsent(getTopLevelName(dependency.getName()), key -> new TreeSet<>()).add(componentPath);
+            }
+        }
+        return new DependencyIndex(components);
+    }
+
+    /**
+     * Creates the index for the specified AEM components, together with the components rendered at compile time.
+     * The dependencies of the latter are taken from the {@link CompiledMarkup}, so that their classes are not loaded.
+     * Must be called within an initialized {@link PluginRuntime}
+     * @param componentClasses List of {@code @Dialog}-annotated classes
+     * @param compiledMarkup {@link CompiledMarkup} instance
+     * @param componentsPathBase Path to the folder under which component folders are stored in the package, or null
+     * @return {@code DependencyIndex} instance
+     */
+    public static DependencyIndex build(List<Class<?>> componentClasses, CompiledMarkup compiledMarkup, String componentsPathBase) {
+        DependencyIndex result = build(componentClasses, componentsPathBase);
+        for (CompiledMarkup.Entry entry : compiledMarkup.getEntries()) {
+            String componentPath = getComponentPath(entry.getComponentName(), componentsPathBase);
+            for (String dependency : entry.getDependencies()) {
+                result.components.computeIfAbsent(getTopLevelName(dependency), key -> new TreeSet<>()).add(componentPath);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Reads the index previously stored with {@link DependencyIndex#write(Path)}
+     * @param path {@code Path} to the index file
+     * @return {@code DependencyIndex} instance
+     * @throws IOException in case the file cannot be read
+     */
+    public static DependencyIndex read(Path path) throws IOException {
+        Map<String, Set<String>> components = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separatorPosition = line.indexOf(INDEX_SEPARATOR);
+                if (separatorPosition > 0) {
+                    components.computeIfAbsent(line.substring(0, separatorPosition), key -> new TreeSet<>())
+                            .add(line.substring(separatorPosition + 1));
+                }
+            }
+        }
+        return new DependencyIndex(components);
+    }
+
+    /**
+     * Stores the index to the specified file, one class to component mapping per line
+     * @param path {@code Path} to the index file
+     * @throws IOException in case the file cannot be written
+     */
+    public void write(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Set<String>> entry : components.entrySet()) {
+                for (String componentPath : entry.getValue()) {
+                    writer.write(entry.getKey() + INDEX_SEPARATOR + componentPath);
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the paths of AEM components whose markup depends on any of the specified classes
+     * @param classNames Names of the changed classes; names of nested classes are resolved to their top-level classes
+     * @return Sorted set of component paths
+     */
+    public Set<String> getAffectedComponents(Collection<String> classNames) {
+        Set<String> result = new TreeSet<>();
+        for (String className : classNames) {
+            result.addAll(components.getOrDefault(getTopLevelName(className), Collections.emptySet()));
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of classes stored in this index
+     * @return Integer value
+     */
+    public int size() {
+        return components.size();
+    }
+
+    /**
+     * Collects the classes the markup of the specified AEM component depends on
+     * @param componentClass {@code @Dialog}-annotated class
+     * @param reflectionUtility {@link PluginReflectionUtility} providing the custom handlers
+     * @return Set of {@code Class} instances
+     */
+    private static Set<Class<?>> getDependencies(Class<?> componentClass, PluginReflectionUtility reflectionUtility) {
+        Set<Class<?>> result = new TreeSet<>(Comparator.comparing(Class::getName));
+        result.addAll(PluginReflectionUtility.getReferencedClasses(componentClass));
+        for (Annotation annotation : componentClass.getDeclaredAnnotations()) {
+            if (annotation.annotationType().isAnnotationPresent(DialogAnnotation.class)) {
+                result.add(annotation.annotationType());
+            }
+        }
+        List<Class<? extends Annotation>> annotationTypes = result.stream()
+                .filter(Class::isAnnotation)
+                .map(type -> type.asSubclass(Annotation.class))
+                .collect(Collectors.toList());
+        for (Class<? extends Annotation> annotationType : annotationTypes) {
+            reflectionUtility.getCustomDialogWidgetHandlers(annotationType)
+                    .forEach(handler -> addWithSuperclasses(handler.getClass(), result));
+            if (annotationType.isAnnotationPresent(DialogWidgetAnnotation.class)) {
+                reflectionUtility.getCustomDialogWidgetHandlers(annotationType.getAnnotation(DialogWidgetAnnotation.class).source())
+                        .forEach(handler -> addWithSuperclasses(handler.getClass(), result));
+            }
+            if (annotationType.isAnnotationPresent(DialogAnnotation.class)) {
+                reflectionUtility.getCustomDialogHandlers(annotationType.getAnnotation(DialogAnnotation.class).source())
+                        .forEach(handler -> addWithSuperclasses(handler.getClass(), result));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Adds the specified class and its superclasses, except for platform classes, to the set
+     * @param value {@code Class} instance
+     * @param classes Set of classes
+     */
+    private static void addWithSuperclasses(Class<?> value, Set<Class<?>> classes) {
+        for (Class<?> current = value; current != null && current.getClassLoader() != null; current = current.getSuperclass()) {
+            classes.add(current);
+        }
+    }
+
+    /**
+     * Gets the path of an AEM component as stored in the index
+     * @param componentName Name of the component as specified in the {@code @Dialog} annotation
+     * @param componentsPathBase Path to the folder under which component folders are stored in the package, or null
+     * @return String value
+     */
+    private static String getComponentPath(String componentName, String componentsPathBase) {
+        return StringUtils.isNotBlank(componentsPathBase)
+                ? StringUtils.stripEnd(componentsPathBase, DialogConstants.PATH_SEPARATOR) + DialogConstants.PATH_SEPARATOR + componentName
+                : componentName;
+    }
+
+    /**
+     * Gets the name of the top-level class for the specified class name
+     * @param className Binary name of a class
+     * @return String value
+     */
+    private static String getTopLevelName(String className) {
+        return StringUtils.substringBefore(className, INNER_CLASS_SEPARATOR);
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.exadel.aem.toolkit.core.util;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.exadel.aem.toolkit.api.annotations.widgets.IgnoreField;
+import com.exadel.aem.toolkit.api.annotations.widgets.DialogField;
+
+/**
+ * Stores the fields of a class and its superclasses in the order they are rendered, i.e. by the {@link DialogField#ranking()}
+ * value, then superclass fields before subclass fields, then in the order of declaration. The index of a class is built
+ * once from the declared fields of the class and the index of its superclass, so that a base class shared by many
+ * component classes is analyzed only once. Indexes are bound to their classes and are released together with them
+ */
+final class FieldIndex {
+    private static final FieldIndex EMPTY = new FieldIndex(new Field[0], new int[0], new Field[0], new int[0], new Field[0]);
+
+    private static final ClassValue<FieldIndex> INDEXES = new ClassValue<FieldIndex>() {
+        @Override
+        protected FieldIndex computeValue(Class<?> type) {
+            return create(type);
+        }
+    };
+
+    private final Field[] fields;
+    private final int[] ranks;
+    private final Field[] nonStaticFields;
+    private final int[] nonStaticRanks;
+    private final Field[] ignoredFields;
+
+    private FieldIndex(Field[] fields, int[] ranks, Field[] nonStaticFields, int[] nonStaticRanks, Field[] ignoredFields) {
+        this.fields = fields;
+        this.ranks = ranks;
+        this.nonStaticFields = nonStaticFields;
+        this.nonStaticRanks = nonStaticRanks;
+        this.ignoredFields = ignoredFields;
+    }
+
+    /**
+     * Gets the index of the specified class
+     * @param type {@code Class} to analyze
+     * @return {@code FieldIndex} instance
+     */
+    static FieldIndex of(Class<?> type) {
+        return INDEXES.get(type);
+    }
+
+    /**
+     * Gets all the fields of the class and its superclasses in the rendering order
+     * @return Modifiable list of {@code Field} objects
+     */
+    List<Field> getFields() {
+        return new ArrayList<>(Arrays.asList(fields));
+    }
+
+    /**
+     * Gets the non-static fields of the class and its superclasses in the rendering order
+     * @return Modifiable list of {@code Field} objects
+     */
+    List<Field> getNonStaticFields() {
+        return new ArrayList<>(Arrays.asList(nonStaticFields));
+    }
+
+    /**
+     * Gets the fields of the class and its superclasses marked with {@link IgnoreField}, closer ancestors enumerated first
+     * @return Modifiable list of {@code Field} objects
+     */
+    List<Field> getIgnoredFields() {
+        return new ArrayList<>(Arrays.asList(ignoredFields));
+    }
+
+    /**
+     * Creates the index of the specified class by merging its own fields into the index of its superclass
+     * @param type {@code Class} to analyze
+     * @return {@code FieldIndex} instance
+     */
+    private static FieldIndex create(Class<?> type) {
+        if (type.isInterface() || type.isPrimitive() || type.isArray() || type.equals(Object.class)) {
+            return EMPTY;
+        }
+        FieldIndex parent = type.getSuperclass() != null ? of(type.getSuperclass()) : EMPTY;
+        Field[] declaredFields = type.getDeclaredFields();
+        Integer[] order = new Integer[declaredFields.length];
+        int[] declaredRanks = new int[declaredFields.length];
+        for (int i = 0; i < declaredFields.length; i++) {
+            order[i] = i;
+            DialogField dialogField = declaredFields[i].getAnnotation(DialogField.class);
+            declaredRanks[i] = dialogField != null ? dialogField.ranking() : 0;
+        }
+        // stable sorting retains the order of declaration for fields of equal rank
+        Arrays.sort(order, (first, second) -> Integer.compare(declaredRanks[first], declaredRanks[second]));
+
+        List<Field> ownFields = new ArrayList<>(declaredFields.length);
+        List<Integer> ownRanks = new ArrayList<>(declaredFields.length);
+        List<Field> ownNonStaticFields = new ArrayList<>(declaredFields.length);
+        List<Integer> ownNonStaticRanks = new ArrayList<>(declaredFields.length);
+        for (int position : order) {
+            Field field = declaredFields[position];
+            ownFields.add(field);
+            ownRanks.add(declaredRanks[position]);
+            if (!Modifier.isStatic(field.getModifiers())) {
+                ownNonStaticFields.add(field);
+                ownNonStaticRanks.add(declaredRanks[position]);
+            }
+        }
+        List<Field> ignoredFields = new ArrayList<>();
+        for (Field field : declaredFields) {
+            if (field.isAnnotationPresent(IgnoreField.class)) {
+                ignoredFields.add(field);
+            }
+        }
+        ignoredFields.addAll(Arrays.asList(parent.ignoredFields));
+
+        Field[] mergedFields = new Field[parent.fields.length + ownFields.size()];
+        int[] mergedRanks = new int[mergedFields.length];
+        merge(parent.fields, parent.ranks, ownFields, ownRanks, mergedFields, mergedRanks);
+        Field[] mergedNonStaticFields = new Field[parent.nonStaticFields.length + ownNonStaticFields.size()];
+        int[] mergedNonStaticRanks = new int[mergedNonStaticFields.length];
+        merge(parent.nonStaticFields, parent.nonStaticRanks, ownNonStaticFields, ownNonStaticRanks, mergedNonStaticFields, mergedNonStaticRanks);
+        return new FieldIndex(mergedFields, mergedRanks, mergedNonStaticFields, mergedNonStaticRanks, ignoredFields.toArray(new Field[0]));
+    }
+
+    /**
+     * Merges the ordered fields of a superclass with the ordered fields of a subclass. Of the fields with equal ranks,
+     * the superclass fields go first
+     * @param parentFields Fields of the superclass
+     * @param parentRanks Ranks of the superclass fields
+     * @param ownFields Fields of the subclass
+     * @param ownRanks Ranks of the subclass fields
+     * @param fields Array to store merged fields to
+     * @param ranks Array to store merged ranks to
+     */
+    private static void merge(Field[] parentFields, int[] parentRanks, List<Field> ownFields, List<Integer> ownRanks, Field[] fields, int[] ranks) {
+        int parentPosition = 0;
+        int ownPosition = 0;
+        for (int i = 0; i < fields.length; i++) {
+            boolean takeParent = ownPosition == ownFields.size()
+                    || (parentPosition < parentFields.length && parentRanks[parentPosition] <= ownRanks.get(ownPosition));
+            if (takeParent) {
+                fields[i] = parentFields[parentPosition];
+                ranks[i] = parentRanks[parentPosition++];
+            } else {
+                fields[i] = ownFields.get(ownPosition);
+                ranks[i] = ownRanks.get(ownPosition++);
+            }
+        }
+    }
+}
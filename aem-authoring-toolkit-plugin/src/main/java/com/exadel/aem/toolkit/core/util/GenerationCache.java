@@ -0,0 +1,259 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.exadel.aem.toolkit.core.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.MoreFiles;
+
+import com.exadel.aem.toolkit.api.annotations.main.Dialog;
+import com.exadel.aem.toolkit.api.annotations.widgets.common.XmlScope;
+import com.exadel.aem.toolkit.core.maven.PluginRuntime;
+
+/**
+ * Represents a content-addressable storage of the markup rendered for AEM components. Every component is keyed
+ * by the toolkit version and the hash of the toolkit's own code, the bytecode of its {@code @Dialog}-annotated class
+ * and the bytecode of every class the component's markup depends on, so that an unchanged component can be restored
+ * from the storage instead of being rendered anew. Since entries are never modified after creation, the storage can be
+ * shared between builds and build agents
+ */
+public class GenerationCache {
+    private static final Logger LOG = LoggerFactory.getLogger("AEM Authoring Toolkit");
+
+    private static final String CLASS_FILE_EXTENSION = ".class";
+    private static final String TEMP_FOLDER_SUFFIX = ".tmp";
+    private static final String CANNOT_STORE_ENTRY_MESSAGE = "Could not store generation cache entry {}";
+
+    private static final Supplier<String> TOOLKIT_CODE_HASH = Suppliers.memoize(GenerationCache::getToolkitCodeHash);
+
+    private final Path directory;
+    private final String toolkitVersion;
+    private final ConcurrentMap<Class<?>, String> classHashes = new ConcurrentHashMap<>();
+
+    /**
+     * Default constructor
+     * @param directory {@code Path} to the folder in which cache entries are stored
+     * @param toolkitVersion Version of the AEM Authoring Toolkit the entries are created with
+     */
+    public GenerationCache(Path directory, String toolkitVersion) {
+        this.directory = directory;
+        this.toolkitVersion = toolkitVersion;
+    }
+
+    /**
+     * Computes the cache key for the specified AEM component
+     * @param componentClass Current {@code Class} instance
+     * @return String value, or null if the bytecode of the component, of one of its dependencies, or of the toolkit
+     * itself is not available
+     */
+    String getKey(Class<?> componentClass) {
+        String toolkitCodeHash = TOOLKIT_CODE_HASH.get();
+        if (toolkitCodeHash == null) {
+            return null;
+        }
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putString(toolkitVersion, StandardCharsets.UTF_8)
+                .putString(toolkitCodeHash, StandardCharsets.UTF_8);
+        Set<Class<?>> dependencies = new TreeSet<>(Comparator.comparing(Class::getName));
+        dependencies.addAll(PluginReflectionUtility.getReferencedClasses(componentClass));
+        dependencies.addAll(PluginRuntime.context().getReflectionUtility().getCustomHandlerClasses());
+        for (Class<?> dependency : dependencies) {
+            String hash = getClassHash(dependency);
+            if (hash == null) {
+                return null;
+            }
+            hasher.putString(dependency.getName(), StandardCharsets.UTF_8).putString(hash, StandardCharsets.UTF_8);
+        }
+        return hasher.hash().toString();
+    }
+
+    /**
+     * Retrieves the rendered markup stored under the specified key
+     * @param key Cache key
+     * @return Ordered {@code Map} of rendered entries, keyed by their {@link XmlScope}s, or null if there's no
+     * matching entry
+     */
+    Map<XmlScope, byte[]> get(String key) {
+        Path entryPath = directory.resolve(key);
+        if (!Files.isDirectory(entryPath)) {
+            return null;
+        }
+        Map<XmlScope, byte[]> result = new LinkedHashMap<>();
+        try {
+            for (XmlScope scope : XmlScope.values()) {
+                Path scopePath = entryPath.resolve(scope.toString());
+                if (Files.exists(scopePath)) {
+                    result.put(scope, Files.readAllBytes(scopePath));
+                }
+            }
+        } catch (IOException e) {
+            LOG.debug("Could not read generation cache entry {}", key, e);
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Stores the rendered markup under the specified key. The entry is first written to a temporary folder and then
+     * moved to its place, so that a concurrently running build never sees an incomplete entry
+     * @param key Cache key
+     * @param entries Ordered {@code Map} of rendered entries, keyed by their {@link XmlScope}s
+     */
+    void put(String key, Map<XmlScope, byte[]> entries) {
+        Path entryPath = directory.resolve(key);
+        if (Files.isDirectory(entryPath)) {
+            return;
+        }
+        Path tempPath = null;
+        try {
+            Files.createDirectories(directory);
+            tempPath = Files.createTempDirectory(directory, key + TEMP_FOLDER_SUFFIX);
+            for (Map.Entry<XmlScope, byte[]> entry : entries.entrySet()) {
+                Files.write(tempPath.resolve(entry.getKey().toString()), entry.getValue());
+            }
+            Files.move(tempPath, entryPath, StandardCopyOption.ATOMIC_MOVE);
+            tempPath = null;
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            LOG.debug("Generation cache entry {} has been stored concurrently", key);
+        } catch (AtomicMoveNotSupportedException e) {
+            LOG.debug(CANNOT_STORE_ENTRY_MESSAGE, key, e);
+        } catch (IOException e) {
+            LOG.warn(CANNOT_STORE_ENTRY_MESSAGE, key, e);
+        } finally {
+            if (tempPath != null) {
+                deleteQuietly(tempPath);
+            }
+        }
+    }
+
+    /**
+     * Removes the folder of an incomplete cache entry, ignoring possible file system failures
+     * @param entryPath {@code Path} to the folder
+     */
+    private static void deleteQuietly(Path entryPath) {
+        try (Stream<Path> files = Files.list(entryPath)) {
+            files.forEach(file -> file.toFile().delete());
+            Files.deleteIfExists(entryPath);
+        } catch (IOException e) {
+            LOG.debug("Could not delete {}", entryPath, e);
+        }
+    }
+
+    /**
+     * Computes the hash of the code of the toolkit, so that entries created with a different build of the toolkit,
+     * e.g. an older snapshot having the same version, are not reused. Both the plugin and the API artifact are hashed,
+     * since the latter contains the defaults of the built-in annotations
+     * @return String value, or null if the code of the toolkit cannot be read
+     */
+    private static String getToolkitCodeHash() {
+        try {
+            Set<Path> locations = new LinkedHashSet<>();
+            for (Class<?> toolkitClass : Arrays.asList(GenerationCache.class, Dialog.class)) {
+                CodeSource codeSource = toolkitClass.getProtectionDomain().getCodeSource();
+                if (codeSource == null || codeSource.getLocation() == null) {
+                    return null;
+                }
+                locations.add(Paths.get(codeSource.getLocation().toURI()));
+            }
+            Hasher hasher = Hashing.sha256().newHasher();
+            for (Path location : locations) {
+                putCodeLocation(hasher, location);
+            }
+            return hasher.hash().toString();
+        } catch (IOException | URISyntaxException | IllegalArgumentException | SecurityException e) {
+            LOG.debug("Could not read the code of AEM Authoring Toolkit", e);
+            return null;
+        }
+    }
+
+    /**
+     * Adds the code stored at the specified location to the hash. This is the hash of an archive, or, for a folder,
+     * the relative path and content of every file within it
+     * @param hasher {@code Hasher} instance
+     * @param location {@code Path} to an archive or a folder with classes
+     * @throws IOException in case the code cannot be read
+     */
+    private static void putCodeLocation(Hasher hasher, Path location) throws IOException {
+        if (Files.isRegularFile(location)) {
+            hasher.putString(MoreFiles.asByteSource(location).hash(Hashing.sha256()).toString(), StandardCharsets.UTF_8);
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> stream = Files.walk(location)) {
+            files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            hasher.putString(location.relativize(file).toString(), StandardCharsets.UTF_8)
+                    .putBytes(Files.readAllBytes(file));
+        }
+    }
+
+    /**
+     * Retrieves the hash of the bytecode of the specified class
+     * @param value {@code Class} instance
+     * @return String value, or null if the bytecode is not available
+     */
+    private String getClassHash(Class<?> value) {
+        String result = classHashes.get(value);
+        if (result != null) {
+            return result;
+        }
+        if (value.getClassLoader() == null) {
+            return null;
+        }
+        String resourceName = value.getName().replace('.', '/') + CLASS_FILE_EXTENSION;
+        try (InputStream inputStream = value.getClassLoader().getResourceAsStream(resourceName)) {
+            if (inputStream == null) {
+                return null;
+            }
+            result = Hashing.sha256().hashBytes(ByteStreams.toByteArray(inputStream)).toString();
+        } catch (IOException e) {
+            LOG.debug("Could not read bytecode of {}", value.getName(), e);
+            return null;
+        }
+        classHashes.put(value, result);
+        return result;
+    }
+}
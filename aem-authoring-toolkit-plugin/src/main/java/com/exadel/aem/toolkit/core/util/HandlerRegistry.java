@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.exadel.aem.toolkit.core.util;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import com.google.common.base.Suppliers;
+
+import com.exadel.aem.toolkit.api.handlers.HandlesWidgets;
+
+/**
+ * Provides the custom handlers of a particular type available in the current code scope. Handler classes are loaded
+ * upon the first request, and a handler is instantiated only when it is requested by a widget annotation it declares
+ * via {@link HandlesWidgets}, or by its name. Since the name of a handler is only known from an instance, a request
+ * by name instantiates every handler once. Instances are created at most once and can be used from several threads
+ * @param <T> Type of handlers
+ */
+class HandlerRegistry<T> {
+    private final Supplier<List<Class<? extends T>>> handlerClasses;
+    private final Function<Class<? extends T>, T> factory;
+    private final ConcurrentMap<Class<? extends T>, Optional<T>> instances = new ConcurrentHashMap<>();
+    private final Supplier<Map<String, List<T>>> instancesByName;
+    private final ConcurrentMap<Class<? extends Annotation>, List<T>> instancesByWidgetAnnotation = new ConcurrentHashMap<>();
+
+    /**
+     * Default constructor
+     * @param handlerClasses Routine that loads the handler classes
+     * @param factory Routine that creates a handler instance, or returns null if the handler cannot be instantiated
+     * @param nameGetter Routine that retrieves the name of a handler instance
+     */
+    HandlerRegistry(Supplier<List<Class<? extends T>>> handlerClasses, Function<Class<? extends T>, T> factory, Function<T, String> nameGetter) {
+        this.handlerClasses = Suppliers.memoize(handlerClasses::get);
+        this.factory = factory;
+        this.instancesByName = Suppliers.memoize(() -> getAll().stream()
+                .filter(handler -> nameGetter.apply(handler) != null)
+                .collect(Collectors.groupingBy(nameGetter)));
+    }
+
+    /**
+     * Gets the handler classes without instantiating them
+     * @return List of {@code Class} objects
+     */
+    List<Class<? extends T>> getClasses() {
+        return handlerClasses.get();
+    }
+
+    /**
+     * Gets the instances of all the handlers
+     * @return List of handler instances
+     */
+    List<T> getAll() {
+        return getClasses().stream()
+                .map(this::getInstance)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the instances of handlers with the specified name
+     * @param name Name of a handler
+     * @return List of handler instances
+     */
+    List<T> getByName(String name) {
+        return instancesByName.get().getOrDefault(name, Collections.emptyList());
+    }
+
+    /**
+     * Gets the instances of handlers that declare the specified widget annotation in {@link HandlesWidgets}
+     * @param annotationType Type of the widget annotation
+     * @return List of handler instances
+     */
+    List<T> getByWidgetAnnotation(Class<? extends Annotation> annotationType) {
+        return instancesByWidgetAnnotation.computeIfAbsent(annotationType, key -> getClasses().stream()
+                .filter(handlerClass -> handlerClass.isAnnotationPresent(HandlesWidgets.class)
+                        && Arrays.asList(handlerClass.getAnnotation(HandlesWidgets.class).value()).contains(key))
+                .map(this::getInstance)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Gets the names of the widget annotations that the handlers declare in {@link HandlesWidgets}. The handlers
+     * are not instantiated
+     * @return Set of annotation type names
+     */
+    Set<String> getWidgetAnnotationNames() {
+        return getClasses().stream()
+                .filter(handlerClass -> handlerClass.isAnnotationPresent(HandlesWidgets.class))
+                .flatMap(handlerClass -> Arrays.stream(handlerClass.getAnnotation(HandlesWidgets.class).value()))
+                .map(Class::getName)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Gets the single instance of the specified handler class, creating it as necessary
+     * @param handlerClass Handler {@code Class}
+     * @return Handler instance, or null if the handler cannot be instantiated
+     */
+    private T getInstance(Class<? extends T> handlerClass) {
+        return instances.computeIfAbsent(handlerClass, key -> Optional.ofNullable(factory.apply(key))).orElse(null);
+    }
+}
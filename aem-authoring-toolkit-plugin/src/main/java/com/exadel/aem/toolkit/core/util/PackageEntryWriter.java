@@ -15,10 +15,11 @@
 package com.exadel.aem.toolkit.core.util;
 
 import java.io.IOException;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.List;
 
@@ -51,25 +52,39 @@ abstract class PackageEntryWriter {
     }
 
     /**
-     * Used to store XML markup filled with annotation data taken from current {@code Class} instance
+     * Used to render XML markup filled with annotation data taken from current {@code Class} instance. Rendering does not
+     * touch the package, therefore it can be performed concurrently for different component classes
      * @param componentClass {@link Class} to analyze
-     * @param componentPath {@link Path} representing a file within a file system to write data to
+     * @return Byte array containing UTF-8 encoded markup, or null if the class is not processed by this writer
      */
-    void writeXml(Class<?> componentClass, Path componentPath) {
+    byte[] render(Class<?> componentClass) {
         if (!isProcessed(componentClass)) {
-            return;
+            return null;
         }
-        try (Writer writer = Files.newBufferedWriter(componentPath.resolve(getXmlScope().toString()), StandardOpenOption.CREATE)) {
-            if (getXmlScope() != XmlScope.COMPONENT) {
+        StringWriter writer = new StringWriter();
+        writeXml(componentClass, writer);
+        return writer.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Used to store previously rendered XML markup to the file that corresponds to the specified {@code XmlScope}
+     * within the component folder
+     * @param componentPath {@link Path} representing the component folder within a file system to write data to
+     * @param scope {@link XmlScope} of the markup
+     * @param content Byte array containing the rendered markup
+     */
+    static void store(Path componentPath, XmlScope scope, byte[] content) {
+        try {
+            if (scope != XmlScope.COMPONENT) {
                 // markup can be stored by hand in a _cq_dialog/.content.xml structure instead of _cq_dialog.xml file
                 // at first, folder-like storage must be deleted, or we might end up with two versions of component markup within same package
-                Path nestedFolderPath = componentPath.resolve(StringUtils.substringBeforeLast(getXmlScope().toString(), DialogConstants.EXTENSION_SEPARATOR));
+                Path nestedFolderPath = componentPath.resolve(StringUtils.substringBeforeLast(scope.toString(), DialogConstants.EXTENSION_SEPARATOR));
                 Path nestedFilePath = nestedFolderPath.resolve(XmlScope.COMPONENT.toString());
                 Files.deleteIfExists(nestedFilePath);
                 Files.deleteIfExists(nestedFolderPath);
             }
-            // then second we store the newly generated class
-            writeXml(componentClass, writer);
+            // then second we store the newly generated markup
+            Files.write(componentPath.resolve(scope.toString()), content);
         } catch (IOException e) {
             PluginRuntime.context().getExceptionHandler().handle(e);
         }
@@ -0,0 +1,327 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.exadel.aem.toolkit.core.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.lang3.StringUtils;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+import com.exadel.aem.toolkit.api.annotations.widgets.common.XmlScope;
+import com.exadel.aem.toolkit.core.exceptions.PluginException;
+import com.exadel.aem.toolkit.core.exceptions.UnknownComponentException;
+import com.exadel.aem.toolkit.core.maven.PluginRuntime;
+
+/**
+ * Contains utility methods for generating AEM components' markup in several shards, e.g. on different CI nodes, and
+ * merging the partial results into the package
+ */
+public class PackageShards {
+    private static final String SHARD_SEPARATOR = "/";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final String ARCHIVE_NAME_TEMPLATE = "aem-authoring-toolkit-shard-%d-of-%d.zip";
+    private static final Pattern ARCHIVE_NAME_PATTERN = Pattern.compile("aem-authoring-toolkit-shard-(\\d+)-of-(\\d+)\\.zip");
+
+    private static final String INVALID_SHARD_EXCEPTION_MESSAGE = "Shard must be specified as i/n where 1 <= i <= n, found: ";
+    private static final String CANNOT_MERGE_EXCEPTION_MESSAGE = "Cannot merge shards into package ";
+    private static final String CANNOT_READ_SHARDS_EXCEPTION_MESSAGE = "Cannot read shards from folder ";
+    private static final String INCOMPLETE_SHARDS_EXCEPTION_MESSAGE = "Incomplete set of shards in folder %s: %s";
+
+    private PackageShards() {
+    }
+
+    /**
+     * Picks the component classes that belong to the specified shard. Classes are partitioned by a stable hash
+     * of their names, so that every class gets to the same shard on any machine and in any build
+     * @param componentClasses List of {@code Class} instances
+     * @param shard String in the {@code i/n} format, where {@code n} is the number of shards and {@code i} is the
+     *              1-based index of the current shard
+     * @return List of {@code Class} instances
+     */
+    public static List<Class<?>> filter(List<Class<?>> componentClasses, String shard) {
+        return componentClasses.stream()
+                .filter(componentClass -> isInShard(componentClass.getName(), shard))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets whether the component class with the specified name belongs to the specified shard
+     * @param className Name of the component class
+     * @param shard String in the {@code i/n} format, where {@code n} is the number of shards and {@code i} is the
+     *              1-based index of the current shard
+     * @return True or false
+     */
+    public static boolean isInShard(String className, String shard) {
+        int[] indexAndCount = parse(shard);
+        return getShardIndex(className, indexAndCount[1]) == indexAndCount[0];
+    }
+
+    /**
+     * Parses the shard specification
+     * @param shard String in the {@code i/n} format
+     * @return Array containing the 1-based index of the shard and the number of shards
+     */
+    public static int[] parse(String shard) {
+        String[] parts = StringUtils.split(StringUtils.defaultString(shard), SHARD_SEPARATOR);
+        if (parts.length != 2) {
+            throw new PluginException(INVALID_SHARD_EXCEPTION_MESSAGE + shard);
+        }
+        try {
+            int index = Integer.parseInt(parts[0].trim());
+            int count = Integer.parseInt(parts[1].trim());
+            if (index >= 1 && index <= count) {
+                return new int[] {index, count};
+            }
+        } catch (NumberFormatException e) {
+            throw new PluginException(INVALID_SHARD_EXCEPTION_MESSAGE + shard, e);
+        }
+        throw new PluginException(INVALID_SHARD_EXCEPTION_MESSAGE + shard);
+    }
+
+    /**
+     * Gets the name of the partial archive for the specified shard
+     * @param shard String in the {@code i/n} format
+     * @return String value
+     */
+    public static String getArchiveName(String shard) {
+        int[] indexAndCount = parse(shard);
+        return String.format(ARCHIVE_NAME_TEMPLATE, indexAndCount[0], indexAndCount[1]);
+    }
+
+    /**
+     * Retrieves the partial archives stored in the specified folder. All the shards of a single partitioning must be
+     * present, so that no AEM component is silently left out of the package
+     * @param directory {@code Path} to the folder
+     * @return List of {@code Path}s to the partial archives, ordered by shard index
+     */
+    public static List<Path> getArchives(Path directory) {
+        Map<Integer, Path> archivesByIndex = new TreeMap<>();
+        Set<Integer> counts = new HashSet<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = ARCHIVE_NAME_PATTERN.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    archivesByIndex.put(Integer.parseInt(matcher.group(1)), file);
+                    counts.add(Integer.parseInt(matcher.group(2)));
+                }
+            }
+        } catch (IOException e) {
+            throw new PluginException(CANNOT_READ_SHARDS_EXCEPTION_MESSAGE + directory, e);
+        }
+        int count = counts.isEmpty() ? 0 : counts.iterator().next();
+        if (counts.size() != 1 || archivesByIndex.size() != count
+                || !archivesByIndex.keySet().stream().allMatch(index -> index >= 1 && index <= count)) {
+            throw new PluginException(String.format(INCOMPLETE_SHARDS_EXCEPTION_MESSAGE,
+                    directory,
+                    archivesByIndex.values().stream().map(Path::getFileName).map(Path::toString).collect(Collectors.joining(", "))));
+        }
+        return new ArrayList<>(archivesByIndex.values());
+    }
+
+    /**
+     * Stores the content of a staging folder, one sub-folder per component, to a partial archive
+     * @param stagingDirectory {@code Path} to the staging folder
+     * @param archive {@code Path} to the archive file
+     */
+    public static void pack(Path stagingDirectory, Path archive) {
+        try (OutputStream outputStream = Files.newOutputStream(archive);
+             ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream);
+             Stream<Path> files = Files.walk(stagingDirectory)) {
+            for (Path file : files.filter(Files::isRegularFile).sorted().collect(Collectors.toList())) {
+                String entryName = StreamSupport.stream(stagingDirectory.relativize(file).spliterator(), false)
+                        .map(Path::toString)
+                        .collect(Collectors.joining(DialogConstants.PATH_SEPARATOR));
+                zipOutputStream.putNextEntry(new ZipEntry(entryName));
+                Files.copy(file, zipOutputStream);
+                zipOutputStream.closeEntry();
+            }
+        } catch (IOException e) {
+            throw new PluginException(CANNOT_MERGE_EXCEPTION_MESSAGE + archive, e);
+        }
+    }
+
+    /**
+     * Merges the partial archives into the package in a single streaming pass. Entries of the package are copied
+     * to a new archive except for those replaced with the components' markup from the partial archives; the markup
+     * is appended afterwards. Then the new archive replaces the package
+     * @param packageFile {@code Path} to the package
+     * @param componentsBasePath Path to the sub-folder within package under which AEM component folders are situated
+     * @param shardArchives List of {@code Path}s to the partial archives
+     */
+    public static void merge(Path packageFile, String componentsBasePath, List<Path> shardArchives) {
+        String basePath = StringUtils.appendIfMissing(StringUtils.strip(componentsBasePath, DialogConstants.PATH_SEPARATOR), DialogConstants.PATH_SEPARATOR);
+        Path tempFile = packageFile.resolveSibling(packageFile.getFileName() + TEMP_FILE_SUFFIX);
+        List<ZipFile> shards = new ArrayList<>();
+        try {
+            // maps entry names in the package to the archive that holds the replacement
+            Map<String, ZipFile> replacements = new LinkedHashMap<>();
+            for (Path shardArchive : shardArchives) {
+                ZipFile shard = new ZipFile(shardArchive.toFile());
+                shards.add(shard);
+                Collections.list(shard.entries()).stream()
+                        .filter(entry -> !entry.isDirectory())
+                        .forEach(entry -> replacements.put(basePath + entry.getName(), shard));
+            }
+            Set<String> skippedEntries = getSkippedEntries(replacements.keySet());
+            Set<String> existingComponents = new HashSet<>();
+            Set<String> unknownComponents = new HashSet<>();
+            try (InputStream inputStream = Files.newInputStream(packageFile);
+                 ZipInputStream zipInputStream = new ZipInputStream(inputStream);
+                 OutputStream outputStream = Files.newOutputStream(tempFile);
+                 ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+                ZipEntry entry;
+                while ((entry = zipInputStream.getNextEntry()) != null) {
+                    registerComponent(entry.getName(), basePath, existingComponents);
+                    if (skippedEntries.contains(entry.getName())) {
+                        continue;
+                    }
+                    zipOutputStream.putNextEntry(copyOf(entry));
+                    ByteStreams.copy(zipInputStream, zipOutputStream);
+                    zipOutputStream.closeEntry();
+                }
+                for (Map.Entry<String, ZipFile> replacement : replacements.entrySet()) {
+                    String componentName = getComponentName(replacement.getKey(), basePath);
+                    if (!existingComponents.contains(componentName)) {
+                        if (unknownComponents.add(componentName)) {
+                            PluginRuntime.context().getExceptionHandler().handle(new UnknownComponentException(Paths.get(basePath, componentName)));
+                        }
+                        continue;
+                    }
+                    ZipFile shard = replacement.getValue();
+                    zipOutputStream.putNextEntry(new ZipEntry(replacement.getKey()));
+                    try (InputStream shardEntry = shard.getInputStream(shard.getEntry(StringUtils.removeStart(replacement.getKey(), basePath)))) {
+                        ByteStreams.copy(shardEntry, zipOutputStream);
+                    }
+                    zipOutputStream.closeEntry();
+                }
+            }
+            Files.move(tempFile, packageFile, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new PluginException(CANNOT_MERGE_EXCEPTION_MESSAGE + packageFile, e);
+        } finally {
+            for (ZipFile shard : shards) {
+                try {
+                    shard.close();
+                } catch (IOException e) {
+                    PluginRuntime.context().getExceptionHandler().handle(e);
+                }
+            }
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException e) {
+                PluginRuntime.context().getExceptionHandler().handle(e);
+            }
+        }
+    }
+
+    /**
+     * Gets the names of the package entries that must be dropped in favor of the replacements. These are the replaced
+     * entries themselves, and the folder-like markup storage (such as {@code _cq_dialog/.content.xml}) that might have
+     * been created by hand instead of a file being replaced
+     * @param replacedEntries Set of the names of replaced entries
+     * @return Set of entry names
+     */
+    private static Set<String> getSkippedEntries(Set<String> replacedEntries) {
+        Set<String> result = new HashSet<>(replacedEntries);
+        for (String replacedEntry : replacedEntries) {
+            if (replacedEntry.endsWith(XmlScope.COMPONENT.toString())) {
+                continue;
+            }
+            String nestedFolder = StringUtils.substringBeforeLast(replacedEntry, DialogConstants.EXTENSION_SEPARATOR) + DialogConstants.PATH_SEPARATOR;
+            result.add(nestedFolder);
+            result.add(nestedFolder + XmlScope.COMPONENT.toString());
+        }
+        return result;
+    }
+
+    /**
+     * Stores the name of the AEM component the package entry belongs to, if any
+     * @param entryName Name of the package entry
+     * @param basePath Path to the components folder within the package, ending with a slash
+     * @param components Set to store the component name to
+     */
+    private static void registerComponent(String entryName, String basePath, Set<String> components) {
+        if (entryName.startsWith(basePath) && entryName.length() > basePath.length()) {
+            String componentName = getComponentName(entryName, basePath);
+            if (entryName.length() > basePath.length() + componentName.length()) {
+                // the entry is either the component folder itself, or is nested in it
+                components.add(componentName);
+            }
+        }
+    }
+
+    /**
+     * Gets the name of the AEM component the package entry belongs to
+     * @param entryName Name of the package entry
+     * @param basePath Path to the components folder within the package, ending with a slash
+     * @return String value
+     */
+    private static String getComponentName(String entryName, String basePath) {
+        return StringUtils.substringBefore(entryName.substring(basePath.length()), DialogConstants.PATH_SEPARATOR);
+    }
+
+    /**
+     * Creates a copy of the package entry to be put into a new archive. Compressed size is not retained since it may
+     * vary upon recompression
+     * @param entry {@code ZipEntry} instance
+     * @return New {@code ZipEntry} instance
+     */
+    private static ZipEntry copyOf(ZipEntry entry) {
+        ZipEntry result = new ZipEntry(entry.getName());
+        result.setTime(entry.getTime());
+        if (entry.getComment() != null) {
+            result.setComment(entry.getComment());
+        }
+        if (entry.getExtra() != null) {
+            result.setExtra(entry.getExtra());
+        }
+        return result;
+    }
+
+    /**
+     * Gets the 1-based index of the shard a component class belongs to
+     * @param className Name of the component class
+     * @param count Number of shards
+     * @return Integer value
+     */
+    static int getShardIndex(String className, int count) {
+        return Math.floorMod(Hashing.murmur3_32().hashString(className, StandardCharsets.UTF_8).asInt(), count) + 1;
+    }
+}
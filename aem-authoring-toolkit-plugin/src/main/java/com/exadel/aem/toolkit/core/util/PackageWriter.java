@@ -21,10 +21,18 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
@@ -39,6 +47,7 @@ import org.apache.maven.project.MavenProject;
 import com.google.common.collect.ImmutableMap;
 
 import com.exadel.aem.toolkit.api.annotations.main.Dialog;
+import com.exadel.aem.toolkit.api.annotations.widgets.common.XmlScope;
 import com.exadel.aem.toolkit.core.exceptions.PluginException;
 import com.exadel.aem.toolkit.core.exceptions.UnknownComponentException;
 import com.exadel.aem.toolkit.core.exceptions.ValidationException;
@@ -66,19 +75,27 @@ public class PackageWriter implements AutoCloseable {
     private static final String COMPONENT_PATH_MISSING_EXCEPTION_MESSAGE = "Component path missing for project ";
     private static final String COMPONENT_NAME_MISSING_EXCEPTION_MESSAGE = "Component name missing in @Dialog annotation for class ";
     private static final String CANNOT_WRITE_TO_PACKAGE_EXCEPTION_MESSAGE = "Cannot write to package ";
+    private static final String GENERATION_INTERRUPTED_EXCEPTION_MESSAGE = "Components generation interrupted for package ";
 
+    private String projectName;
     private String componentsBasePath;
     private FileSystem fileSystem;
-    private List<PackageEntryWriter> writers;
+    private ComponentRenderer renderer;
+    private boolean staging;
 
-    private PackageWriter(FileSystem fileSystem, String componentsBasePath, List<PackageEntryWriter> writers) {
+    private PackageWriter(String projectName, FileSystem fileSystem, String componentsBasePath, GenerationCache cache) {
+        this.projectName = projectName;
         this.fileSystem = fileSystem;
         this.componentsBasePath = componentsBasePath;
-        this.writers = writers;
+        this.renderer = new ComponentRenderer(projectName, cache);
     }
 
     @Override
     public void close() {
+        if (FileSystems.getDefault().equals(fileSystem)) {
+            // files written to an exploded folder need no finalization, and the default file system cannot be closed
+            return;
+        }
         try {
             fileSystem.close();
         } catch (IOException e) {
@@ -93,18 +110,167 @@ public class PackageWriter implements AutoCloseable {
      * @param componentClass Current {@code Class} instance
      */
     public void write(Class<?> componentClass) {
-        Dialog dialog = componentClass.getDeclaredAnnotation(Dialog.class);
-        if (StringUtils.isBlank(dialog.name())) {
-            ValidationException validationException = new ValidationException(COMPONENT_NAME_MISSING_EXCEPTION_MESSAGE + componentClass.getSimpleName());
-            PluginRuntime.context().getExceptionHandler().handle(validationException);
+        Path componentPath = getComponentPath(componentClass);
+        if (componentPath == null) {
+            return;
+        }
+        store(componentPath, renderer.render(componentClass));
+    }
+
+    /**
+     * Stores authoring features of the provided AEM components into package. If more than one thread is requested,
+     * components' markup is rendered concurrently on a fork-join pool, while the rendered entries are still stored
+     * one by one in the order of the provided list, so that the package is the same as in sequential mode. If rendering
+     * of a component fails with an exception, the outstanding tasks are cancelled and the exception is rethrown
+     * @param componentClasses List of {@code Class} instances
+     * @param threads Number of threads to use; a value less than {@code 1} stands for the number of available processors
+     */
+    public void write(List<Class<?>> componentClasses, int threads) {
+        int effectiveThreads = Math.min(threads > 0 ? threads : Runtime.getRuntime().availableProcessors(), componentClasses.size());
+        if (effectiveThreads <= 1) {
+            componentClasses.forEach(this::write);
             return;
         }
-        Path componentPath = fileSystem.getPath(componentsBasePath, dialog.name());
+        List<Path> componentPaths = new ArrayList<>();
+        List<ForkJoinTask<Map<XmlScope, byte[]>>> tasks = new ArrayList<>();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        ForkJoinPool pool = new ForkJoinPool(effectiveThreads);
+        try {
+            for (Class<?> componentClass : componentClasses) {
+                Path componentPath = getComponentPath(componentClass);
+                if (componentPath == null) {
+                    continue;
+                }
+                componentPaths.add(componentPath);
+                tasks.add(pool.submit(PluginRuntime.forked(() -> {
+                    if (failure.get() != null) {
+                        throw new CancellationException();
+                    }
+                    try {
+                        return renderer.render(componentClass);
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                        throw e;
+                    }
+                })));
+            }
+            for (int i = 0; i < tasks.size(); i++) {
+                store(componentPaths.get(i), tasks.get(i).get());
+            }
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            // the failure is recorded before any task is cancelled, so the original exception is rethrown even if
+            // the task that reported first was one of the cancelled ones
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            throw new PluginException(CANNOT_WRITE_TO_PACKAGE_EXCEPTION_MESSAGE + projectName, e);
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new PluginException(GENERATION_INTERRUPTED_EXCEPTION_MESSAGE + projectName, e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Retrieves the path to the folder of an AEM component within the package. If the component name is not specified,
+     * or the folder does not exist, the issue is reported via the current exception handler
+     * @param componentClass Current {@code Class} instance
+     * @return {@code Path} object, or null if the component cannot be written to
+     */
+    private Path getComponentPath(Class<?> componentClass) {
+        return getComponentPath(componentClass.getDeclaredAnnotation(Dialog.class).name(), componentClass.getSimpleName());
+    }
+
+    /**
+     * Retrieves the path to the folder of an AEM component within the package. If the component name is not specified,
+     * or the folder does not exist, the issue is reported via the current exception handler
+     * @param componentName Name of the component as specified in the {@code @Dialog} annotation
+     * @param className Simple name of the component class, used for reporting
+     * @return {@code Path} object, or null if the component cannot be written to
+     */
+    private Path getComponentPath(String componentName, String className) {
+        if (StringUtils.isBlank(componentName)) {
+            ValidationException validationException = new ValidationException(COMPONENT_NAME_MISSING_EXCEPTION_MESSAGE + className);
+            PluginRuntime.context().getExceptionHandler().handle(validationException);
+            return null;
+        }
+        Path componentPath = fileSystem.getPath(componentsBasePath, componentName);
+        if (staging) {
+            try {
+                Files.createDirectories(componentPath);
+            } catch (IOException e) {
+                PluginRuntime.context().getExceptionHandler().handle(e);
+                return null;
+            }
+        }
         if (!Files.isWritable(componentPath)) {
             PluginRuntime.context().getExceptionHandler().handle(new UnknownComponentException(componentPath));
+            return null;
+        }
+        return componentPath;
+    }
+
+    /**
+     * Stores the markup of AEM components rendered at compile time by the
+     * {@link com.exadel.aem.toolkit.core.processing.DialogMarkupProcessor}. No component classes are loaded,
+     * so the operation consists of file output only
+     * @param compiledMarkup {@link CompiledMarkup} instance
+     */
+    public void write(CompiledMarkup compiledMarkup) {
+        for (CompiledMarkup.Entry entry : compiledMarkup.getEntries()) {
+            Path componentPath = getComponentPath(entry.getComponentName(), StringUtils.substringAfterLast(entry.getClassName(), "."));
+            if (componentPath != null) {
+                store(componentPath, entry.getContent());
+            }
+        }
+    }
+
+    /**
+     * Copies the markup previously stored into a staging folder by a {@code PackageWriter} created with
+     * {@link PackageWriter#forStagingDirectory(MavenProject, Path, GenerationCache)} to the AEM components within
+     * the package. No component classes are analyzed, so the operation consists of file input and output only
+     * @param stagingDirectory {@code Path} to the staging folder
+     */
+    public void inject(Path stagingDirectory) {
+        if (!Files.isDirectory(stagingDirectory)) {
             return;
         }
-        writers.forEach(writer -> writer.writeXml(componentClass, componentPath));
+        List<Path> stagedComponents;
+        try (Stream<Path> folders = Files.list(stagingDirectory)) {
+            stagedComponents = folders.filter(Files::isDirectory).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new PluginException(CANNOT_WRITE_TO_PACKAGE_EXCEPTION_MESSAGE + projectName, e);
+        }
+        for (Path stagedComponent : stagedComponents) {
+            Path componentPath = fileSystem.getPath(componentsBasePath, stagedComponent.getFileName().toString());
+            if (!Files.isWritable(componentPath)) {
+                PluginRuntime.context().getExceptionHandler().handle(new UnknownComponentException(componentPath));
+                continue;
+            }
+            for (XmlScope scope : XmlScope.values()) {
+                Path stagedEntry = stagedComponent.resolve(scope.toString());
+                if (!Files.exists(stagedEntry)) {
+                    continue;
+                }
+                try {
+                    PackageEntryWriter.store(componentPath, scope, Files.readAllBytes(stagedEntry));
+                } catch (IOException e) {
+                    PluginRuntime.context().getExceptionHandler().handle(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores the rendered package entries to the folder of an AEM component
+     * @param componentPath {@code Path} to the component folder
+     * @param entries Ordered {@code Map} of rendered entries, keyed by their {@link XmlScope}s
+     */
+    private static void store(Path componentPath, Map<XmlScope, byte[]> entries) {
+        entries.forEach((scope, content) -> PackageEntryWriter.store(componentPath, scope, content));
     }
 
     /**
@@ -115,6 +281,18 @@ public class PackageWriter implements AutoCloseable {
      * @return {@code PackageWriter} instance
      */
     public static PackageWriter forMavenProject(MavenProject project, String componentsBasePath) {
+        return forMavenProject(project, componentsBasePath, null);
+    }
+
+    /**
+     * Initializes an instance of {@link PackageWriter} profiled for the current {@link MavenProject} and the tree of
+     * folders storing AEM components' data that reuses markup of unchanged components stored in the {@link GenerationCache}
+     * @param project {@code MavenProject instance}
+     * @param componentsBasePath Path to the sub-folder within package under which AEM component folders are situated
+     * @param cache {@code GenerationCache} instance, or null if caching is not used
+     * @return {@code PackageWriter} instance
+     */
+    public static PackageWriter forMavenProject(MavenProject project, String componentsBasePath, GenerationCache cache) {
         if (StringUtils.isBlank(componentsBasePath)) {
             throw new PluginException(COMPONENT_PATH_MISSING_EXCEPTION_MESSAGE + project.getBuild().getFinalName());
         }
@@ -127,36 +305,79 @@ public class PackageWriter implements AutoCloseable {
         URI uri = URI.create(FILESYSTEM_PREFIX + path.toUri());
         try {
             FileSystem fs = FileSystems.newFileSystem(uri, FILESYSTEM_OPTIONS);
-            return forFileSystem(project.getBuild().getFinalName(), fs, componentsBasePath);
+            return forFileSystem(project.getBuild().getFinalName(), fs, componentsBasePath, cache);
         } catch (IOException e) {
             // exception caught here are critical for the execution, so no further handling
             throw new PluginException(CANNOT_WRITE_TO_PACKAGE_EXCEPTION_MESSAGE + project.getBuild().getFinalName(), e);
         }
     }
 
+    /**
+     * Initializes an instance of {@link PackageWriter} that stores AEM components' data into an exploded folder, such as
+     * the {@code jcr_root}-containing folder the package is later built from, or a folder watched by a synchronization tool.
+     * Unlike {@link PackageWriter#forMavenProject(MavenProject, String, GenerationCache)}, no package archive is opened
+     * or recompressed
+     * @param project {@code MavenProject instance}
+     * @param directory {@code Path} to the folder; a relative path is resolved against the project base folder
+     * @param componentsBasePath Path to the sub-folder within the folder under which AEM component folders are situated
+     * @param cache {@code GenerationCache} instance, or null if caching is not used
+     * @return {@code PackageWriter} instance
+     */
+    public static PackageWriter forDirectory(MavenProject project, Path directory, String componentsBasePath, GenerationCache cache) {
+        if (project == null) {
+            throw new PluginException(INVALID_PROJECT_EXCEPTION_MESSAGE);
+        }
+        if (StringUtils.isBlank(componentsBasePath)) {
+            throw new PluginException(COMPONENT_PATH_MISSING_EXCEPTION_MESSAGE + project.getBuild().getFinalName());
+        }
+        Path basePath = project.getBasedir().toPath().resolve(directory).resolve(componentsBasePath);
+        if (!Files.isDirectory(basePath)) {
+            throw new PluginException(CANNOT_WRITE_TO_PACKAGE_EXCEPTION_MESSAGE + basePath);
+        }
+        return forFileSystem(project.getBuild().getFinalName(), FileSystems.getDefault(), basePath.toString(), cache);
+    }
+
+    /**
+     * Initializes an instance of {@link PackageWriter} that stores AEM components' data into a staging folder, one
+     * sub-folder per component, so that the data can be later injected into the package with {@link PackageWriter#inject(Path)}.
+     * Previous content of the staging folder is removed, and component folders are created as needed
+     * @param project {@code MavenProject instance}
+     * @param directory {@code Path} to the staging folder
+     * @param cache {@code GenerationCache} instance, or null if caching is not used
+     * @return {@code PackageWriter} instance
+     */
+    public static PackageWriter forStagingDirectory(MavenProject project, Path directory, GenerationCache cache) {
+        if (project == null) {
+            throw new PluginException(INVALID_PROJECT_EXCEPTION_MESSAGE);
+        }
+        try {
+            if (Files.exists(directory)) {
+                try (Stream<Path> files = Files.walk(directory)) {
+                    for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                        Files.delete(file);
+                    }
+                }
+            }
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new PluginException(CANNOT_WRITE_TO_PACKAGE_EXCEPTION_MESSAGE + directory, e);
+        }
+        PackageWriter packageWriter = forFileSystem(project.getBuild().getFinalName(), FileSystems.getDefault(), directory.toString(), cache);
+        packageWriter.staging = true;
+        return packageWriter;
+    }
+
     /**
      * Initializes an instance of {@link PackageWriter} profiled for the particular {@link FileSystem} representing
      * the structure of the package
      * @param projectName Name of the project this file system contains information for
      * @param fileSystem Current {@link FileSystem} instance
      * @param componentsBasePath Path to the sub-folder within package under which AEM component folders are situated
+     * @param cache {@code GenerationCache} instance, or null if caching is not used
      * @return {@code PackageWriter} instance
      */
-    private static PackageWriter forFileSystem(String projectName, FileSystem fileSystem, String componentsBasePath) {
-        List<PackageEntryWriter> writers;
-        try {
-            DocumentBuilder documentBuilder = createDocumentBuilder();
-            Transformer transformer = createTransformer();
-            writers = Arrays.asList(
-                    new ContentXmlWriter(documentBuilder, transformer),
-                    new CqEditConfigWriter(documentBuilder, transformer),
-                    new CqDialogWriter(documentBuilder, transformer)
-            );
-        } catch (ParserConfigurationException | TransformerConfigurationException e) {
-            // exceptions caught here are due to possible XXE security vulnerabilities, so no further handling
-            throw new PluginException(CANNOT_WRITE_TO_PACKAGE_EXCEPTION_MESSAGE + projectName, e);
-        }
-        return new PackageWriter(fileSystem, componentsBasePath, writers);
+    private static PackageWriter forFileSystem(String projectName, FileSystem fileSystem, String componentsBasePath, GenerationCache cache) {
+        return new PackageWriter(projectName, fileSystem, componentsBasePath, cache);
     }
 
     /**
@@ -165,7 +386,7 @@ public class PackageWriter implements AutoCloseable {
      * @throws ParserConfigurationException in case security feature cannot be set
      */
     static DocumentBuilder createDocumentBuilder() throws ParserConfigurationException {
-        DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+        DocumentBuilderFactory dbf = XmlFactories.newDocumentBuilderFactory();
         dbf.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
         for(Map.Entry<String, Boolean> feature : DOCUMENT_BUILDER_FACTORY_SECURITY_FEATURES.entrySet()) {
             dbf.setFeature(feature.getKey(), feature.getValue());
@@ -182,7 +403,7 @@ public class PackageWriter implements AutoCloseable {
      * @throws TransformerConfigurationException in case security attributes cannot be set
      */
     static Transformer createTransformer() throws TransformerConfigurationException {
-        TransformerFactory transformerFactory = TransformerFactory.newInstance();
+        TransformerFactory transformerFactory = XmlFactories.newTransformerFactory();
         transformerFactory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
         transformerFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
         transformerFactory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
@@ -14,6 +14,7 @@
 package com.exadel.aem.toolkit.core.util;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -23,33 +24,41 @@ import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URL;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.Comparator;
-import java.util.LinkedList;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Objects;
-import java.util.function.Predicate;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.google.common.io.Resources;
 
-import org.reflections.Reflections;
-import org.reflections.scanners.SubTypesScanner;
-import org.reflections.scanners.TypeAnnotationsScanner;
-import org.reflections.util.ConfigurationBuilder;
-
+import com.exadel.aem.toolkit.api.annotations.editconfig.EditConfig;
+import com.exadel.aem.toolkit.api.annotations.editconfig.InplaceEditingConfig;
 import com.exadel.aem.toolkit.api.annotations.main.Dialog;
-import com.exadel.aem.toolkit.api.annotations.widgets.DialogField;
-import com.exadel.aem.toolkit.api.annotations.widgets.IgnoreField;
+import com.exadel.aem.toolkit.api.annotations.widgets.Checkbox;
+import com.exadel.aem.toolkit.api.annotations.widgets.Extends;
+import com.exadel.aem.toolkit.api.annotations.widgets.FieldSet;
+import com.exadel.aem.toolkit.api.annotations.widgets.MultiField;
 import com.exadel.aem.toolkit.api.handlers.DialogHandler;
 import com.exadel.aem.toolkit.api.handlers.DialogWidgetHandler;
 import com.exadel.aem.toolkit.api.runtime.Injected;
 import com.exadel.aem.toolkit.api.runtime.RuntimeContext;
 import com.exadel.aem.toolkit.core.exceptions.ExtensionApiException;
+import com.exadel.aem.toolkit.core.exceptions.ReflectionException;
 import com.exadel.aem.toolkit.core.maven.PluginRuntime;
 import com.exadel.aem.toolkit.core.maven.PluginRuntimeContext;
 
@@ -57,51 +66,23 @@ import com.exadel.aem.toolkit.core.maven.PluginRuntimeContext;
  * Contains utility methods for manipulating AEM components Java classes, their fields, and the annotations these fields are marked with
  */
 public class PluginReflectionUtility {
-    /**
-     * Default all-allowed predicate for {@code Field} instances
-     */
-    private static final Predicate<Field> TRUE_PREDICATE = field -> true;
-    /**
-     * Predicate for picking out non-static {@code Field} instances
-     */
-    private static final Predicate<Field> NON_STATIC_FIELD_PREDICATE = field -> !Modifier.isStatic(field.getModifiers());
-    /**
-     * Predicate for picking out {@code Field} instances marked with {@code IgnoreField} annotation
-     */
-    private static final Predicate<Field> IGNORE_PROPERTY = field -> field.getAnnotation(IgnoreField.class) != null;
-    /**
-     * Comparison function for sorting {@code Field} based on their {@code DialogField} annotations' ranking values
-     */
-    private static final Comparator<Field> FIELD_RANKING_COMPARATOR = (f1, f2) -> {
-        int rank1 = 0;
-        int rank2 = 0;
-        if (f1.isAnnotationPresent(DialogField.class)) {
-            DialogField dialogField1 = f1.getAnnotationsByType(DialogField.class)[0];
-            rank1 = dialogField1.ranking();
-        }
-        if (f2.isAnnotationPresent(DialogField.class)) {
-            DialogField dialogField2 = f2.getAnnotationsByType(DialogField.class)[0];
-            rank2 = dialogField2.ranking();
-        }
-        if (rank1 != rank2) {
-            return Integer.compare(rank1, rank2);
-        }
-        if (f1.getDeclaringClass() != f2.getDeclaringClass()) {
-            if (ClassUtils.isAssignable(f1.getDeclaringClass(), f2.getDeclaringClass())) {
-                return 1;
-            }
-            if (ClassUtils.isAssignable(f2.getDeclaringClass(), f1.getDeclaringClass())) {
-                return -1;
-            }
-        }
-        return 0;
-    };
+    private static final Logger LOG = LoggerFactory.getLogger("AEM Authoring Toolkit");
+
     private static final String PACKAGE_BASE_WILDCARD = ".*";
+    private static final String PACKAGE_BASE_SEPARATOR = ",";
+    private static final String API_PACKAGE = "com.exadel.aem.toolkit.api.";
+    private static final String CANNOT_LOAD_CLASS_EXCEPTION_MESSAGE = "Cannot load class ";
+    private static final String SERVICES_FOLDER = "META-INF/services/";
+    private static final String SERVICES_COMMENT = "#";
+
+    private static final int ARRAY_HEADER_SIZE = 16;
+    private static final int STRING_HEADER_SIZE = 24;
+    private static final int REFERENCE_SIZE = 4;
 
-    private org.reflections.Reflections reflections;
-    private List<DialogWidgetHandler> customDialogWidgetHandlers;
-    private List<DialogHandler> customDialogHandlers;
-    private String packageBase;
+    private String[] componentClassNames;
+    private URLClassLoader classLoader;
+    private HandlerRegistry<DialogWidgetHandler> widgetHandlers;
+    private HandlerRegistry<DialogHandler> dialogHandlers;
 
 
     private PluginReflectionUtility() {
@@ -112,40 +93,145 @@ public class PluginReflectionUtility {
      * scope of this Maven plugin
      * @param elements List of classpath elements
      * @param packageBase String representing package prefix of processable AEM backend components, like {@code com.acme.aem.components.*}.
-     *                      If not specified, all available components will be processed
+     *                      Several comma-separated prefixes can be specified. If not specified, all available components
+     *                      will be processed
      * @return {@link PluginReflectionUtility} instance
      */
     public static PluginReflectionUtility fromCodeScope(List<String> elements, String packageBase) {
-        URL[] urls = new URL[] {};
+        return fromCodeScope(elements, packageBase, new ClasspathScanCache());
+    }
+
+    /**
+     * Used to initialize {@code PluginReflectionUtility} instance based on list of available classpath entries in the
+     * scope of this Maven plugin. Classpath elements already scanned within the {@link ClasspathScanCache} are not scanned
+     * again
+     * @param elements List of classpath elements
+     * @param packageBase String representing package prefix of processable AEM backend components, like {@code com.acme.aem.components.*}.
+     *                      Several comma-separated prefixes can be specified. If not specified, all available components
+     *                      will be processed
+     * @param scanCache {@code ClasspathScanCache} instance that stores scan results of particular classpath elements
+     * @return {@link PluginReflectionUtility} instance
+     */
+    public static PluginReflectionUtility fromCodeScope(List<String> elements, String packageBase, ClasspathScanCache scanCache) {
+        return fromCodeScope(elements, elements, packageBase, scanCache);
+    }
+
+    /**
+     * Used to initialize {@code PluginReflectionUtility} instance based on list of available classpath entries in the
+     * scope of this Maven plugin. Only the specified subset of classpath elements is scanned for AEM components and custom
+     * handlers, while classes are loaded from all the elements
+     * @param elements List of classpath elements
+     * @param scannedElements Collection of classpath elements to scan, or null to scan all the elements
+     * @param packageBase String representing package prefix of processable AEM backend components, like {@code com.acme.aem.components.*}.
+     *                      Several comma-separated prefixes can be specified. If not specified, all available components
+     *                      will be processed
+     * @param scanCache {@code ClasspathScanCache} instance that stores scan results of particular classpath elements
+     * @return {@link PluginReflectionUtility} instance
+     */
+    public static PluginReflectionUtility fromCodeScope(List<String> elements, Collection<String> scannedElements, String packageBase, ClasspathScanCache scanCache) {
+        List<String> existingElements = new ArrayList<>();
+        List<URL> urls = new ArrayList<>();
         if (elements != null) {
-            urls = elements.stream()
-                    .map(File::new)
-                    .map(File::toURI)
-                    .map(PluginReflectionUtility::toUrl)
-                    .filter(Objects::nonNull).toArray(URL[]::new);
+            for (String element : elements) {
+                URL url = toUrl(new File(element).toURI());
+                if (url != null) {
+                    existingElements.add(element);
+                    urls.add(url);
+                }
+            }
         }
-        Reflections reflections = new org.reflections.Reflections(new ConfigurationBuilder()
-                .addClassLoader(new URLClassLoader(urls, PluginReflectionUtility.class.getClassLoader()))
-                .setUrls(urls)
-                .setScanners(new TypeAnnotationsScanner(), new SubTypesScanner()));
+        URLClassLoader classLoader = new URLClassLoader(urls.toArray(new URL[0]), PluginReflectionUtility.class.getClassLoader());
+        List<ClassIndex> indices = scanCache.get(existingElements.stream()
+                .filter(element -> scannedElements == null || scannedElements.contains(element))
+                .collect(Collectors.toList()));
+        List<String> packageBases = Arrays.stream(StringUtils.split(StringUtils.defaultString(packageBase), PACKAGE_BASE_SEPARATOR))
+                .map(base -> StringUtils.strip(base.trim(), PACKAGE_BASE_WILDCARD))
+                .filter(StringUtils::isNotEmpty)
+                .collect(Collectors.toList());
+
+        // the merged index spans the whole scanned classpath, so only the names needed for generation are retained
+        ClassIndex classIndex = ClassIndex.merge(indices);
         PluginReflectionUtility newInstance = new PluginReflectionUtility();
-        newInstance.reflections = reflections;
-        newInstance.packageBase = StringUtils.strip(StringUtils.defaultString(packageBase, StringUtils.EMPTY),
-                PACKAGE_BASE_WILDCARD);
+        newInstance.classLoader = classLoader;
+        newInstance.componentClassNames = classIndex.getAnnotatedTypes().stream()
+                .filter(name -> packageBases.isEmpty() || packageBases.stream().anyMatch(name::startsWith))
+                .sorted()
+                .toArray(String[]::new);
+        String[] widgetHandlerNames = classIndex.getSubTypesOf(DialogWidgetHandler.class.getName()).toArray(new String[0]);
+        String[] dialogHandlerNames = classIndex.getSubTypesOf(DialogHandler.class.getName()).toArray(new String[0]);
+        newInstance.widgetHandlers = new HandlerRegistry<>(
+                () -> newInstance.getHandlerClasses(DialogWidgetHandler.class, widgetHandlerNames),
+                PluginReflectionUtility::getHandlerInstance,
+                DialogWidgetHandler::getName);
+        newInstance.dialogHandlers = new HandlerRegistry<>(
+                () -> newInstance.getHandlerClasses(DialogHandler.class, dialogHandlerNames),
+                PluginReflectionUtility::getHandlerInstance,
+                DialogHandler::getName);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Discovered {} component(s) and {} custom handler(s) among {} indexed classes; retained ~{} bytes",
+                    newInstance.componentClassNames.length,
+                    widgetHandlerNames.length + dialogHandlerNames.length,
+                    classIndex.size(),
+                    getRetainedSize(newInstance.componentClassNames, widgetHandlerNames, dialogHandlerNames));
+        }
         return newInstance;
     }
 
+    /**
+     * Estimates the heap size occupied by the specified arrays of names, assuming the layout of a 64-bit JVM with
+     * compressed references and compact strings
+     * @param arrays Arrays of names
+     * @return Approximate number of bytes
+     */
+    private static long getRetainedSize(String[]... arrays) {
+        long result = 0;
+        for (String[] array : arrays) {
+            result += ARRAY_HEADER_SIZE + (long) REFERENCE_SIZE * array.length;
+            for (String value : array) {
+                result += STRING_HEADER_SIZE + ARRAY_HEADER_SIZE + value.length();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Releases the class loader that the classes of the current code scope are loaded with. Classes already loaded
+     * remain usable, but no new classes or resources can be retrieved after this method is called
+     */
+    public void close() {
+        try {
+            classLoader.close();
+        } catch (IOException e) {
+            PluginRuntime.context().getExceptionHandler().handle(e);
+        }
+    }
+
     /**
      * Initializes as necessary and returns collection of {@code CustomDialogComponentHandler}s defined within the Compile
      * scope the plugin is operating in
      * @return {@code List<DialogWidgetHandler>} of instances
      */
     public List<DialogWidgetHandler> getCustomDialogWidgetHandlers() {
-        if (customDialogWidgetHandlers != null) {
-            return customDialogWidgetHandlers;
-        }
-        customDialogWidgetHandlers = getHandlers(DialogWidgetHandler.class);
-        return customDialogWidgetHandlers;
+        return widgetHandlers.getAll();
+    }
+
+    /**
+     * Initializes as necessary and returns the {@code CustomDialogComponentHandler}s having the specified name
+     * @param name Name of a handler as referred to by the {@code source} of a {@code DialogWidgetAnnotation}
+     * @return {@code List<DialogWidgetHandler>} of instances
+     */
+    public List<DialogWidgetHandler> getCustomDialogWidgetHandlers(String name) {
+        return widgetHandlers.getByName(name);
+    }
+
+    /**
+     * Initializes as necessary and returns the {@code CustomDialogComponentHandler}s that declare the specified widget
+     * annotation via {@code @HandlesWidgets}
+     * @param annotationType Type of the widget annotation
+     * @return {@code List<DialogWidgetHandler>} of instances
+     */
+    public List<DialogWidgetHandler> getCustomDialogWidgetHandlers(Class<? extends Annotation> annotationType) {
+        return widgetHandlers.getByWidgetAnnotation(annotationType);
     }
 
     /**
@@ -154,11 +240,27 @@ public class PluginReflectionUtility {
      * @return {@code List<DialogHandler>} of instances
      */
     List<DialogHandler> getCustomDialogHandlers() {
-        if (customDialogHandlers != null) {
-            return customDialogHandlers;
-        }
-        customDialogHandlers = getHandlers(DialogHandler.class);
-        return customDialogHandlers;
+        return dialogHandlers.getAll();
+    }
+
+    /**
+     * Initializes as necessary and returns the {@code CustomDialogHandler}s having the specified name
+     * @param name Name of a handler as referred to by the {@code source} of a {@code DialogAnnotation}
+     * @return {@code List<DialogHandler>} of instances
+     */
+    List<DialogHandler> getCustomDialogHandlers(String name) {
+        return dialogHandlers.getByName(name);
+    }
+
+    /**
+     * Retrieves the classes of all the custom handlers defined within the Compile scope the plugin is operating in.
+     * The handlers are not instantiated
+     * @return {@code List<Class>} of handler classes
+     */
+    List<Class<?>> getCustomHandlerClasses() {
+        List<Class<?>> result = new ArrayList<>(widgetHandlers.getClasses());
+        result.addAll(dialogHandlers.getClasses());
+        return result;
     }
 
     /**
@@ -168,25 +270,101 @@ public class PluginReflectionUtility {
      * @return {@code List<Class>} of instances
      */
     public List<Class<?>> getComponentClasses() {
-        return reflections.getTypesAnnotatedWith(Dialog.class, true).stream()
-                .filter(cls -> StringUtils.isEmpty(packageBase) || cls.getName().startsWith(packageBase))
+        return getComponentClasses(Collections.emptySet());
+    }
+
+    /**
+     * Returns list of {@code @Dialog}-annotated classes within the Compile scope the plugin is operating in, except for
+     * the classes with the specified names, which are not loaded
+     * @param excludedNames Names of the classes to skip, such as the components listed in {@link CompiledMarkup}
+     * @return {@code List<Class>} of instances
+     */
+    public List<Class<?>> getComponentClasses(Set<String> excludedNames) {
+        return Arrays.stream(componentClassNames)
+                .filter(name -> !excludedNames.contains(name))
+                .map(this::loadClass)
+                .filter(cls -> cls != null && cls.isAnnotationPresent(Dialog.class))
                 .collect(Collectors.toList());
     }
 
     /**
-     * Gets generic list of handler instances invoked from all available derivatives of specified handler {@code Class}.
-     * Each is supplied with a reference to {@link PluginRuntimeContext} as required
+     * Retrieves the markup rendered at compile time for the {@code @Dialog}-annotated classes within the Compile scope
+     * the plugin is operating in. The components that use annotations declared by custom handlers via
+     * {@code @HandlesWidgets} are skipped, since the markup has been rendered with built-in handlers only
+     * @return {@link CompiledMarkup} instance
+     */
+    public CompiledMarkup getCompiledMarkup() {
+        try {
+            return CompiledMarkup.read(classLoader, Arrays.asList(componentClassNames), widgetHandlers.getWidgetAnnotationNames());
+        } catch (IOException e) {
+            PluginRuntime.context().getExceptionHandler().handle(e);
+            return new CompiledMarkup(Collections.emptyList());
+        }
+    }
+
+    /**
+     * Loads the classes of all available derivatives of specified handler {@code Class}. These are the classes discovered
+     * by scanning the classpath, and the classes declared in {@code META-INF/services} files named after the handler
+     * {@code Class}, so that libraries of handlers can be excluded from scanning
      * @param handlerClass {@code Class} object
+     * @param handlerNames Names of the classes discovered as derivatives of the handler {@code Class}
      * @param <T> Expected handler type
-     * @return {@link List<T>} of instances
+     * @return {@code List<Class>} of concrete handler classes
      */
-    private <T> List<T> getHandlers(Class<? extends T> handlerClass) {
-        return reflections.getSubTypesOf(handlerClass).stream()
-                .map(PluginReflectionUtility::getHandlerInstance)
-                .filter(Objects::nonNull)
+    @SuppressWarnings("unchecked")
+    private <T> List<Class<? extends T>> getHandlerClasses(Class<T> handlerClass, String[] handlerNames) {
+        Set<String> names = new TreeSet<>(Arrays.asList(handlerNames));
+        names.addAll(getServiceDeclarations(handlerClass));
+        return names.stream()
+                .map(this::loadClass)
+                .filter(cls -> cls != null && handlerClass.isAssignableFrom(cls))
+                .filter(cls -> !cls.isInterface() && !Modifier.isAbstract(cls.getModifiers()))
+                .map(cls -> (Class<? extends T>) cls)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Reads the names of implementations of the specified service from the {@code META-INF/services} files available
+     * within the current code scope. The files follow the format used by {@link java.util.ServiceLoader}, but the classes
+     * are not instantiated
+     * @param serviceClass {@code Class} of the service
+     * @return Set of class names
+     */
+    private Set<String> getServiceDeclarations(Class<?> serviceClass) {
+        Set<String> result = new LinkedHashSet<>();
+        try {
+            Enumeration<URL> resources = classLoader.getResources(SERVICES_FOLDER + serviceClass.getName());
+            while (resources.hasMoreElements()) {
+                for (String line : Resources.readLines(resources.nextElement(), StandardCharsets.UTF_8)) {
+                    String name = StringUtils.substringBefore(line, SERVICES_COMMENT).trim();
+                    if (!name.isEmpty()) {
+                        result.add(name);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            PluginRuntime.context().getExceptionHandler().handle(e);
+        }
+        return result;
+    }
+
+    /**
+     * Loads the class with the specified name within the current code scope. The class is not initialized
+     * @param className Name of the class
+     * @return {@code Class} instance, or null if the class cannot be loaded
+     */
+    private Class<?> loadClass(String className) {
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            PluginRuntime.context().getExceptionHandler().handle(new ReflectionException(CANNOT_LOAD_CLASS_EXCEPTION_MESSAGE + className, e));
+        } catch (LinkageError e) {
+            PluginRuntime.context().getExceptionHandler().handle(new ReflectionException(CANNOT_LOAD_CLASS_EXCEPTION_MESSAGE + className,
+                    new ClassNotFoundException(className, e)));
+        }
+        return null;
+    }
+
     /**
      * Creates new instance object of a handler {@code Class} and populates {@link RuntimeContext} instance to
      * every field annotated with {@link Injected}
@@ -212,14 +390,15 @@ public class PluginReflectionUtility {
     }
 
     /**
-     * Used to set a reference to {@link PluginRuntimeContext} to the handler instance
+     * Used to set a reference to {@link PluginRuntimeContext} to the handler instance. Since handler instances are shared
+     * between threads, the reference resolves to the context of the thread the handler is invoked from
      * @param handler Handler instance
      * @param field The field of handler to populate
      */
     private static void populateRuntimeContext(Object handler, Field field) {
         field.setAccessible(true);
         try {
-            field.set(handler, PluginRuntime.context());
+            field.set(handler, PluginRuntime.threadBoundContext());
         } catch (IllegalAccessException e) {
             PluginRuntime.context().getExceptionHandler().handle(new ExtensionApiException(handler.getClass(), e));
         }
@@ -241,7 +420,7 @@ public class PluginReflectionUtility {
      * @return List of {@code Field} objects
      */
     public static List<Field> getAllIgnoredFields(Class<?> targetClass) {
-        return getAllFields(targetClass, Collections.singletonList(IGNORE_PROPERTY), null);
+        return FieldIndex.of(targetClass).getIgnoredFields();
     }
 
     /**
@@ -250,7 +429,7 @@ public class PluginReflectionUtility {
      * @return List of {@code Field} objects
      */
     public static List<Field> getAllNonStaticFields(Class<?> targetClass) {
-        return getAllFields(targetClass, Collections.singletonList(NON_STATIC_FIELD_PREDICATE), FIELD_RANKING_COMPARATOR);
+        return FieldIndex.of(targetClass).getNonStaticFields();
     }
 
     /**
@@ -259,30 +438,7 @@ public class PluginReflectionUtility {
      * @return List of {@code Field} objects
      */
     public static List<Field> getAllFields(Class<?> targetClass) {
-        return getAllFields(targetClass, Collections.emptyList(), FIELD_RANKING_COMPARATOR);
-    }
-
-    /**
-     * Retrieves an ordered list of all {@code Field}s of a certain {@code Class} that match specific criteria
-     * @param targetClass The class to analyze
-     * @param predicates List of {@code Predicate<Field>} instances to pick up appropriate fields
-     * @param comparator Comparison function to put picked fields in special order
-     * @return List of {@code Field} objects
-     */
-    private static List<Field> getAllFields(Class<?> targetClass, List<Predicate<Field>> predicates, Comparator<Field> comparator) {
-        List<Field> fields = new LinkedList<>();
-        Predicate<Field> predicate = TRUE_PREDICATE;
-        if (predicates != null && !predicates.isEmpty()) {
-            predicate = predicates.stream().filter(Objects::nonNull).reduce(TRUE_PREDICATE, Predicate::and);
-        }
-        for (Class<?> clazz : getAllSuperClasses(targetClass)) {
-            List<Field> classFields = Arrays.stream(clazz.getDeclaredFields())
-                    .filter(predicate)
-                    .collect(Collectors.toList());
-            fields.addAll(classFields);
-        }
-        if (comparator != null) fields.sort(comparator);
-        return fields;
+        return FieldIndex.of(targetClass).getFields();
     }
 
     /**
@@ -297,32 +453,15 @@ public class PluginReflectionUtility {
                 : method.getReturnType();
     }
 
-    /**
-     * Retrieves the sequential list of superclasses of a specific {@code Class}, including this class itself.
-     * Closer ancestors are enumerated first
-     * @param targetClass The class to analyze
-     * @return List of {@code Class} objects
-     */
-    private static List<Class<?>> getAllSuperClasses(Class<?> targetClass) {
-        List<Class<?>> superClasses = new LinkedList<>();
-        if (targetClass != null && !targetClass.isInterface() && !targetClass.equals(Object.class)) {
-            superClasses.add(targetClass);
-            Class<?> superClass = targetClass.getSuperclass();
-            if (superClass != null) {
-                superClasses.addAll(getAllSuperClasses(superClass));
-            }
-        }
-        return superClasses;
-    }
-
     /**
      * Retrieves list of properties of an {@code Annotation} object to which non-default values have been set
      * @param annotation The annotation instance to analyze
      * @return List of {@code Method} instances that represent properties initialized with non-defaults
      */
     public static List<Method> getAnnotationNonDefaultProperties(Annotation annotation) {
-        return Arrays.stream(annotation.annotationType().getDeclaredMethods())
-                .filter(method -> annotationPropertyIsNotDefault(annotation, method))
+        return Arrays.stream(AnnotationDescriptor.of(annotation.annotationType()).getProperties())
+                .filter(property -> property.isNotDefault(annotation))
+                .map(AnnotationDescriptor.Property::getMethod)
                 .collect(Collectors.toList());
     }
 
@@ -333,19 +472,8 @@ public class PluginReflectionUtility {
      * @return True or false
      */
     static boolean annotationPropertyIsNotDefault(Annotation annotation, Method method) {
-        try {
-            Object defaultValue = method.getDefaultValue();
-            if (defaultValue == null) {
-                return true;
-            }
-            Object invocationResult = method.invoke(annotation);
-            if (method.getReturnType().isArray() && ArrayUtils.isEmpty((Object[])invocationResult)) {
-                return false;
-            }
-            return !defaultValue.equals(invocationResult);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            return true;
-        }
+        AnnotationDescriptor.Property property = AnnotationDescriptor.of(method.getDeclaringClass()).getProperty(method.getName());
+        return property == null || property.isNotDefault(annotation);
     }
 
     /**
@@ -354,12 +482,70 @@ public class PluginReflectionUtility {
      * @return True or false
      */
     public static boolean annotationIsNotDefault(Annotation annotation) {
-        return Arrays.stream(annotation.annotationType().getDeclaredMethods())
-                .anyMatch(method -> annotationPropertyIsNotDefault(annotation, method));
+        return Arrays.stream(AnnotationDescriptor.of(annotation.annotationType()).getProperties())
+                .anyMatch(property -> property.isNotDefault(annotation));
     }
 
     /**
-     * Converts {@link URI} parameter, such as of a classpath element, to an {@link URL} instance used by {@link Reflections}
+     * Retrieves the set of classes the markup of the specified AEM component depends on. These are the component class
+     * itself, its superclasses and nested classes (such as {@code @Tab}-annotated ones), {@code @FieldSet} types,
+     * {@code MultiField.field()} classes, {@code @Extends} targets, {@code Checkbox.sublist()} classes,
+     * {@code InplaceEditingConfig.richText()} references, and custom annotation types, collected recursively
+     * @param componentClass Current {@code Class} instance
+     * @return Set of {@code Class} instances
+     */
+    public static Set<Class<?>> getReferencedClasses(Class<?> componentClass) {
+        Set<Class<?>> result = new HashSet<>();
+        Deque<Class<?>> queue = new ArrayDeque<>();
+        queue.add(componentClass);
+        while (!queue.isEmpty()) {
+            Class<?> current = queue.poll();
+            // platform classes are loaded by the bootstrap class loader and are not subject to change between builds
+            if (current.isArray() || current.getClassLoader() == null || !result.add(current)) {
+                continue;
+            }
+            if (current.getSuperclass() != null) {
+                queue.add(current.getSuperclass());
+            }
+            queue.addAll(Arrays.asList(current.getDeclaredClasses()));
+            if (current.isAnnotationPresent(EditConfig.class)) {
+                Arrays.stream(current.getAnnotation(EditConfig.class).inplaceEditing())
+                        .map(InplaceEditingConfig::richText)
+                        .map(Extends::value)
+                        .forEach(queue::add);
+            }
+            for (Field field : current.getDeclaredFields()) {
+                addReferencedClasses(field, queue);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Collects the classes the markup rendered for the specified {@code Field} depends on
+     * @param field {@code Field} instance
+     * @param queue {@code Deque} the classes are added to
+     */
+    private static void addReferencedClasses(Field field, Deque<Class<?>> queue) {
+        if (field.isAnnotationPresent(FieldSet.class)) {
+            queue.add(field.getType());
+        }
+        if (field.isAnnotationPresent(MultiField.class)) {
+            queue.add(field.getAnnotation(MultiField.class).field());
+        }
+        if (field.isAnnotationPresent(Extends.class)) {
+            queue.add(field.getAnnotation(Extends.class).value());
+        }
+        if (field.isAnnotationPresent(Checkbox.class)) {
+            queue.addAll(Arrays.asList(field.getAnnotation(Checkbox.class).sublist()));
+        }
+        Stream.of(field.getDeclaredAnnotations())
+                .map(Annotation::annotationType)
+                .filter(type -> !type.getName().startsWith(API_PACKAGE))
+                .forEach(queue::add);
+    }
+    /**
+     * Converts {@link URI} parameter, such as of a classpath element, to an {@link URL} instance used by the class loader
      * @param uri {@code URI} value
      * @return {@code URL} value
      */
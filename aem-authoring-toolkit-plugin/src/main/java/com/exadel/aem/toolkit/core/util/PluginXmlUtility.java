@@ -14,7 +14,6 @@
 package com.exadel.aem.toolkit.core.util;
 
 import java.lang.annotation.Annotation;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -25,6 +24,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.UnaryOperator;
 import java.util.regex.Pattern;
@@ -34,7 +34,6 @@ import javax.xml.parsers.DocumentBuilder;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpressionException;
-import javax.xml.xpath.XPathFactory;
 
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -49,15 +48,11 @@ import com.google.common.collect.ImmutableMap;
 import com.exadel.aem.toolkit.api.annotations.widgets.attribute.Data;
 import com.exadel.aem.toolkit.api.annotations.widgets.common.XmlScope;
 import com.exadel.aem.toolkit.api.annotations.widgets.rte.RteFeatures;
-import com.exadel.aem.toolkit.api.annotations.meta.IgnorePropertyMapping;
 import com.exadel.aem.toolkit.api.annotations.meta.PropertyMapping;
-import com.exadel.aem.toolkit.api.annotations.meta.PropertyName;
-import com.exadel.aem.toolkit.api.annotations.meta.PropertyScope;
 import com.exadel.aem.toolkit.api.annotations.meta.ResourceTypes;
 import com.exadel.aem.toolkit.api.runtime.XmlUtility;
 import com.exadel.aem.toolkit.core.exceptions.ReflectionException;
 import com.exadel.aem.toolkit.core.maven.PluginRuntime;
-import com.exadel.aem.toolkit.core.util.validation.Validation;
 
 /**
  * Utility methods to process, verify and store AEM TouchUI dialog-related data to XML markup
@@ -82,6 +77,7 @@ public class PluginXmlUtility implements XmlUtility {
     public static final BinaryOperator<String> DEFAULT_ATTRIBUTE_MERGER = (first, second) -> StringUtils.isNotBlank(second) ? second : first;
 
     private Document document;
+    private XPath xPath;
     private String namePrefix = DialogConstants.RELATIVE_PATH_PREFIX;
 
     private XmlNamingHelper fieldNameHelper = XmlNamingHelper.forFieldName(this);
@@ -193,13 +189,15 @@ public class PluginXmlUtility implements XmlUtility {
      * @return {@code Element} instance
      */
     private Element createNodeElement(Function<Annotation, String> nameProvider, Annotation source) {
-        Annotation checkedSource = (Annotation) Validation.forType(source.annotationType()).getFilteredValue(source);
+        AnnotationDescriptor descriptor = AnnotationDescriptor.of(source.annotationType());
+        Annotation checkedSource = (Annotation) descriptor.getValidation().getFilteredValue(source);
         if (checkedSource == null) {
             return null;
         }
         Element newNode = createNodeElement(nameProvider.apply(checkedSource));
-        Arrays.stream(checkedSource.annotationType().getDeclaredMethods())
-                .forEach(method -> XmlAttributeSettingHelper.forMethod(checkedSource, method).setAttribute(newNode));
+        for (AnnotationDescriptor.Property property : descriptor.getProperties()) {
+            XmlAttributeSettingHelper.forProperty(checkedSource, property).setAttribute(newNode);
+        }
         return newNode;
     }
 
@@ -285,21 +283,18 @@ public class PluginXmlUtility implements XmlUtility {
                                      String name,
                                      Annotation source,
                                      BinaryOperator<String> attributeMerger) {
-        try {
-            Method sourceMethod = source.annotationType().getDeclaredMethod(name);
-            if (!PluginReflectionUtility.annotationPropertyIsNotDefault(source, sourceMethod)) {
-                return;
-            }
-            String effectiveName = sourceMethod.isAnnotationPresent(PropertyName.class) && StringUtils.isNotBlank(sourceMethod.getAnnotation(PropertyName.class).value())
-                    ? sourceMethod.getAnnotation(PropertyName.class).value()
-                    : name;
-            XmlAttributeSettingHelper.forMethod(source, sourceMethod)
-                    .withName(effectiveName)
-                    .withMerger(attributeMerger)
-                    .setAttribute(elementSupplier.get());
-        } catch (NoSuchMethodException e) {
+        AnnotationDescriptor.Property property = AnnotationDescriptor.of(source.annotationType()).getProperty(name);
+        if (property == null) {
             PluginRuntime.context().getExceptionHandler().handle(new ReflectionException(source.getClass(), name));
+            return;
+        }
+        if (!property.isNotDefault(source)) {
+            return;
         }
+        XmlAttributeSettingHelper.forProperty(source, property)
+                .withName(property.getAttributeName())
+                .withMerger(attributeMerger)
+                .setAttribute(elementSupplier.get());
     }
 
     @Override
@@ -309,75 +304,39 @@ public class PluginXmlUtility implements XmlUtility {
 
     @Override
     public void mapProperties(Element element, Annotation annotation, XmlScope scope){
-        List<String> skippedFields = Arrays.stream(annotation.annotationType().getDeclaredMethods())
-                .filter(m -> !fitsInScope(m, scope))
-                .map(Method::getName)
-                .collect(Collectors.toList());
-        mapProperties(element, annotation, skippedFields);
+        mapProperties(element, annotation, property -> property.fitsInScope(scope));
     }
 
     @Override
     public void mapProperties(Element element, Annotation annotation, List<String> skipped) {
-        PropertyMapping propMapping = annotation.annotationType().getDeclaredAnnotation(PropertyMapping.class);
-        if (propMapping == null) {
-            return;
-        }
-        String prefix = annotation.annotationType().getAnnotation(PropertyMapping.class).prefix();
-        String nodePrefix = prefix.contains(DialogConstants.PATH_SEPARATOR)
-                ? StringUtils.substringBeforeLast(prefix, DialogConstants.PATH_SEPARATOR)
-                : StringUtils.EMPTY;
-
-        Element currentElement = StringUtils.isEmpty(nodePrefix)
-                ? element
-                : Pattern.compile(DialogConstants.PATH_SEPARATOR).splitAsStream(nodePrefix)
-                .reduce(element, this::getOrAddChildElement, (prev, next) -> next);
-        Arrays.stream(annotation.annotationType().getDeclaredMethods())
-                .filter(m -> ArrayUtils.isEmpty(propMapping.mappings()) || ArrayUtils.contains(propMapping.mappings(), m.getName()))
-                .filter(m -> !m.isAnnotationPresent(IgnorePropertyMapping.class))
-                .filter(m -> !skipped.contains(m.getName()))
-                .forEach(m -> populateProperty(m, currentElement, annotation));
+        mapProperties(element, annotation, property -> !skipped.contains(property.getName()));
     }
 
     /**
-     * Sets value of a particular {@code Annotation} property to an {@code Element} node
-     * @param method {@code Method} instance representing a property of an annotation
+     * Maps the properties of an {@code Annotation} marked with {@link PropertyMapping} to attributes of an {@code Element}
+     * node or of its child node, as specified by the {@code PropertyMapping} prefix
      * @param element Element node
-     * @param annotation Annotation to look for a value in
+     * @param annotation Annotation to look for values in
+     * @param filter Routine that picks the properties to map
      */
-    private static void populateProperty(Method method, Element element, Annotation annotation) {
-        String name = method.getName();
-        boolean ignorePrefix = false;
-        if (method.isAnnotationPresent(PropertyName.class)) {
-            PropertyName propertyName = method.getAnnotation(PropertyName.class);
-            name = propertyName.value();
-            ignorePrefix = propertyName.ignorePrefix();
-        }
-        String prefix = annotation.annotationType().getAnnotation(PropertyMapping.class).prefix();
-        String namePrefix = prefix.contains(DialogConstants.PATH_SEPARATOR)
-                ? StringUtils.substringAfterLast(prefix, DialogConstants.PATH_SEPARATOR)
-                : prefix;
-        if (!ignorePrefix && StringUtils.isNotBlank(prefix)) {
-            name = namePrefix + name;
+    private void mapProperties(Element element, Annotation annotation, Predicate<AnnotationDescriptor.Property> filter) {
+        AnnotationDescriptor descriptor = AnnotationDescriptor.of(annotation.annotationType());
+        if (!descriptor.isMapped()) {
+            return;
         }
+        Element currentElement = StringUtils.isEmpty(descriptor.getNodePrefix())
+                ? element
+                : Pattern.compile(DialogConstants.PATH_SEPARATOR).splitAsStream(descriptor.getNodePrefix())
+                .reduce(element, this::getOrAddChildElement, (prev, next) -> next);
         BinaryOperator<String> merger = PluginXmlUtility::mergeStringAttributes;
-        XmlAttributeSettingHelper.forMethod(annotation, method)
-                .withName(name)
-                .withMerger(merger)
-                .setAttribute(element);
-    }
-
-    /**
-     * Gets whether this annotation method falls within the specified {@link PropertyScope}. True if no scope specified
-     * for method (that is, the method is applicable to any scope
-     * @param method {@code Method} instance representing a property of an annotation
-     * @param scope {@code PropertyScope} value
-     * @return True or false
-     */
-    private static boolean fitsInScope(Method method, XmlScope scope) {
-        if (!method.isAnnotationPresent(PropertyScope.class)) {
-            return true;
+        for (AnnotationDescriptor.Property property : descriptor.getProperties()) {
+            if (property.isMapped() && filter.test(property)) {
+                XmlAttributeSettingHelper.forProperty(annotation, property)
+                        .withName(property.getMappedName())
+                        .withMerger(merger)
+                        .setAttribute(currentElement);
+            }
         }
-        return Arrays.asList(method.getAnnotation(PropertyScope.class).value()).contains(scope);
     }
 
     /**
@@ -516,10 +475,13 @@ public class PluginXmlUtility implements XmlUtility {
      * @return List of {@code Element}s, or an empty list
      */
     List<Element> getElementNodes(String xPath) {
-        XPath xPathInstance = XPathFactory.newInstance().newXPath();
+        if (this.xPath == null) {
+            // created upon the first request since most components do not use XPath-addressed properties
+            this.xPath = XmlFactories.newXPath();
+        }
         List<Element> result = new ArrayList<>();
         try {
-            NodeList nodes = (NodeList)xPathInstance.evaluate(xPath, document, XPathConstants.NODESET);
+            NodeList nodes = (NodeList)this.xPath.evaluate(xPath, document, XPathConstants.NODESET);
             for (int i = 0; i < nodes.getLength(); i++) {
                 Node node = nodes.item(i);
                 if (node instanceof Document) {
@@ -17,9 +17,8 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Array;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.function.BinaryOperator;
 import java.util.stream.Collectors;
 
@@ -29,7 +28,6 @@ import org.w3c.dom.Element;
 import com.google.common.base.CaseFormat;
 
 import com.exadel.aem.toolkit.api.annotations.meta.EnumValue;
-import com.exadel.aem.toolkit.api.annotations.meta.IgnoreValue;
 import com.exadel.aem.toolkit.api.annotations.meta.StringTransformation;
 import com.exadel.aem.toolkit.api.annotations.widgets.rte.RteFeatures;
 import com.exadel.aem.toolkit.core.exceptions.ReflectionException;
@@ -51,7 +49,7 @@ class XmlAttributeSettingHelper<T> {
     private boolean valueTypeIsSupported;
 
     private Annotation annotation;
-    private Method method;
+    private AnnotationDescriptor.Property property;
     private String name;
     private String ignoredValue;
 
@@ -70,31 +68,25 @@ class XmlAttributeSettingHelper<T> {
     }
 
     /**
-     * Retrieves XmlAttributeSettingHelper for particular {@code Annotation}'s property
+     * Retrieves XmlAttributeSettingHelper for particular {@code Annotation}'s property described with an {@link AnnotationDescriptor}
      * @param annotation Target annotation
-     * @param method Method representing target annotation's property
+     * @param property {@code AnnotationDescriptor.Property} representing target annotation's property
      * @return New {@code XmlAttributeSettingHelper} instance
      */
-    static XmlAttributeSettingHelper forMethod(Annotation annotation, Method method) {
-        XmlAttributeSettingHelper attributeSetter = new XmlAttributeSettingHelper<>(getMethodWrappedType(method));
-        if (!fits(method)) {
+    static XmlAttributeSettingHelper forProperty(Annotation annotation, AnnotationDescriptor.Property property) {
+        XmlAttributeSettingHelper attributeSetter = new XmlAttributeSettingHelper<>(getMethodWrappedType(property.getMethod()));
+        if (!property.isRenderable()) {
             return attributeSetter;
         }
         attributeSetter.valueTypeIsSupported = true;
-        attributeSetter.method = method;
+        attributeSetter.property = property;
         attributeSetter.annotation = annotation;
-        attributeSetter.name = method.getName();
-        attributeSetter.isEnum = method.getReturnType().isEnum()
-                || (method.getReturnType().getComponentType() != null
-                && method.getReturnType().getComponentType().isEnum());
-        if (method.isAnnotationPresent(EnumValue.class)) {
-            attributeSetter.enumModifier = method.getDeclaredAnnotation(EnumValue.class);
-        }
-        if (method.isAnnotationPresent(IgnoreValue.class)) {
-            attributeSetter.ignoredValue = method.getAnnotation(IgnoreValue.class).value();
-        }
-        if (PluginReflectionUtility.annotationPropertyIsNotDefault(annotation, method)) {
-            attributeSetter.validationChecker = Validation.forMethod(method);
+        attributeSetter.name = property.getName();
+        attributeSetter.isEnum = property.isEnum();
+        attributeSetter.enumModifier = property.getEnumModifier();
+        attributeSetter.ignoredValue = property.getIgnoredValue();
+        if (property.isNotDefault(annotation)) {
+            attributeSetter.validationChecker = property.getValidation();
         }
         return attributeSetter;
     }
@@ -144,19 +136,15 @@ class XmlAttributeSettingHelper<T> {
             return;
         }
         try {
-            Object invocationResult = method.invoke(annotation);
-            if (method.getReturnType().isArray()) {
-                List<T> invocationResultList = Arrays.stream(castToArray(invocationResult))
-                        .map(this::cast)
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toList());
-                setAttribute(element, invocationResultList);
+            Object invocationResult = property.getValue(annotation);
+            if (property.isArray()) {
+                setAttribute(element, castToList(invocationResult));
             } else {
                 setAttribute(element, cast(invocationResult));
             }
         } catch (IllegalAccessException | InvocationTargetException e) {
             PluginRuntime.context().getExceptionHandler().handle(new ReflectionException(
-                    String.format(REFLECTION_EXCEPTION_MESSAGE_TEMPLATE, method.getName(), annotation.annotationType().getSimpleName()),
+                    String.format(REFLECTION_EXCEPTION_MESSAGE_TEMPLATE, property.getName(), annotation.annotationType().getSimpleName()),
                     e));
         }
     }
@@ -230,27 +218,24 @@ class XmlAttributeSettingHelper<T> {
     }
 
     /**
-     * Casts generic value to the array possessing entries of current instance's type
-     * @param value Raw value
-     * @return Array of type-casted values
+     * Casts the entries of an array value to current instance's type. Arrays of objects, which is the case for strings
+     * and enums, are read directly; arrays of primitives are read via {@code java.lang.reflect.Array}
+     * @param value Raw array value
+     * @return List of type-casted non-null values
      */
-    private Object[] castToArray(Object value) {
-        Object[] result = new Object[Array.getLength(value)];
-        for (int i = 0; i < result.length; i++) {
-            result[i] = Array.get(value, i);
+    private List<T> castToList(Object value) {
+        int length = Array.getLength(value);
+        List<T> result = new ArrayList<>(length);
+        Object[] objects = value instanceof Object[] ? (Object[]) value : null;
+        for (int i = 0; i < length; i++) {
+            T entry = cast(objects != null ? objects[i] : Array.get(value, i));
+            if (entry != null) {
+                result.add(entry);
+            }
         }
         return result;
     }
 
-    /**
-     * Gets whether specific annotation property/method can be rendered to XML
-     * @param method {@code Method} instance representing an annotation property
-     * @return True or false
-     */
-    private static boolean fits(Method method) {
-        return fits(ClassUtils.primitiveToWrapper(getMethodWrappedType(method)));
-    }
-
     /**
      * Gets whether value of specific type can be rendered to XML
      * @param valueType Annotation's property {@code Class}
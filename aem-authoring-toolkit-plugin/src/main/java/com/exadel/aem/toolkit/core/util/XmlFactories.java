@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.exadel.aem.toolkit.core.util;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.FactoryConfigurationError;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.TransformerFactoryConfigurationError;
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathFactory;
+import javax.xml.xpath.XPathFactoryConfigurationException;
+
+/**
+ * Creates XML factories of the implementations shipped with the JDK. Unlike the plain {@code newInstance()} calls,
+ * this does not involve the lookup of system properties, {@code jaxp.properties} and {@code META-INF/services} entries
+ * of every classpath element, which takes a notable share of the plugin startup time. Besides, the markup does not
+ * depend on an XML library that happens to be on the classpath. If the JDK implementation is not available,
+ * the standard lookup is used
+ */
+final class XmlFactories {
+    private static final String DOCUMENT_BUILDER_FACTORY = "com.sun.org.apache.xerces.internal.jaxp.DocumentBuilderFactoryImpl";
+    private static final String TRANSFORMER_FACTORY = "com.sun.org.apache.xalan.internal.xsltc.trax.TransformerFactoryImpl";
+    private static final String XPATH_FACTORY = "com.sun.org.apache.xpath.internal.jaxp.XPathFactoryImpl";
+
+    private XmlFactories() {
+    }
+
+    /**
+     * Creates a new {@link DocumentBuilderFactory}
+     * @return {@code DocumentBuilderFactory} instance
+     */
+    static DocumentBuilderFactory newDocumentBuilderFactory() {
+        try {
+            return DocumentBuilderFactory.newInstance(DOCUMENT_BUILDER_FACTORY, XmlFactories.class.getClassLoader());
+        } catch (FactoryConfigurationError e) {
+            return DocumentBuilderFactory.newInstance();
+        }
+    }
+
+    /**
+     * Creates a new {@link TransformerFactory}
+     * @return {@code TransformerFactory} instance
+     */
+    static TransformerFactory newTransformerFactory() {
+        try {
+            return TransformerFactory.newInstance(TRANSFORMER_FACTORY, XmlFactories.class.getClassLoader());
+        } catch (TransformerFactoryConfigurationError e) {
+            return TransformerFactory.newInstance();
+        }
+    }
+
+    /**
+     * Creates a new {@link XPath} evaluator
+     * @return {@code XPath} instance
+     */
+    static XPath newXPath() {
+        try {
+            return XPathFactory.newInstance(XPathFactory.DEFAULT_OBJECT_MODEL_URI, XPATH_FACTORY, XmlFactories.class.getClassLoader()).newXPath();
+        } catch (XPathFactoryConfigurationException e) {
+            return XPathFactory.newInstance().newXPath();
+        }
+    }
+}
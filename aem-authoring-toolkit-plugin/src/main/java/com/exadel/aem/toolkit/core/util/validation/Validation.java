@@ -18,6 +18,9 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.ClassUtils;
@@ -40,7 +43,9 @@ public class Validation {
     private static final String ARGUMENT_LIST_FINISHER = ")";
 
     private static final Validator NO_RESTRICTION = new PermissiveValidator();
-    private static List<Validator> testRoutines;
+
+    // shared by all the plugin executions so that a validator is created once per plugin installation
+    private static final ConcurrentMap<String, Validator> TEST_ROUTINES = new ConcurrentHashMap<>();
 
     private Method reflectedMethod;
     private Validator testRoutine;
@@ -137,30 +142,19 @@ public class Validation {
     }
 
     /**
-     * Retrieves {@link Validator} instance for specific class name
+     * Retrieves {@link Validator} instance for specific class name. Validators are created upon the first request
      * @param name Validator name
      * @return {@code Validator} instance
      */
     private static Validator getTestRoutine(String name) {
-        return getTestRoutines().stream()
-                .filter(test -> test.getClass().getSimpleName().equalsIgnoreCase(name))
-                .findFirst()
-                .orElse(NO_RESTRICTION);
-    }
-
-    /**
-     * Retrieves list of all {@link Validator} instances available in current installation
-     * @return List of {@code Validator} instances
-     */
-
-    private static List<Validator> getTestRoutines() {
-        if (testRoutines != null) {
-            return testRoutines;
+        if (StringUtils.isBlank(name)) {
+            return NO_RESTRICTION;
         }
-        testRoutines = Validations.getValidationClassList().stream()
+        return TEST_ROUTINES.computeIfAbsent(name.toLowerCase(Locale.ROOT), key -> Validations.getValidationClassList().stream()
+                .filter(type -> type.getSimpleName().equalsIgnoreCase(key))
+                .findFirst()
                 .map(Validation::createTestInstance)
-                .collect(Collectors.toList());
-        return testRoutines;
+                .orElse(NO_RESTRICTION));
     }
 
     /**
@@ -0,0 +1,32 @@
+package com.exadel.aem.toolkit.core.maven;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AffectedMojoTest {
+    private static final List<Path> SOURCE_ROOTS = Arrays.asList(Paths.get("src", "main", "java"), Paths.get("target", "generated-sources"));
+
+    @Test
+    public void testModuleRelativePaths() {
+        Assert.assertEquals("com.example.Sample", AffectedMojo.getClassName("src/main/java/com/example/Sample.java", SOURCE_ROOTS));
+        Assert.assertEquals("com.example.Generated", AffectedMojo.getClassName("target/generated-sources/com/example/Generated.java", SOURCE_ROOTS));
+    }
+
+    @Test
+    public void testRepositoryRelativePaths() {
+        Assert.assertEquals("com.example.Sample", AffectedMojo.getClassName("core/src/main/java/com/example/Sample.java", SOURCE_ROOTS));
+        Assert.assertEquals("com.example.Sample", AffectedMojo.getClassName("/home/user/repo/core/src/main/java/com/example/Sample.java", SOURCE_ROOTS));
+    }
+
+    @Test
+    public void testOtherPaths() {
+        Assert.assertNull(AffectedMojo.getClassName("src/main/resources/com/example/sample.xml", SOURCE_ROOTS));
+        Assert.assertNull(AffectedMojo.getClassName("README.md", SOURCE_ROOTS));
+        Assert.assertNull(AffectedMojo.getClassName("src/test/java/com/example/SampleTest.java", SOURCE_ROOTS));
+    }
+}
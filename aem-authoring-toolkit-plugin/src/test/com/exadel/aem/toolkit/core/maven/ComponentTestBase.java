@@ -46,6 +46,6 @@ public abstract class ComponentTestBase {
         String folderName = tested.getSimpleName().contains(KEYWORD_TEST)
                 ?  tested.getSimpleName().replace(KEYWORD_TEST, KEYWORD_DIALOG)
                 : KEYWORD_DIALOG + tested.getSimpleName();
-        return TestsConstants.PATH_TO_EXPECTED_FILES + "\\" + RegExUtils.removePattern(folderName, SUFFIX_PATTERN);
+        return TestsConstants.PATH_TO_EXPECTED_FILES + "/" + RegExUtils.removePattern(folderName, SUFFIX_PATTERN);
     }
 }
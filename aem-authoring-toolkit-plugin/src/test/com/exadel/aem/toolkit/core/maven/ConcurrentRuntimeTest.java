@@ -0,0 +1,71 @@
+package com.exadel.aem.toolkit.core.maven;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.exadel.aem.toolkit.core.util.ClasspathScanCache;
+import com.exadel.aem.toolkit.core.util.TestsConstants;
+import com.exadel.aem.toolkit.test.component.ComplexComponent1;
+import com.exadel.aem.toolkit.test.component.ComplexComponent2;
+import com.exadel.aem.toolkit.test.component.ComponentWithRichTextAndExternalClasses;
+import com.exadel.aem.toolkit.test.component.ComponentWithTabsAndInnerClass;
+import com.exadel.aem.toolkit.test.custom.CustomAnnotations;
+
+public class ConcurrentRuntimeTest extends ComponentTestBase {
+    private static final int MODULES_COUNT = 6;
+    private static final int ROUNDS_COUNT = 3;
+
+    private static final List<String> CLASSPATH_ELEMENTS = Arrays.asList(
+            TestsConstants.PLUGIN_MODULE_TARGET,
+            TestsConstants.API_MODULE_TARGET,
+            TestsConstants.PLUGIN_MODULE_TEST_TARGET
+    );
+
+    private static final List<Class<?>> TESTED_CLASSES = Arrays.asList(
+            ComplexComponent1.class,
+            ComplexComponent2.class,
+            ComponentWithRichTextAndExternalClasses.class,
+            ComponentWithTabsAndInnerClass.class,
+            CustomAnnotations.class
+    );
+
+    private final ClasspathScanCache scanCache = new ClasspathScanCache();
+
+    @Test
+    public void testConcurrentRuntimeContexts() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(MODULES_COUNT);
+        try {
+            List<Future<?>> modules = new ArrayList<>();
+            for (int i = 0; i < MODULES_COUNT; i++) {
+                modules.add(executor.submit(this::processModule));
+            }
+            for (Future<?> module : modules) {
+                module.get();
+            }
+            // classpath elements are scanned once and shared between the modules
+            Assert.assertEquals(CLASSPATH_ELEMENTS.size(), scanCache.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void processModule() {
+        // every thread emulates a separate Maven module built within a "mvn -T" reactor
+        PluginRuntime.initialize(CLASSPATH_ELEMENTS, StringUtils.EMPTY, "all", scanCache);
+        try {
+            for (int round = 0; round < ROUNDS_COUNT; round++) {
+                TESTED_CLASSES.forEach(this::testComponent);
+            }
+        } finally {
+            PluginRuntime.close();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.exadel.aem.toolkit.core.maven;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.exadel.aem.toolkit.api.annotations.widgets.common.XmlScope;
+import com.exadel.aem.toolkit.core.util.TestsConstants;
+import com.exadel.aem.toolkit.test.component.ComplexComponent1;
+
+public class DialogGeneratorTest {
+    private static final List<String> CLASSPATH_ELEMENTS = Arrays.asList(
+            TestsConstants.PLUGIN_MODULE_TARGET,
+            TestsConstants.API_MODULE_TARGET,
+            TestsConstants.PLUGIN_MODULE_TEST_TARGET
+    );
+    private static final String PACKAGE_BASE = "com.exadel.aem.toolkit.test.component";
+    private static final String PACKAGE_BASE_2 = "com.exadel.aem.toolkit.test.widget";
+
+    @Test
+    public void testGenerateFromClasspath() throws IOException {
+        try (DialogGenerator generator = DialogGenerator.forClasspath(CLASSPATH_ELEMENTS, PACKAGE_BASE)) {
+            Assert.assertFalse(generator.getComponentClasses().isEmpty());
+            Class<?> componentClass = generator.getComponentClasses().stream()
+                    .filter(cls -> cls.getName().equals(ComplexComponent1.class.getName()))
+                    .findFirst()
+                    .orElseThrow(AssertionError::new);
+
+            PluginRuntimeContext previousContext = PluginRuntime.context();
+            Map<XmlScope, byte[]> entries = generator.generate(componentClass);
+            Assert.assertTrue(entries.containsKey(XmlScope.CQ_DIALOG));
+            Assert.assertTrue(entries.containsKey(XmlScope.CQ_EDIT_CONFIG));
+            Assert.assertSame(previousContext, PluginRuntime.context());
+
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            Assert.assertTrue(generator.generate(componentClass, XmlScope.CQ_DIALOG, outputStream));
+            Assert.assertArrayEquals(entries.get(XmlScope.CQ_DIALOG), outputStream.toByteArray());
+
+            Path directory = Files.createTempDirectory("dialog-generator");
+            Path componentPath = generator.generate(componentClass, directory);
+            Assert.assertNotNull(componentPath);
+            Assert.assertArrayEquals(entries.get(XmlScope.CQ_EDIT_CONFIG), Files.readAllBytes(componentPath.resolve(XmlScope.CQ_EDIT_CONFIG.toString())));
+        }
+    }
+
+    @Test
+    public void testSeveralPackageBases() {
+        try (DialogGenerator first = DialogGenerator.forClasspath(CLASSPATH_ELEMENTS, PACKAGE_BASE);
+             DialogGenerator second = DialogGenerator.forClasspath(CLASSPATH_ELEMENTS, PACKAGE_BASE_2);
+             DialogGenerator combined = DialogGenerator.forClasspath(CLASSPATH_ELEMENTS, PACKAGE_BASE + ", " + PACKAGE_BASE_2 + ".*")) {
+            Assert.assertFalse(second.getComponentClasses().isEmpty());
+            Assert.assertEquals(first.getComponentClasses().size() + second.getComponentClasses().size(),
+                    combined.getComponentClasses().size());
+        }
+    }
+
+    @Test
+    public void testGenerateLoadedClass() {
+        try (DialogGenerator generator = DialogGenerator.newInstance()) {
+            Map<XmlScope, byte[]> first = generator.generate(ComplexComponent1.class);
+            Map<XmlScope, byte[]> second = generator.generate(ComplexComponent1.class);
+            Assert.assertEquals(first.keySet(), second.keySet());
+            first.forEach((scope, content) -> Assert.assertArrayEquals(content, second.get(scope)));
+        }
+    }
+}
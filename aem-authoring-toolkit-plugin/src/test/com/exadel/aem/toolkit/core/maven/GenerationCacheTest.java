@@ -0,0 +1,88 @@
+package com.exadel.aem.toolkit.core.maven;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.exadel.aem.toolkit.api.annotations.main.Dialog;
+import com.exadel.aem.toolkit.core.util.GenerationCache;
+import com.exadel.aem.toolkit.core.util.PackageWriter;
+import com.exadel.aem.toolkit.core.util.TestsConstants;
+import com.exadel.aem.toolkit.test.cache.InvalidDependsOnComponent;
+import com.exadel.aem.toolkit.test.component.ComplexComponent1;
+
+public class GenerationCacheTest {
+    private static final String PACKAGE_NAME = "test";
+    private static final String COMPONENTS_PATH_BASE = "/jcr_root/apps/test/components";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path cacheDirectory;
+    private MavenProject project;
+
+    @Before
+    public void setUp() throws IOException {
+        PluginRuntime.initialize(
+                Arrays.asList(TestsConstants.PLUGIN_MODULE_TARGET, TestsConstants.API_MODULE_TARGET, TestsConstants.PLUGIN_MODULE_TEST_TARGET),
+                "com.exadel.aem.toolkit.test",
+                "none");
+        cacheDirectory = temporaryFolder.newFolder().toPath();
+        Path buildDirectory = temporaryFolder.newFolder().toPath();
+        // the package is expected to already contain the folders of the components
+        URI uri = URI.create("jar:" + buildDirectory.resolve(PACKAGE_NAME + ".zip").toUri());
+        try (FileSystem fileSystem = FileSystems.newFileSystem(uri, Collections.singletonMap("create", "true"))) {
+            for (Class<?> componentClass : Arrays.asList(ComplexComponent1.class, InvalidDependsOnComponent.class)) {
+                Files.createDirectories(fileSystem.getPath(COMPONENTS_PATH_BASE, componentClass.getAnnotation(Dialog.class).name()));
+            }
+        }
+        project = new MavenProject();
+        project.getBuild().setDirectory(buildDirectory.toString());
+        project.getBuild().setFinalName(PACKAGE_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        PluginRuntime.close();
+    }
+
+    @Test
+    public void testMarkupCached() throws IOException {
+        write(ComplexComponent1.class);
+        Assert.assertEquals(1, countEntries());
+        write(ComplexComponent1.class);
+        Assert.assertEquals(1, countEntries());
+    }
+
+    @Test
+    public void testMarkupWithIssuesNotCached() throws IOException {
+        write(InvalidDependsOnComponent.class);
+        Assert.assertEquals(0, countEntries());
+    }
+
+    private void write(Class<?> componentClass) {
+        try (PackageWriter packageWriter = PackageWriter.forMavenProject(project, COMPONENTS_PATH_BASE, new GenerationCache(cacheDirectory, "test"))) {
+            packageWriter.write(componentClass);
+        }
+    }
+
+    private long countEntries() throws IOException {
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            return files.filter(Files::isDirectory).count();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.exadel.aem.toolkit.core.maven;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.project.MavenProject;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.exadel.aem.toolkit.api.annotations.assets.dependson.DependsOn;
+import com.exadel.aem.toolkit.api.annotations.assets.dependson.DependsOnActions;
+import com.exadel.aem.toolkit.api.annotations.main.Dialog;
+import com.exadel.aem.toolkit.api.annotations.widgets.DialogField;
+import com.exadel.aem.toolkit.api.annotations.widgets.TextField;
+import com.exadel.aem.toolkit.core.exceptions.PluginException;
+import com.exadel.aem.toolkit.core.exceptions.ValidationException;
+import com.exadel.aem.toolkit.core.util.PackageWriter;
+import com.exadel.aem.toolkit.core.util.TestsConstants;
+import com.exadel.aem.toolkit.test.common.PropertiesAnnotation;
+import com.exadel.aem.toolkit.test.component.ComplexComponent1;
+import com.exadel.aem.toolkit.test.component.ComplexComponent2;
+import com.exadel.aem.toolkit.test.component.ComponentWithTabsAndInnerClass;
+
+public class PackageWriterTest {
+    private static final String PACKAGE_NAME = "test";
+    private static final String PACKAGE_EXTENSION = ".zip";
+    private static final String COMPONENTS_PATH_BASE = "/jcr_root/apps/test/components";
+
+    // the components have distinct names, so that each is stored to its own folder
+    private static final List<Class<?>> TESTED_CLASSES = Arrays.asList(
+            ComplexComponent1.class,
+            ComponentWithTabsAndInnerClass.class,
+            PropertiesAnnotation.class
+    );
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        List<String> classpathElements = Arrays.asList(
+                TestsConstants.PLUGIN_MODULE_TARGET,
+                TestsConstants.API_MODULE_TARGET,
+                TestsConstants.PLUGIN_MODULE_TEST_TARGET
+        );
+        PluginRuntime.initialize(classpathElements, "com.exadel.aem.toolkit.test", "all");
+    }
+
+    @After
+    public void tearDown() {
+        PluginRuntime.close();
+    }
+
+    @Test
+    public void testConcurrentOutputSameAsSequential() throws IOException {
+        Path sequential = write(TESTED_CLASSES, 1);
+        Path concurrent = write(TESTED_CLASSES, 4);
+
+        try (FileSystem sequentialPackage = openPackage(sequential, false);
+             FileSystem concurrentPackage = openPackage(concurrent, false)) {
+            List<String> entries = listFiles(sequentialPackage);
+            Assert.assertEquals(TESTED_CLASSES.size(), entries.stream()
+                    .map(entry -> sequentialPackage.getPath(entry).getParent())
+                    .distinct()
+                    .count());
+            Assert.assertEquals(entries, listFiles(concurrentPackage));
+            for (String entry : entries) {
+                Assert.assertArrayEquals(entry,
+                        Files.readAllBytes(sequentialPackage.getPath(entry)),
+                        Files.readAllBytes(concurrentPackage.getPath(entry)));
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentFailureRethrown() throws IOException {
+        List<Class<?>> componentClasses = Arrays.asList(
+                ComplexComponent1.class,
+                ComplexComponent2.class,
+                InvalidComponent.class,
+                ComponentWithTabsAndInnerClass.class,
+                PropertiesAnnotation.class);
+        try {
+            write(componentClasses, 4);
+            Assert.fail("The failure of a component must be rethrown");
+        } catch (RuntimeException e) {
+            // the exception thrown by the handler is rethrown as is, not the one of a cancelled task or a wrapper
+            Assert.assertEquals(PluginException.class, e.getClass());
+            Assert.assertTrue(e.getCause() instanceof ValidationException);
+        }
+    }
+
+    private Path write(List<Class<?>> componentClasses, int threads) throws IOException {
+        Path directory = temporaryFolder.newFolder().toPath();
+        // the package is expected to already contain the folders of the components
+        try (FileSystem fileSystem = openPackage(directory, true)) {
+            for (Class<?> componentClass : componentClasses) {
+                Files.createDirectories(fileSystem.getPath(COMPONENTS_PATH_BASE, componentClass.getAnnotation(Dialog.class).name()));
+            }
+        }
+        MavenProject project = new MavenProject();
+        project.getBuild().setDirectory(directory.toString());
+        project.getBuild().setFinalName(PACKAGE_NAME);
+        try (PackageWriter packageWriter = PackageWriter.forMavenProject(project, COMPONENTS_PATH_BASE)) {
+            packageWriter.write(componentClasses, threads);
+        }
+        return directory;
+    }
+
+    private static FileSystem openPackage(Path directory, boolean create) throws IOException {
+        URI uri = URI.create("jar:" + directory.resolve(PACKAGE_NAME + PACKAGE_EXTENSION).toUri());
+        return FileSystems.newFileSystem(uri, create ? Collections.singletonMap("create", "true") : Collections.emptyMap());
+    }
+
+    private static List<String> listFiles(FileSystem fileSystem) throws IOException {
+        try (Stream<Path> files = Files.walk(fileSystem.getPath("/"))) {
+            return files.filter(Files::isRegularFile).map(Path::toString).sorted().collect(Collectors.toList());
+        }
+    }
+
+    @Dialog(
+            name = "invalid-component",
+            title = "Invalid Component"
+    )
+    @SuppressWarnings("unused")
+    public static class InvalidComponent {
+        @DialogField
+        @TextField
+        @DependsOn(action = DependsOnActions.REQUIRED, query = "")
+        String text;
+    }
+}
@@ -0,0 +1,42 @@
+package com.exadel.aem.toolkit.core.maven;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.exadel.aem.toolkit.core.util.PluginReflectionUtility;
+import com.exadel.aem.toolkit.core.util.TestsConstants;
+
+public class WarmRuntimesTest {
+    private static final List<String> CLASSPATH_ELEMENTS = Arrays.asList(
+            TestsConstants.PLUGIN_MODULE_TARGET,
+            TestsConstants.API_MODULE_TARGET,
+            TestsConstants.PLUGIN_MODULE_TEST_TARGET
+    );
+    private static final String PACKAGE_BASE_1 = "com.exadel.aem.toolkit.test.component";
+    private static final String PACKAGE_BASE_2 = "com.exadel.aem.toolkit.test.widget";
+
+    @Test
+    public void testRuntimeReused() {
+        PluginReflectionUtility first = WarmRuntimes.acquire(CLASSPATH_ELEMENTS, PACKAGE_BASE_1, 2);
+        WarmRuntimes.release(first);
+        PluginReflectionUtility second = WarmRuntimes.acquire(CLASSPATH_ELEMENTS, PACKAGE_BASE_1, 2);
+        WarmRuntimes.release(second);
+        Assert.assertSame(first, second);
+        Assert.assertFalse(second.getComponentClasses().isEmpty());
+    }
+
+    @Test
+    public void testRuntimeEvicted() {
+        PluginReflectionUtility first = WarmRuntimes.acquire(CLASSPATH_ELEMENTS, PACKAGE_BASE_1, 1);
+        WarmRuntimes.release(first);
+        PluginReflectionUtility second = WarmRuntimes.acquire(CLASSPATH_ELEMENTS, PACKAGE_BASE_2, 1);
+        WarmRuntimes.release(second);
+        PluginReflectionUtility third = WarmRuntimes.acquire(CLASSPATH_ELEMENTS, PACKAGE_BASE_1, 1);
+        WarmRuntimes.release(third);
+        Assert.assertNotSame(first, second);
+        Assert.assertNotSame(first, third);
+    }
+}
@@ -0,0 +1,136 @@
+package com.exadel.aem.toolkit.core.processing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.exadel.aem.toolkit.api.annotations.widgets.common.XmlScope;
+import com.exadel.aem.toolkit.core.maven.DialogGenerator;
+import com.exadel.aem.toolkit.core.util.CompiledMarkup;
+import com.exadel.aem.toolkit.core.util.TestsConstants;
+import com.exadel.aem.toolkit.test.component.ComplexComponent1;
+import com.exadel.aem.toolkit.test.cache.InvalidDependsOnComponent;
+import com.exadel.aem.toolkit.test.component.ComponentWithRichTextAndExternalClasses;
+import com.exadel.aem.toolkit.test.component.ComponentWithTabsAndInnerClass;
+import com.exadel.aem.toolkit.test.custom.CustomAnnotations;
+import com.exadel.aem.toolkit.test.widget.Tabs;
+
+public class DialogMarkupProcessorTest {
+    private static final Path SOURCE_ROOT = Paths.get("src", "test");
+    private static final Path SOURCES = SOURCE_ROOT.resolve(Paths.get("com", "exadel", "aem", "toolkit", "test"));
+    private static final String COMPONENT_PACKAGE = "component";
+    private static final String COMPONENTS_PATH_BASE = "jcr_root/apps/test/components";
+    private static final String FIELDSET_BASE = "com.exadel.aem.toolkit.test.component.SampleFieldsetBase1";
+    private static final String JAVA_EXTENSION = ".java";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testMarkupMatchesRenderedViaReflection() throws IOException, ClassNotFoundException {
+        // the test components share the same name, so they are compiled one by one
+        Map<String, CompiledMarkup.Entry> entries = new HashMap<>();
+        Map<String, Path> outputs = new HashMap<>();
+        for (File source : getComponentSources()) {
+            Path output = temporaryFolder.newFolder().toPath();
+            compile(source, output);
+            for (CompiledMarkup.Entry entry : readIndex(output).getEntries()) {
+                entries.put(entry.getClassName(), entry);
+                outputs.put(entry.getClassName(), output);
+            }
+        }
+
+        Assert.assertTrue(entries.containsKey(ComplexComponent1.class.getName()));
+        Assert.assertTrue(entries.containsKey(ComponentWithTabsAndInnerClass.class.getName()));
+        Assert.assertTrue(entries.containsKey(Tabs.class.getName()));
+        Assert.assertFalse(entries.containsKey(CustomAnnotations.class.getName()));
+        Assert.assertFalse(entries.containsKey(InvalidDependsOnComponent.class.getName()));
+        try (DialogGenerator generator = DialogGenerator.newInstance()) {
+            for (CompiledMarkup.Entry entry : entries.values()) {
+                Map<XmlScope, byte[]> expected = generator.generate(Class.forName(entry.getClassName()));
+                Assert.assertEquals(entry.getClassName(), new ArrayList<>(expected.keySet()), entry.getScopes());
+                for (XmlScope scope : entry.getScopes()) {
+                    Path file = outputs.get(entry.getClassName()).resolve(entry.getFolder()).resolve(scope.toString());
+                    Assert.assertEquals(entry.getClassName() + ": " + scope,
+                            new String(expected.get(scope), StandardCharsets.UTF_8),
+                            new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDependentComponentRenderedAnew() throws IOException {
+        Path output = temporaryFolder.newFolder().toPath();
+        compile(SOURCES.resolve(COMPONENT_PACKAGE).resolve(ComponentWithRichTextAndExternalClasses.class.getSimpleName() + JAVA_EXTENSION).toFile(), output);
+        CompiledMarkup.Entry entry = readIndex(output).getEntries().stream().findFirst().orElseThrow(AssertionError::new);
+        Assert.assertTrue(entry.getDependencies().contains(FIELDSET_BASE));
+        Path dialogFile = output.resolve(entry.getFolder()).resolve(XmlScope.CQ_DIALOG.toString());
+        Files.delete(dialogFile);
+
+        compile(SOURCES.resolve(COMPONENT_PACKAGE).resolve(StringUtils.substringAfterLast(FIELDSET_BASE, ".") + JAVA_EXTENSION).toFile(), output);
+        Assert.assertTrue(Files.exists(dialogFile));
+        Assert.assertEquals(Collections.singleton(entry.getClassName()), readIndex(output).getClassNames());
+    }
+
+    private static List<File> getComponentSources() throws IOException {
+        try (Stream<Path> files = Files.walk(SOURCES)) {
+            return files
+                    .filter(file -> file.toString().endsWith(JAVA_EXTENSION))
+                    .filter(file -> {
+                        try {
+                            return new String(Files.readAllBytes(file), StandardCharsets.UTF_8).contains("@Dialog(");
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    })
+                    .map(Path::toFile)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static void compile(File source, Path output) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            List<String> options = Arrays.asList(
+                    "-d", output.toString(),
+                    "-classpath", String.join(File.pathSeparator, TestsConstants.API_MODULE_TARGET, TestsConstants.PLUGIN_MODULE_TARGET, output.toString()),
+                    "-sourcepath", SOURCE_ROOT.toString(),
+                    "-implicit:none",
+                    "-A" + DialogMarkupProcessor.COMPONENTS_PATH_BASE_OPTION + "=" + COMPONENTS_PATH_BASE);
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null,
+                    fileManager.getJavaFileObjects(source));
+            task.setProcessors(Collections.singletonList(new DialogMarkupProcessor()));
+            Assert.assertTrue(source.getName(), task.call());
+        }
+    }
+
+    private static CompiledMarkup readIndex(Path output) throws IOException {
+        try (Reader reader = Files.newBufferedReader(output.resolve(CompiledMarkup.INDEX), StandardCharsets.UTF_8)) {
+            return CompiledMarkup.read(reader);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.exadel.aem.toolkit.core.util;
+
+import java.lang.reflect.Method;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.exadel.aem.toolkit.api.annotations.widgets.select.Select;
+import com.exadel.aem.toolkit.test.widget.SelectWidget;
+
+public class AnnotationDescriptorTest {
+    @Test
+    public void testGeneratedAccessorsMatchReflection() throws ReflectiveOperationException {
+        for (String fieldName : new String[] {"rating", "timezone"}) {
+            Select select = SelectWidget.class.getDeclaredField(fieldName).getAnnotation(Select.class);
+            for (AnnotationDescriptor.Property property : AnnotationDescriptor.of(Select.class).getProperties()) {
+                Object expected = property.getMethod().invoke(select);
+                Object actual = property.getValue(select);
+                if (property.isArray()) {
+                    Assert.assertArrayEquals((Object[]) expected, (Object[]) actual);
+                } else {
+                    Assert.assertEquals(expected, actual);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAccessorsGeneratedForBuiltInAnnotations() {
+        for (AnnotationDescriptor.Property property : AnnotationDescriptor.of(Select.class).getProperties()) {
+            Assert.assertTrue(property.getName(), property.hasGeneratedAccessor());
+        }
+    }
+
+    @Test
+    public void testPropertyDefaults() throws ReflectiveOperationException {
+        Select select = SelectWidget.class.getDeclaredField("rating").getAnnotation(Select.class);
+        AnnotationDescriptor descriptor = AnnotationDescriptor.of(Select.class);
+        Assert.assertSame(descriptor, AnnotationDescriptor.of(Select.class));
+        Assert.assertTrue(descriptor.getProperty("emptyText").isNotDefault(select));
+        Assert.assertFalse(descriptor.getProperty("addNoneOption").isNotDefault(select));
+        Method emptyText = Select.class.getDeclaredMethod("emptyText");
+        Assert.assertEquals(emptyText.invoke(select), descriptor.getProperty("emptyText").getValue(select));
+    }
+}
@@ -0,0 +1,54 @@
+package com.exadel.aem.toolkit.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.exadel.aem.toolkit.api.processing.ComponentIndexProcessor;
+
+public class ClassFileScannerTest {
+    private static final String INDEXED_COMPONENT = "com.example.IndexedComponent";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testFolderIndexUsedWhenUpToDate() throws IOException {
+        File classes = temporaryFolder.newFolder("classes");
+        writeClassFile(classes, 10000L);
+        writeIndex(classes, 20000L);
+        Assert.assertTrue(ClassFileScanner.scan(classes).getAnnotatedTypes().contains(INDEXED_COMPONENT));
+    }
+
+    @Test
+    public void testFolderIndexIgnoredWhenOutdated() throws IOException {
+        File classes = temporaryFolder.newFolder("classes");
+        writeIndex(classes, 10000L);
+        writeClassFile(classes, 20000L);
+        Assert.assertFalse(ClassFileScanner.scan(classes).getAnnotatedTypes().contains(INDEXED_COMPONENT));
+    }
+
+    private static void writeClassFile(File folder, long lastModified) throws IOException {
+        Path classFile = folder.toPath().resolve("Sample.class");
+        Files.write(classFile, new byte[] {0});
+        Files.setLastModifiedTime(classFile, FileTime.fromMillis(lastModified));
+    }
+
+    private static void writeIndex(File folder, long lastModified) throws IOException {
+        Path componentsIndex = folder.toPath().resolve(ComponentIndexProcessor.COMPONENTS_INDEX);
+        Path handlersIndex = folder.toPath().resolve(ComponentIndexProcessor.HANDLERS_INDEX);
+        Files.createDirectories(componentsIndex.getParent());
+        Files.write(componentsIndex, (INDEXED_COMPONENT + ComponentIndexProcessor.INDEX_SEPARATOR + "indexed\n").getBytes(StandardCharsets.UTF_8));
+        Files.write(handlersIndex, new byte[0]);
+        Files.setLastModifiedTime(componentsIndex, FileTime.fromMillis(lastModified));
+        Files.setLastModifiedTime(handlersIndex, FileTime.fromMillis(lastModified));
+    }
+}
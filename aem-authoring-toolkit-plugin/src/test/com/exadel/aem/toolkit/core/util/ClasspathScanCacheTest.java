@@ -0,0 +1,71 @@
+package com.exadel.aem.toolkit.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.exadel.aem.toolkit.api.handlers.DialogWidgetHandler;
+
+public class ClasspathScanCacheTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testScanResultsPersisted() throws IOException {
+        Path storage = temporaryFolder.getRoot().toPath();
+        ClassIndex scanned = new ClasspathScanCache(storage).get(TestsConstants.PLUGIN_MODULE_TEST_TARGET);
+        Assert.assertEquals(1, countEntries(storage));
+
+        ClassIndex restored = new ClasspathScanCache(storage).get(TestsConstants.PLUGIN_MODULE_TEST_TARGET);
+        Assert.assertEquals(1, countEntries(storage));
+        Assert.assertFalse(restored.getAnnotatedTypes().isEmpty());
+        Assert.assertEquals(scanned.getAnnotatedTypes(), restored.getAnnotatedTypes());
+        Assert.assertEquals(scanned.getSubTypesOf(DialogWidgetHandler.class.getName()),
+                restored.getSubTypesOf(DialogWidgetHandler.class.getName()));
+    }
+
+    @Test
+    public void testChangedFolderRescanned() throws IOException {
+        Path storage = temporaryFolder.newFolder("storage").toPath();
+        File classes = temporaryFolder.newFolder("classes");
+        new ClasspathScanCache(storage).get(classes.getPath());
+        Files.write(classes.toPath().resolve("Sample.class"), new byte[] {0});
+        new ClasspathScanCache(storage).get(classes.getPath());
+        Assert.assertEquals(2, countEntries(storage));
+    }
+
+    @Test
+    public void testFolderFingerprintTracksEveryFile() throws IOException {
+        File classes = temporaryFolder.newFolder("fingerprinted");
+        Path sample = classes.toPath().resolve("Sample.class");
+        Files.write(sample, new byte[] {0});
+        Files.setLastModifiedTime(sample, FileTime.fromMillis(20000L));
+        String initial = ClasspathScanCache.getFingerprint(Collections.singletonList(classes.getPath()));
+
+        Files.write(sample, new byte[] {0, 1});
+        Files.setLastModifiedTime(sample, FileTime.fromMillis(10000L));
+        String replaced = ClasspathScanCache.getFingerprint(Collections.singletonList(classes.getPath()));
+        Assert.assertNotEquals(initial, replaced);
+
+        Files.delete(sample);
+        Path other = classes.toPath().resolve("Other.class");
+        Files.write(other, new byte[] {0, 1});
+        Files.setLastModifiedTime(other, FileTime.fromMillis(10000L));
+        Assert.assertNotEquals(replaced, ClasspathScanCache.getFingerprint(Collections.singletonList(classes.getPath())));
+    }
+
+    private static long countEntries(Path storage) throws IOException {
+        try (Stream<Path> files = Files.list(storage)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
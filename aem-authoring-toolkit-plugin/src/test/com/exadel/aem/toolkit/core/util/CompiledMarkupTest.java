@@ -0,0 +1,169 @@
+package com.exadel.aem.toolkit.core.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.exadel.aem.toolkit.api.annotations.widgets.common.XmlScope;
+import com.exadel.aem.toolkit.core.processing.DialogMarkupProcessor;
+import com.exadel.aem.toolkit.test.component.ComponentWithRichTextAndExternalClasses;
+
+public class CompiledMarkupTest {
+    private static final String HANDLED_ANNOTATION = "com.acme.HandledWidget";
+    private static final String DIALOG_CONTENT = "<jcr:root/>";
+    private static final Path SOURCE_ROOT = Paths.get("src", "test");
+    private static final Path COMPONENT_SOURCES = SOURCE_ROOT.resolve(Paths.get("com", "exadel", "aem", "toolkit", "test", "component"));
+    private static final String FIELDSET_BASE = "com.exadel.aem.toolkit.test.component.SampleFieldsetBase1";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testIndexRoundTrip() throws IOException {
+        CompiledMarkup markup = new CompiledMarkup(Collections.singletonList(newEntry("com.acme.First", "first")));
+        StringWriter writer = new StringWriter();
+        markup.write(writer);
+
+        CompiledMarkup restored = CompiledMarkup.read(new StringReader(writer.toString()));
+        CompiledMarkup.Entry entry = restored.getEntries().iterator().next();
+        Assert.assertEquals("com.acme.First", entry.getClassName());
+        Assert.assertEquals("jcr_root/first", entry.getFolder());
+        Assert.assertEquals(Arrays.asList(XmlScope.CQ_DIALOG, XmlScope.COMPONENT), entry.getScopes());
+        Assert.assertEquals(Collections.singleton(HANDLED_ANNOTATION), entry.getAnnotationTypes());
+    }
+
+    @Test
+    public void testEntriesSelectedForPackage() throws IOException {
+        Path root = temporaryFolder.getRoot().toPath();
+        CompiledMarkup markup = new CompiledMarkup(Arrays.asList(
+                newEntry("com.acme.First", "first"),
+                newEntry("com.acme.Recompiled", "recompiled"),
+                newEntry("com.acme.Removed", "removed")));
+        for (CompiledMarkup.Entry entry : markup.getEntries()) {
+            Path classFile = root.resolve(entry.getClassName().replace('.', '/') + ".class");
+            Files.createDirectories(classFile.getParent());
+            Files.write(classFile, new byte[0]);
+            Files.createDirectories(root.resolve(entry.getFolder()));
+            for (XmlScope scope : entry.getScopes()) {
+                Files.write(root.resolve(entry.getFolder()).resolve(scope.toString()), DIALOG_CONTENT.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        Path index = root.resolve(CompiledMarkup.INDEX);
+        Files.createDirectories(index.getParent());
+        try (Writer writer = Files.newBufferedWriter(index, StandardCharsets.UTF_8)) {
+            markup.write(writer);
+        }
+        long indexModified = Files.getLastModifiedTime(index).toMillis();
+        Files.setLastModifiedTime(root.resolve("com/acme/Recompiled.class"), FileTime.fromMillis(indexModified + 1000));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {root.toUri().toURL()}, null)) {
+            CompiledMarkup selected = CompiledMarkup.read(classLoader,
+                    Arrays.asList("com.acme.First", "com.acme.Recompiled"),
+                    Collections.emptySet());
+            Assert.assertEquals(Collections.singleton("com.acme.First"), selected.getClassNames());
+            CompiledMarkup.Entry entry = selected.getEntries().iterator().next();
+            Assert.assertArrayEquals(DIALOG_CONTENT.getBytes(StandardCharsets.UTF_8), entry.getContent().get(XmlScope.CQ_DIALOG));
+
+            CompiledMarkup handled = CompiledMarkup.read(classLoader,
+                    Collections.singletonList("com.acme.First"),
+                    Collections.singleton(HANDLED_ANNOTATION));
+            Assert.assertTrue(handled.getEntries().isEmpty());
+        }
+    }
+
+    @Test
+    public void testDependencyRecompiledWithoutProcessor() throws IOException {
+        Path output = temporaryFolder.newFolder().toPath();
+        Path componentSource = COMPONENT_SOURCES.resolve("ComponentWithRichTextAndExternalClasses.java");
+        compile(output, true, componentSource);
+        // the class files and the index are made older, as if the compilation happened a while ago
+        FileTime compiled = FileTime.fromMillis(System.currentTimeMillis() - 10_000);
+        try (Stream<Path> files = Files.walk(output)) {
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.setLastModifiedTime(file, compiled);
+            }
+        }
+        List<String> componentNames = Collections.singletonList(ComponentWithRichTextAndExternalClasses.class.getName());
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {output.toUri().toURL()}, null)) {
+            CompiledMarkup markup = CompiledMarkup.read(classLoader, componentNames, Collections.emptySet());
+            Assert.assertEquals(new HashSet<>(componentNames), markup.getClassNames());
+            Assert.assertTrue(markup.getEntries().iterator().next().getDependencies().contains(FIELDSET_BASE));
+        }
+
+        compile(output, false, COMPONENT_SOURCES.resolve(StringUtils.substringAfterLast(FIELDSET_BASE, ".") + ".java"));
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {output.toUri().toURL()}, null)) {
+            Assert.assertTrue(CompiledMarkup.read(classLoader, componentNames, Collections.emptySet()).getEntries().isEmpty());
+        }
+    }
+
+    @Test
+    public void testDependencyInOtherClasspathElement() throws IOException {
+        Path output = temporaryFolder.newFolder().toPath();
+        compile(output, true, COMPONENT_SOURCES.resolve("ComponentWithRichTextAndExternalClasses.java"));
+        Path dependency = output.resolve(FIELDSET_BASE.replace('.', '/') + ".class");
+        Path otherElement = temporaryFolder.newFolder().toPath();
+        Path movedDependency = otherElement.resolve(output.relativize(dependency).toString());
+        Files.createDirectories(movedDependency.getParent());
+        Files.move(dependency, movedDependency, StandardCopyOption.REPLACE_EXISTING);
+        List<String> componentNames = Collections.singletonList(ComponentWithRichTextAndExternalClasses.class.getName());
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] {output.toUri().toURL(), otherElement.toUri().toURL()}, null)) {
+            Assert.assertTrue(CompiledMarkup.read(classLoader, componentNames, Collections.emptySet()).getEntries().isEmpty());
+        }
+    }
+
+    private static void compile(Path output, boolean withProcessor, Path source) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            List<String> options = new ArrayList<>(Arrays.asList(
+                    "-d", output.toString(),
+                    "-classpath", String.join(File.pathSeparator, TestsConstants.API_MODULE_TARGET, TestsConstants.PLUGIN_MODULE_TARGET, output.toString()),
+                    "-sourcepath", SOURCE_ROOT.toString(),
+                    "-implicit:class"));
+            if (!withProcessor) {
+                options.add("-proc:none");
+            }
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null,
+                    fileManager.getJavaFileObjects(source.toFile()));
+            if (withProcessor) {
+                task.setProcessors(Collections.singletonList(new DialogMarkupProcessor()));
+            }
+            Assert.assertTrue(task.call());
+        }
+    }
+
+    private static CompiledMarkup.Entry newEntry(String className, String componentName) {
+        return new CompiledMarkup.Entry(className, componentName, "jcr_root/" + componentName,
+                Arrays.asList(XmlScope.CQ_DIALOG, XmlScope.COMPONENT),
+                Collections.singletonList(HANDLED_ANNOTATION),
+                Collections.singletonList(className));
+    }
+}
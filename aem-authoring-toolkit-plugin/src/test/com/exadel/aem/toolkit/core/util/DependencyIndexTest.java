@@ -0,0 +1,53 @@
+package com.exadel.aem.toolkit.core.util;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.exadel.aem.toolkit.test.component.ComplexComponent1;
+
+public class DependencyIndexTest {
+    private static final List<String> CLASSPATH_ELEMENTS = Arrays.asList(
+            TestsConstants.PLUGIN_MODULE_TARGET,
+            TestsConstants.API_MODULE_TARGET,
+            TestsConstants.PLUGIN_MODULE_TEST_TARGET
+    );
+    private static final String PACKAGE_BASE = "com.exadel.aem.toolkit.test.component";
+    private static final String COMPONENTS_PATH_BASE = "/apps/test/components";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testAffectedComponents() {
+        DependencyIndex index = buildIndex();
+        Assert.assertEquals(Collections.singleton(COMPONENTS_PATH_BASE + "/test-component"),
+                index.getAffectedComponents(Collections.singletonList(ComplexComponent1.class.getName() + "$Tabs")));
+        Assert.assertTrue(index.getAffectedComponents(Collections.singletonList(DependencyIndexTest.class.getName())).isEmpty());
+    }
+
+    @Test
+    public void testIndexPersisted() throws IOException {
+        DependencyIndex index = buildIndex();
+        Path indexFile = temporaryFolder.getRoot().toPath().resolve("dependencies.idx");
+        index.write(indexFile);
+        DependencyIndex restored = DependencyIndex.read(indexFile);
+        Assert.assertEquals(index.size(), restored.size());
+        Assert.assertEquals(index.getAffectedComponents(Collections.singletonList(ComplexComponent1.class.getName())),
+                restored.getAffectedComponents(Collections.singletonList(ComplexComponent1.class.getName())));
+    }
+
+    private static DependencyIndex buildIndex() {
+        return DependencyIndex.build(
+                Collections.singletonList(ComplexComponent1.class),
+                COMPONENTS_PATH_BASE,
+                PluginReflectionUtility.fromCodeScope(CLASSPATH_ELEMENTS, PACKAGE_BASE));
+    }
+}
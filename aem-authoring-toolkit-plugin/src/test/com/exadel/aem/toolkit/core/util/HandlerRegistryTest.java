@@ -0,0 +1,55 @@
+package com.exadel.aem.toolkit.core.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.exadel.aem.toolkit.api.handlers.DialogWidgetHandler;
+import com.exadel.aem.toolkit.test.custom.CustomHandler;
+import com.exadel.aem.toolkit.test.service.ServiceAnnotation;
+import com.exadel.aem.toolkit.test.service.ServiceHandler;
+
+public class HandlerRegistryTest {
+    @Test
+    public void testServiceDeclaredHandlers() {
+        // the test classes are only put on the classpath, so the handler is known solely from its service declaration
+        PluginReflectionUtility reflectionUtility = PluginReflectionUtility.fromCodeScope(
+                Arrays.asList(TestsConstants.PLUGIN_MODULE_TARGET, TestsConstants.API_MODULE_TARGET, TestsConstants.PLUGIN_MODULE_TEST_TARGET),
+                Arrays.asList(TestsConstants.PLUGIN_MODULE_TARGET, TestsConstants.API_MODULE_TARGET),
+                "com.exadel.aem.toolkit.test.component",
+                new ClasspathScanCache());
+        try {
+            Assert.assertTrue(reflectionUtility.getComponentClasses().isEmpty());
+            List<DialogWidgetHandler> byAnnotation = reflectionUtility.getCustomDialogWidgetHandlers(ServiceAnnotation.class);
+            Assert.assertEquals(1, byAnnotation.size());
+            Assert.assertEquals(ServiceHandler.class.getName(), byAnnotation.get(0).getClass().getName());
+            List<DialogWidgetHandler> byName = reflectionUtility.getCustomDialogWidgetHandlers("testServiceHandler");
+            Assert.assertEquals(1, byName.size());
+            Assert.assertSame(byAnnotation.get(0), byName.get(0));
+        } finally {
+            reflectionUtility.close();
+        }
+    }
+
+    @Test
+    public void testHandlersInstantiatedLazily() {
+        List<Class<?>> instantiated = new ArrayList<>();
+        HandlerRegistry<DialogWidgetHandler> registry = new HandlerRegistry<>(
+                () -> Arrays.asList(ServiceHandler.class, CustomHandler.class),
+                handlerClass -> {
+                    instantiated.add(handlerClass);
+                    return handlerClass == ServiceHandler.class ? new ServiceHandler() : new CustomHandler();
+                },
+                DialogWidgetHandler::getName);
+
+        Assert.assertEquals(1, registry.getByWidgetAnnotation(ServiceAnnotation.class).size());
+        Assert.assertEquals(1, registry.getByWidgetAnnotation(ServiceAnnotation.class).size());
+        Assert.assertEquals(Collections.singletonList(ServiceHandler.class), instantiated);
+        Assert.assertTrue(registry.getByWidgetAnnotation(Deprecated.class).isEmpty());
+        Assert.assertEquals(Collections.singletonList(ServiceHandler.class), instantiated);
+    }
+}
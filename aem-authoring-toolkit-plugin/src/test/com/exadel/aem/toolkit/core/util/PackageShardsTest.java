@@ -0,0 +1,89 @@
+package com.exadel.aem.toolkit.core.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.exadel.aem.toolkit.core.exceptions.PluginException;
+import com.exadel.aem.toolkit.test.common.PropertiesAnnotation;
+import com.exadel.aem.toolkit.test.component.ComplexComponent1;
+import com.exadel.aem.toolkit.test.component.ComplexComponent2;
+import com.exadel.aem.toolkit.test.component.ComponentWithTabsAndInnerClass;
+import com.exadel.aem.toolkit.test.widget.Tabs;
+
+public class PackageShardsTest {
+    private static final int SHARDS_COUNT = 3;
+    private static final List<Class<?>> COMPONENT_CLASSES = Arrays.asList(
+            ComplexComponent1.class,
+            ComplexComponent2.class,
+            ComponentWithTabsAndInnerClass.class,
+            PropertiesAnnotation.class,
+            Tabs.class
+    );
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testShardIndexStable() {
+        // the values must not depend on the machine or the build, since shards may be generated on different CI nodes
+        Assert.assertEquals(2, PackageShards.getShardIndex("com.exadel.aem.toolkit.test.component.ComplexComponent1", SHARDS_COUNT));
+        Assert.assertEquals(3, PackageShards.getShardIndex("com.exadel.aem.toolkit.test.component.ComplexComponent2", SHARDS_COUNT));
+        Assert.assertEquals(3, PackageShards.getShardIndex("com.exadel.aem.toolkit.test.widget.Tabs", SHARDS_COUNT));
+        for (Class<?> componentClass : COMPONENT_CLASSES) {
+            int shardIndex = PackageShards.getShardIndex(componentClass.getName(), SHARDS_COUNT);
+            Assert.assertTrue(shardIndex >= 1 && shardIndex <= SHARDS_COUNT);
+            Assert.assertEquals(shardIndex, PackageShards.getShardIndex(componentClass.getName(), SHARDS_COUNT));
+        }
+    }
+
+    @Test
+    public void testEveryClassInSingleShard() {
+        for (Class<?> componentClass : COMPONENT_CLASSES) {
+            int shardsContaining = 0;
+            for (int i = 1; i <= SHARDS_COUNT; i++) {
+                if (PackageShards.filter(COMPONENT_CLASSES, i + "/" + SHARDS_COUNT).contains(componentClass)) {
+                    shardsContaining++;
+                }
+            }
+            Assert.assertEquals(componentClass.getName(), 1, shardsContaining);
+        }
+    }
+
+    @Test
+    public void testParse() {
+        Assert.assertArrayEquals(new int[] {1, 3}, PackageShards.parse("1/3"));
+        Assert.assertArrayEquals(new int[] {3, 3}, PackageShards.parse(" 3 / 3 "));
+        for (String shard : Arrays.asList("0/3", "4/3", "1", "a/b", "1/2/3", "", null)) {
+            try {
+                PackageShards.parse(shard);
+                Assert.fail("Shard " + shard + " must be rejected");
+            } catch (PluginException e) {
+                Assert.assertTrue(e.getMessage().endsWith(String.valueOf(shard)));
+            }
+        }
+    }
+
+    @Test(expected = PluginException.class)
+    public void testMissingShardArchiveFound() throws IOException {
+        Path directory = temporaryFolder.getRoot().toPath();
+        Files.createFile(directory.resolve(PackageShards.getArchiveName("1/3")));
+        Files.createFile(directory.resolve(PackageShards.getArchiveName("3/3")));
+        PackageShards.getArchives(directory);
+    }
+
+    @Test(expected = PluginException.class)
+    public void testMissingShardArchiveNotMerged() throws IOException {
+        Path packageFile = temporaryFolder.newFile("test.zip").toPath();
+        Path missingArchive = temporaryFolder.getRoot().toPath().resolve(PackageShards.getArchiveName("1/1"));
+        PackageShards.merge(packageFile, "/jcr_root/apps/test/components", Collections.singletonList(missingArchive));
+    }
+}
@@ -5,7 +5,7 @@ import java.nio.file.Paths;
 public class TestsConstants {
     private TestsConstants() {
     }
-    public static final String PATH_TO_EXPECTED_FILES = "src\\test\\resources\\dialog";
+    public static final String PATH_TO_EXPECTED_FILES = "src/test/resources/dialog";
 
     private static final String API_MODULE_NAME = "aem-authoring-toolkit-api";
     private static final String PLUGIN_MODULE_NAME = "aem-authoring-toolkit-plugin";